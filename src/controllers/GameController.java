@@ -1,7 +1,8 @@
 package controllers;
 
-import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 
 import data.*;
@@ -16,6 +17,7 @@ import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.paint.Color;
@@ -30,18 +32,6 @@ import javafx.stage.Stage;
  * @author William King
  */
 public class GameController {
-	/** File location of the graphics folder. */
-	private final static String GRAPHICS_FILE_PATH = "DataFiles/Graphics/";
-	/** File location of the player sprites. */
-	private final static String PLAYER_FILE_PATH = GRAPHICS_FILE_PATH + "Player Sprites/";
-	/** File location of the items. */
-	private final static String ITEM_FILE_PATH = GRAPHICS_FILE_PATH + "Items/";
-	/** File location of the doors. */
-	private final static String DOOR_FILE_PATH = GRAPHICS_FILE_PATH + "Doors/";
-	/** File location of the textures. */
-	private final static String TEXTURE_FILE_PATH = GRAPHICS_FILE_PATH + "Textures/";
-	/** File location of the enemy sprites. */
-	private final static String ENEMY_FILE_PATH = GRAPHICS_FILE_PATH + "Enemies/";
 	/** Title for the Main Menu. */
 	private final String MAIN_MENU_TITLE = "Main Menu";
 	/** The number marking the highest level in the game. */
@@ -52,6 +42,10 @@ public class GameController {
 	private static int GRID_CELL_HEIGHT = 50;
 	/** The number of square cells shown on the screen. */
 	private final static int GAME_BOUNDS = 3;
+	/** The number of cells shown across (and down) the screen. */
+	private final static int VIEW_SIZE = (GAME_BOUNDS * 2) + 1;
+	/** The number of cells across (and down) each baked image of the level's static tiles. */
+	private final static int CHUNK_CELLS = 32;
 	
 	// Message Prompts.
 	private final String YELLOW_KEY_MSG = "\nYou picked up a yellow key.";
@@ -81,24 +75,28 @@ public class GameController {
 			+ "time to get you out of there.";
 	
 	/** An array holding the elements for a level. */
-	private String[][] levelElements;
-	/** An array holding all the doors in a level. */
-	private Door[][] doors;
-	/** An array holding all the apparels in a level. */
-	private Apparel[][] apparels;
-	/** An array holding all the items in a level. */
-	private Item[][] items;
-	/** An array holding all the hazards in a level. */
-	private Hazard[][] hazards;
-	/** An array holding all the portals in a level. */
-	private Portal[][] portals;
-	/** An array holding all the enemies in a level. */
-	private Enemy[] enemies;
+	private TileGrid levelElements;
+	/** All the doors in a level, accessed by their location. */
+	private CellMap<Door> doors;
+	/** All the apparels in a level, accessed by their location. */
+	private CellMap<Apparel> apparels;
+	/** All the items in a level, accessed by their location. */
+	private CellMap<Item> items;
+	/** All the hazards in a level, accessed by their location. */
+	private CellMap<Hazard> hazards;
+	/** All the portals in a level, accessed by their location. */
+	private CellMap<Portal> portals;
+	/** A table holding all the enemies in a level. */
+	private EnemyTable enemies;
 	
 	/** The instance of the game controller object. */
 	private GameController gameController;
 	/** Holds the User to adjust the levels they can play. */
 	private User currentUser;
+	/** Plays the game (moves the player and enemies). */
+	private GameEngine gameEngine;
+	/** Records the player's inputs from the start of a level, so the game can be replayed. */
+	private InputRecording recording;
 	/** The current level that the player is on. */
 	private Level currentLevel;
 	/** Player in the game (to control its status). */
@@ -193,60 +191,81 @@ public class GameController {
 	@FXML private Canvas canvas;
 	/** The graphic context of the canvas. */
 	private GraphicsContext gc;
+	/** The level shown on the canvas, or null if the whole canvas needs to be drawn. */
+	private Level drawnLevel;
+	/** The x-coordinate of the player when the canvas was last drawn. */
+	private int drawnPlayerX;
+	/** The y-coordinate of the player when the canvas was last drawn. */
+	private int drawnPlayerY;
+	/** The number of the level's changed cells already shown on the canvas. */
+	private int numChangedCellsDrawn;
+	/** The cell id (y * width + x) of each enemy when the canvas was last drawn. */
+	private int[] drawnEnemyCells;
+	/** The cells of the screen that need to be drawn again. Accessed by (row * VIEW_SIZE) + column. */
+	private boolean[] dirtyCells = new boolean[VIEW_SIZE * VIEW_SIZE];
+	/** A copy of the canvas, used to scroll what's already drawn. */
+	private WritableImage scrollImage;
+	/** The level's floor, walls, goal, hazards and portals (which never change), baked into
+	 * images of CHUNK_CELLS by CHUNK_CELLS cells. Accessed by (chunk row * number of chunk columns)
+	 * + chunk column. Each chunk is only baked once it's shown. */
+	private HashMap<Integer, WritableImage> staticChunks = new HashMap<Integer, WritableImage>();
+	/** The hazards of the level the static chunks were baked from. Every play of a level
+	 * shares its hazards, so a different one means the level (or its file) has changed. */
+	private CellMap<Hazard> bakedHazards;
 	
 	/**
 	 * Sets up the graphics and gets the total level completion times. 
 	 * This method will run automatically.
 	 */
 	public void initialize() {
-		// Load the graphics.
+		// Get the graphics (loaded once, when the program started).
 		// Player Sprites
-		playerDefault = new Image(new File (PLAYER_FILE_PATH + "Default.png").toURI().toString());
-		playerOrangeKey = new Image(new File (PLAYER_FILE_PATH + "DefaultOrangeKey.png").toURI().toString());
-		playerYellowKey = new Image(new File (PLAYER_FILE_PATH + "DefaultYellowKey.png").toURI().toString());
-		playerPurpleKey = new Image(new File (PLAYER_FILE_PATH + "DefaultPurpleKey.png").toURI().toString());
+		playerDefault = SpriteRegistry.get(Sprite.PLAYER_DEFAULT);
+		playerOrangeKey = SpriteRegistry.get(Sprite.PLAYER_ORANGE_KEY);
+		playerYellowKey = SpriteRegistry.get(Sprite.PLAYER_YELLOW_KEY);
+		playerPurpleKey = SpriteRegistry.get(Sprite.PLAYER_PURPLE_KEY);
 		
 		
-		playerFlippers = new Image(new File (PLAYER_FILE_PATH + "Flippers.png").toURI().toString());
-		flippersOrangeKey = new Image(new File (PLAYER_FILE_PATH + "FlippersOrangeKey.png").toURI().toString());
-		flippersYellowKey = new Image(new File (PLAYER_FILE_PATH + "FlippersYellowKey.png").toURI().toString());
-		flippersPurpleKey = new Image(new File (PLAYER_FILE_PATH + "FlippersPurpleKey.png").toURI().toString());
+		playerFlippers = SpriteRegistry.get(Sprite.PLAYER_FLIPPERS);
+		flippersOrangeKey = SpriteRegistry.get(Sprite.FLIPPERS_ORANGE_KEY);
+		flippersYellowKey = SpriteRegistry.get(Sprite.FLIPPERS_YELLOW_KEY);
+		flippersPurpleKey = SpriteRegistry.get(Sprite.FLIPPERS_PURPLE_KEY);
 		
-		playerFireBoots = new Image(new File (PLAYER_FILE_PATH + "FireBoots.png").toURI().toString());
-		fireBootsOrangeKey = new Image(new File (PLAYER_FILE_PATH + "FireBootsOrangeKey.png").toURI().toString());
-		fireBootsYellowKey = new Image(new File (PLAYER_FILE_PATH + "FireBootsYellowKey.png").toURI().toString());
-		fireBootsPurpleKey = new Image(new File (PLAYER_FILE_PATH + "FireBootsPurpleKey.png").toURI().toString());
+		playerFireBoots = SpriteRegistry.get(Sprite.PLAYER_FIRE_BOOTS);
+		fireBootsOrangeKey = SpriteRegistry.get(Sprite.FIRE_BOOTS_ORANGE_KEY);
+		fireBootsYellowKey = SpriteRegistry.get(Sprite.FIRE_BOOTS_YELLOW_KEY);
+		fireBootsPurpleKey = SpriteRegistry.get(Sprite.FIRE_BOOTS_PURPLE_KEY);
 		
 		// Items
-		fireBoots = new Image(new File (ITEM_FILE_PATH + "FireBoots.png").toURI().toString());
-		flippers = new Image(new File (ITEM_FILE_PATH + "Flippers.png").toURI().toString());
-		orangeKey = new Image(new File (ITEM_FILE_PATH + "OrangeKey.png").toURI().toString());
-		yellowKey = new Image(new File (ITEM_FILE_PATH + "YellowKey.png").toURI().toString());
-		purpleKey = new Image(new File (ITEM_FILE_PATH + "purpleKey.png").toURI().toString());
-		token = new Image(new File (ITEM_FILE_PATH + "Token.png").toURI().toString());
+		fireBoots = SpriteRegistry.get(Sprite.FIRE_BOOTS);
+		flippers = SpriteRegistry.get(Sprite.FLIPPERS);
+		orangeKey = SpriteRegistry.get(Sprite.ORANGE_KEY);
+		yellowKey = SpriteRegistry.get(Sprite.YELLOW_KEY);
+		purpleKey = SpriteRegistry.get(Sprite.PURPLE_KEY);
+		token = SpriteRegistry.get(Sprite.TOKEN);
 		
 		// Doors
-		yellowDoor  = new Image(new File (DOOR_FILE_PATH + "YellowDoor.png").toURI().toString());
-		orangeDoor  = new Image(new File (DOOR_FILE_PATH + "OrangeDoor.png").toURI().toString());
-		purpleDoor  = new Image(new File (DOOR_FILE_PATH + "PurpleDoor.png").toURI().toString());
-		tokenDoor  = new Image(new File (DOOR_FILE_PATH + "TokenDoor.png").toURI().toString());
+		yellowDoor  = SpriteRegistry.get(Sprite.YELLOW_DOOR);
+		orangeDoor  = SpriteRegistry.get(Sprite.ORANGE_DOOR);
+		purpleDoor  = SpriteRegistry.get(Sprite.PURPLE_DOOR);
+		tokenDoor  = SpriteRegistry.get(Sprite.TOKEN_DOOR);
 		
 		// Environment
-		floor = new Image(new File (TEXTURE_FILE_PATH + "Floor.png").toURI().toString());
-		wall = new Image(new File (TEXTURE_FILE_PATH + "StoneWall.png").toURI().toString());
-		water = new Image(new File (TEXTURE_FILE_PATH + "Water.png").toURI().toString());
-		fire = new Image(new File (TEXTURE_FILE_PATH + "Fire.png").toURI().toString());
-		goal = new Image(new File (TEXTURE_FILE_PATH + "Treasure Chest.png").toURI().toString());
-		portal = new Image(new File (TEXTURE_FILE_PATH + "Portal.png").toURI().toString());
+		floor = SpriteRegistry.get(Sprite.FLOOR);
+		wall = SpriteRegistry.get(Sprite.WALL);
+		water = SpriteRegistry.get(Sprite.WATER);
+		fire = SpriteRegistry.get(Sprite.FIRE);
+		goal = SpriteRegistry.get(Sprite.GOAL);
+		portal = SpriteRegistry.get(Sprite.PORTAL);
 		
 		// Enemies
-		straightEnemy = new Image(new File (ENEMY_FILE_PATH + "Straight.png").toURI().toString());
-		wallEnemy = new Image(new File (ENEMY_FILE_PATH + "Wall.png").toURI().toString());
-		dumbEnemy = new Image(new File (ENEMY_FILE_PATH + "Dumb.png").toURI().toString());
-		smartEnemy = new Image(new File (ENEMY_FILE_PATH + "Smart.png").toURI().toString());
+		straightEnemy = SpriteRegistry.get(Sprite.STRAIGHT_ENEMY);
+		wallEnemy = SpriteRegistry.get(Sprite.WALL_ENEMY);
+		dumbEnemy = SpriteRegistry.get(Sprite.DUMB_ENEMY);
+		smartEnemy = SpriteRegistry.get(Sprite.SMART_ENEMY);
 		
 		// Game Completion
-		imgGameComplete = new Image(new File (GRAPHICS_FILE_PATH + "Game Completion.png").toURI().toString());
+		imgGameComplete = SpriteRegistry.get(Sprite.GAME_COMPLETE);
 		
 		// Set other values.
 		gameTimes = FileHandling.getTotalGameTimes();
@@ -260,10 +279,6 @@ public class GameController {
 	 * @param event The key event that was pressed.
 	 */
 	public void processMovement(KeyEvent event) {
-		// New x,y variables if the player has moved.
-		int playerNewX;
-		int playerNewY;
-		
 		// Close the game if the Enter button is pressed (and the game is completed).
 		if (gameCompleted) {
 			switch (event.getCode()) {
@@ -277,28 +292,22 @@ public class GameController {
 			}
 		// Otherwise, determine the player's movement (or hot keys).
 		} else { 
-			// Because the level is basically stored in an array.
-			// Going UP needs to lower the index and vice versa.
 			switch (event.getCode()) {
 				case UP:
 				case W:
-					playerNewY = player.getY() - 1;
-					isMoveValid(player.getX(), playerNewY, "UP");
+					playTurn(Action.UP);
 					break;
 				case DOWN:
 				case S:
-					playerNewY = player.getY() + 1;
-					isMoveValid(player.getX(), playerNewY, "DOWN");
+					playTurn(Action.DOWN);
 					break;
 				case LEFT:
 				case A:
-					playerNewX = player.getX() - 1;
-					isMoveValid(playerNewX, player.getY(), "LEFT");
+					playTurn(Action.LEFT);
 					break;
 				case RIGHT:
 				case D:
-					playerNewX = player.getX() + 1;
-					isMoveValid(playerNewX, player.getY(), "RIGHT");
+					playTurn(Action.RIGHT);
 					break;
 				// Hot key to pause the game.
 				case P:
@@ -320,214 +329,220 @@ public class GameController {
 	}
 	
 	/**
-	 * Checks if the move made is valid and determine action
-	 * depending on the surrounding elements.
-	 * @param newX The new x-coordinate.
-	 * @param newY The new y-coordinate.
-	 * @param direction The direction the player moved towards.
+	 * Plays a turn of the game and shows what happened.
+	 * @param action The move the player made.
 	 */
-	private void isMoveValid(int newX, int newY, String direction) {
-		// Fetches the element the player moves into.
-		String element = levelElements[newY][newX];
-		String[] equippedItems =  player.getEquippedItems();
-		String apparelEquipped = equippedItems[0]; // For water/fire hazards.
-		String itemEquipped = equippedItems[1]; // For coloured doors.
-		switch (element) {
-			case "W":
+	private void playTurn(Action action) {
+		recordInput(RecordedInput.fromAction(action));
+		for (GameEvent event : gameEngine.step(action)) {
+			showEvent(event);
+		}
+		
+		if (gameEngine.isLevelComplete()) {
+			loadNewLevel();
+			return;
+		}
+		// Redraw game as the player may have moved.
+		drawLevel();
+	}
+	
+	/**
+	 * Shows the player something that happened during their turn.
+	 * @param event What happened.
+	 */
+	private void showEvent(GameEvent event) {
+		switch (event.getType()) {
+			case FLIPPERS_PICKED_UP:
+				txtGamePrompt.appendText(FLIPPERS_MSG);
 				break;
-			case "G":
-				// Level Complete
-				txtGamePrompt.appendText("\nLevel " + levelNum + " completed!\n");
-				loadNewLevel();
-				return;
-			// APPAREL.
-			case "A":
-				Apparel apparel = apparels[newY][newX];
-				switch (apparel.getType()) {
-				case FLIPPERS:
-					txtGamePrompt.appendText(FLIPPERS_MSG);
-					player.addInventory("Flippers");
-					break;
-				case FIREBOOTS:
-					txtGamePrompt.appendText(FIRE_BOOTS_MSG);
-					player.addInventory("Fire Boots");
-					break;
-				}
-				player.setX(newX);
-				player.setY(newY);
-				levelElements[newY][newX] = " "; // Make it disappear.
+			case FIRE_BOOTS_PICKED_UP:
+				txtGamePrompt.appendText(FIRE_BOOTS_MSG);
 				break;
-			// ITEMS.
-			case "I":
-				Item item = items[newY][newX];
-				switch (item.getType()) {
-					case YELLOWKEY:
-						txtGamePrompt.appendText(YELLOW_KEY_MSG);
-						player.addInventory("Yellow Key");
-						break;
-					case ORANGEKEY:
-						txtGamePrompt.appendText(ORANGE_KEY_MSG);
-						player.addInventory("Orange Key");
-						break;
-					case PURPLEKEY:
-						txtGamePrompt.appendText(PURPLE_KEY_MSG);
-						player.addInventory("Purple Key");
-						break;
-				}
-				player.setX(newX);
-				player.setY(newY);
-				levelElements[newY][newX] = " "; // Make it disappear.
+			case YELLOW_KEY_PICKED_UP:
+				txtGamePrompt.appendText(YELLOW_KEY_MSG);
+				break;
+			case ORANGE_KEY_PICKED_UP:
+				txtGamePrompt.appendText(ORANGE_KEY_MSG);
 				break;
-			// TOKENS.
-			case "T":
+			case PURPLE_KEY_PICKED_UP:
+				txtGamePrompt.appendText(PURPLE_KEY_MSG);
+				break;
+			case TOKEN_PICKED_UP:
 				txtGamePrompt.appendText(TOKEN_MSG);
-				// Increment token count and show it on screen.
-				int newTokenCount = player.getNumTokens() + 1;
-				player.setNumTokens(newTokenCount);
-				lblToken.setText(newTokenCount + "");
-				levelElements[newY][newX] = " ";
-				player.setX(newX);
-				player.setY(newY);
 				break;
-			// DOOR
-			case "D":
-				Door door = doors[newY][newX];
-				switch (door.getType()) {
-					case YELLOW:
-						if (itemEquipped.equals("Yellow Key")) {
-							player.useItem(itemEquipped);
-							levelElements[newY][newX] = " ";
-						} else {
-							txtGamePrompt.appendText(COLOUR_DOOR_LOCKED);
-						}
-						break;
-					case ORANGE:
-						if (itemEquipped.equals("Orange Key")) {
-							player.useItem(itemEquipped);
-							levelElements[newY][newX] = " ";
-						} else {
-							txtGamePrompt.appendText(COLOUR_DOOR_LOCKED);
-						}
-						break;
-					case PURPLE:
-						if (itemEquipped.equals("Purple Key")) {
-							player.useItem(itemEquipped);
-							levelElements[newY][newX] = " ";
-						} else {
-							txtGamePrompt.appendText(COLOUR_DOOR_LOCKED);
-						}
-						break;
-					case TOKEN:
-						int doorCost = door.getNumTokens();
-						int currentTokens = player.getNumTokens();
-						// Checks if the player has enough tokens.
-						if (currentTokens >= doorCost) {
-							int newTokens = currentTokens - doorCost;
-							player.setNumTokens(newTokens);
-							lblToken.setText(newTokens + "");
-							levelElements[newY][newX] = " ";
-						} else {
-							txtGamePrompt.appendText(TOKEN_DOOR_LOCKED + doorCost);
-						}
-						break;
-				}
+			case TOKENS_CHANGED:
+				lblToken.setText(event.getValue() + "");
 				break;
-			// HAZARDS.
-			case "H":
-				Hazard hazard = hazards[newY][newX];
-				switch (hazard.getType()) {
-					case WATER:
-						switch (apparelEquipped) {
-							case "Flippers":
-								player.setX(newX);
-								player.setY(newY);
-								break;
-							default:
-								// DEATH.
-								txtGamePrompt.appendText(WATER_DEATH_MSG);
-								restartLevel();
-								return;
-						}
-						break;
-					case FIRE:
-						switch (apparelEquipped) {
-							case "Fire Boots":
-								player.setX(newX);
-								player.setY(newY);
-								break;
-							default:
-								// DEATH.
-								txtGamePrompt.appendText(FIRE_DEATH_MSG);
-								restartLevel();
-								return;
-						}
-						break;
-				}
+			case COLOUR_DOOR_LOCKED:
+				txtGamePrompt.appendText(COLOUR_DOOR_LOCKED);
 				break;
-			case "P":
+			case TOKEN_DOOR_LOCKED:
+				txtGamePrompt.appendText(TOKEN_DOOR_LOCKED + event.getValue());
+				break;
+			case PORTAL_USED:
 				txtGamePrompt.appendText(PORTAL_MSG);
-				Portal portal = portals[newY][newX];
-				portal.movePlayer(levelElements, player, direction);
-				// If the player teleported into an enemy.
-				if (player.isDead()) {
-					txtGamePrompt.appendText(PORTAL_DEATH_MSG);
-					restartLevel();
-				}
 				break;
-			// If the player moves into an enemy.
-			case "E":
-				// DEATH.
+			case DROWNED:
+				txtGamePrompt.appendText(WATER_DEATH_MSG);
+				break;
+			case BURNED:
+				txtGamePrompt.appendText(FIRE_DEATH_MSG);
+				break;
+			case KILLED_BY_ENEMY:
 				txtGamePrompt.appendText(ENEMY_DEATH_MSG);
-				restartLevel();
-				return;
+				break;
+			case KILLED_BY_PORTAL:
+				txtGamePrompt.appendText(PORTAL_DEATH_MSG);
+				break;
+			case LEVEL_RESTARTED:
+				showRestartedLevel();
+				break;
+			case LEVEL_COMPLETED:
+				txtGamePrompt.appendText("\nLevel " + levelNum + " completed!\n");
+				break;
 			default:
-				player.setX(newX);
-				player.setY(newY);
-		}
-		// Moves the enemies and check if the any of them 
-		// have moved on the player's position.
-		moveEnemies();
-		if (player.isDead()) {
-			txtGamePrompt.appendText(ENEMY_DEATH_MSG);
-			restartLevel();
-			return;
+				// Nothing to show.
+				break;
 		}
-		// Redraw game as the player may have moved.
-		drawLevel();
 	}
 	
 	/**
-	 * Moves every enemy in the level after the player has made a move.
+	 * Draw the game on the canvas. After a move, only the cells that have changed are
+	 * drawn: what's already on the canvas is scrolled by a cell, then the cells that
+	 * scrolled into view, the cells objects were taken from, the cells enemies moved
+	 * between and the player's cells are drawn again. Anything else (a new level, a
+	 * restart or a teleport) draws the whole canvas.
 	 */
-	private void moveEnemies() {
-		for (int i = 0; i < enemies.length; i++) {
-			Enemy enemy = enemies[i];
-			
-			// Move enemies.
-			switch (enemy.getType()) {
-				case "StraightEnemy":
-				case "WallEnemy":
-					enemy.move(levelElements);
-					break;
-				case "DumbEnemy":
-				case "SmartEnemy":
-					enemy.move(levelElements, player.getX(), player.getY());
-					break;
+	private void drawLevel() {
+		// Get the Graphic Context of the canvas. This is what we draw on.
+		gc = canvas.getGraphicsContext2D();
+		
+		int playerX = player.getX();
+		int playerY = player.getY();
+		int moveX = playerX - drawnPlayerX;
+		int moveY = playerY - drawnPlayerY;
+		if (drawnLevel != currentLevel || Math.abs(moveX) + Math.abs(moveY) > 1) {
+			drawWholeLevel();
+		} else {
+			if (moveX != 0 || moveY != 0) {
+				scrollCanvas(moveX, moveY);
 			}
-			// Check if they 'landed' on the player.
-			if ((enemy.getX() == player.getX()) && (enemy.getY() == player.getY())) {
-				player.setDead(true);
+			markChangedCells();
+			// The cell the player left and the cell they're on (drawn under the sprite).
+			markDirty(drawnPlayerX, drawnPlayerY);
+			markDirty(playerX, playerY);
+			drawDirtyCells();
+		}
+		
+		// Remember what's on the canvas, to work out what changes next time.
+		drawnLevel = currentLevel;
+		drawnPlayerX = playerX;
+		drawnPlayerY = playerY;
+		numChangedCellsDrawn = currentLevel.getChangedCells().size();
+		if (drawnEnemyCells == null || drawnEnemyCells.length != enemies.size()) {
+			drawnEnemyCells = new int[enemies.size()];
+		}
+		int levelWidth = currentLevel.getLevelWidth();
+		for (int i = 0; i < enemies.size(); i++) {
+			drawnEnemyCells[i] = (enemies.getY(i) * levelWidth) + enemies.getX(i);
+		}
+		
+		// Draw player sprite (after using an item or moving).
+		drawPlayerSprite();
+	}
+	
+	/**
+	 * Moves what's on the canvas by a cell, as the player has moved a cell, and marks
+	 * the cells that have scrolled into view to be drawn.
+	 * @param moveX The change in the player's x-coordinate (-1, 0 or 1).
+	 * @param moveY The change in the player's y-coordinate (-1, 0 or 1).
+	 */
+	private void scrollCanvas(int moveX, int moveY) {
+		int canvasWidth = (int) canvas.getWidth();
+		int canvasHeight = (int) canvas.getHeight();
+		if (scrollImage == null || scrollImage.getWidth() != canvasWidth
+				|| scrollImage.getHeight() != canvasHeight) {
+			scrollImage = new WritableImage(canvasWidth, canvasHeight);
+		}
+		canvas.snapshot(null, scrollImage);
+		gc.drawImage(scrollImage, -moveX * GRID_CELL_WIDTH, -moveY * GRID_CELL_HEIGHT);
+		
+		// The row or column on the side the player moved towards is new.
+		int newCol = (moveX > 0) ? VIEW_SIZE - 1 : 0;
+		int newRow = (moveY > 0) ? VIEW_SIZE - 1 : 0;
+		for (int i = 0; i < VIEW_SIZE; i++) {
+			if (moveX != 0) {
+				dirtyCells[(i * VIEW_SIZE) + newCol] = true;
+			} else {
+				dirtyCells[(newRow * VIEW_SIZE) + i] = true;
 			}
 		}
 	}
 	
 	/**
-	 * Draw the game on the canvas.
+	 * Marks the cells that have changed since the canvas was last drawn: the cells
+	 * objects have been taken from (picked up or opened) and the cells enemies moved between.
 	 */
-	private void drawLevel() {
-		// Get the Graphic Context of the canvas. This is what we draw on.
-		gc = canvas.getGraphicsContext2D();
+	private void markChangedCells() {
+		int levelWidth = currentLevel.getLevelWidth();
+		ArrayList<Integer> changedCells = currentLevel.getChangedCells();
+		for (int i = numChangedCellsDrawn; i < changedCells.size(); i++) {
+			int cell = changedCells.get(i);
+			markDirty(cell % levelWidth, cell / levelWidth);
+		}
 		
+		for (int i = 0; i < enemies.size(); i++) {
+			int enemyX = enemies.getX(i);
+			int enemyY = enemies.getY(i);
+			int oldCell = drawnEnemyCells[i];
+			if (oldCell != (enemyY * levelWidth) + enemyX) {
+				markDirty(oldCell % levelWidth, oldCell / levelWidth);
+				markDirty(enemyX, enemyY);
+			}
+		}
+	}
+	
+	/**
+	 * Marks a cell of the level to be drawn again, if it's shown on the screen.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 */
+	private void markDirty(int x, int y) {
+		int col = x - player.getX() + GAME_BOUNDS;
+		int row = y - player.getY() + GAME_BOUNDS;
+		if (col >= 0 && col < VIEW_SIZE && row >= 0 && row < VIEW_SIZE) {
+			dirtyCells[(row * VIEW_SIZE) + col] = true;
+		}
+	}
+	
+	/**
+	 * Draws the marked cells of the screen again (black if they're outside the level).
+	 */
+	private void drawDirtyCells() {
+		int playerX = player.getX();
+		int playerY = player.getY();
+		gc.setFill(Color.BLACK);
+		for (int row = 0; row < VIEW_SIZE; row++) {
+			for (int col = 0; col < VIEW_SIZE; col++) {
+				if (dirtyCells[(row * VIEW_SIZE) + col]) {
+					dirtyCells[(row * VIEW_SIZE) + col] = false;
+					int levelX = playerX - GAME_BOUNDS + col;
+					int levelY = playerY - GAME_BOUNDS + row;
+					if (levelElements.isInside(levelX, levelY)) {
+						drawElements(levelElements.get(levelX, levelY), col, row, levelY, levelX);
+					} else {
+						gc.fillRect(col * GRID_CELL_WIDTH, row * GRID_CELL_HEIGHT,
+								GRID_CELL_WIDTH, GRID_CELL_HEIGHT);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Draws every cell shown on the canvas.
+	 */
+	private void drawWholeLevel() {
 		// Clear canvas, then fill the canvas with a colour base (black).
 		gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
 		gc.setFill(Color.BLACK);
@@ -569,11 +584,13 @@ public class GameController {
 			yUpBound = 0;
 		}
 		
-		// Show elements based on the bounds.
+		// Show the static tiles in one go, then the elements that can change.
+		drawStaticTiles(xLeftBound, yUpBound, xRightBound - xLeftBound + 1,
+				yDownBound - yUpBound + 1, tempCol, tempRow);
 		for (int row = yUpBound; row <= yDownBound; row++) {
 			for (int col = xLeftBound; col <= xRightBound; col++) {
-				String element = levelElements[row][col];
-				drawElements(element, tempCol, tempRow, row, col);
+				TileType element = levelElements.get(col, row);
+				drawDynamicElement(element, tempCol, tempRow, row, col);
 				tempCol++;
 			}
 			
@@ -584,32 +601,151 @@ public class GameController {
 			
 			tempRow++;
 		}
-	
-		// Draw player sprite (after using an item or moving).
-		drawPlayerSprite();
+		
+		// The whole canvas is up to date.
+		for (int i = 0; i < dirtyCells.length; i++) {
+			dirtyCells[i] = false;
+		}
 	}
 	
 	/**
 	 * Draws each element in their respective cells on the canvas.
-	 * @param element The acronym of the current element.
+	 * @param element The tile type of the current element.
 	 * @param tempCol The local column the element is in.
 	 * @param tempRow The local row the element is in.
 	 * @param row The actual row the element is in.
 	 * @param col The actual column the element is in.
 	 */
-	private void drawElements(String element, int tempCol, int tempRow, int row, int col) {
+	private void drawElements(TileType element, int tempCol, int tempRow, int row, int col) {
+		drawStaticTiles(col, row, 1, 1, tempCol, tempRow);
+		drawDynamicElement(element, tempCol, tempRow, row, col);
+	}
+	
+	/**
+	 * Draws a part of the level's static tiles (floor, walls, goal, hazards and portals)
+	 * from the baked chunks, a single draw for each chunk the part is in.
+	 * @param col The x-coordinate of the first cell of the level.
+	 * @param row The y-coordinate of the first cell of the level.
+	 * @param numCols The number of cells across.
+	 * @param numRows The number of cells down.
+	 * @param tempCol The column of the canvas to draw the first cell at.
+	 * @param tempRow The row of the canvas to draw the first cell at.
+	 */
+	private void drawStaticTiles(int col, int row, int numCols, int numRows, int tempCol, int tempRow) {
+		// The chunks were baked from another level.
+		if (bakedHazards != hazards) {
+			staticChunks.clear();
+			bakedHazards = hazards;
+		}
+		
+		int chunkWidth = CHUNK_CELLS * GRID_CELL_WIDTH;
+		int chunkHeight = CHUNK_CELLS * GRID_CELL_HEIGHT;
+		for (int chunkRow = row / CHUNK_CELLS; chunkRow <= (row + numRows - 1) / CHUNK_CELLS; chunkRow++) {
+			for (int chunkCol = col / CHUNK_CELLS; chunkCol <= (col + numCols - 1) / CHUNK_CELLS; chunkCol++) {
+				// The cells of the part that are in this chunk.
+				int firstCol = Math.max(col, chunkCol * CHUNK_CELLS);
+				int firstRow = Math.max(row, chunkRow * CHUNK_CELLS);
+				int lastCol = Math.min(col + numCols, (chunkCol + 1) * CHUNK_CELLS) - 1;
+				int lastRow = Math.min(row + numRows, (chunkRow + 1) * CHUNK_CELLS) - 1;
+				int width = (lastCol - firstCol + 1) * GRID_CELL_WIDTH;
+				int height = (lastRow - firstRow + 1) * GRID_CELL_HEIGHT;
+				
+				gc.drawImage(getStaticChunk(chunkCol, chunkRow),
+						(firstCol * GRID_CELL_WIDTH) % chunkWidth, (firstRow * GRID_CELL_HEIGHT) % chunkHeight,
+						width, height, (tempCol + firstCol - col) * GRID_CELL_WIDTH,
+						(tempRow + firstRow - row) * GRID_CELL_HEIGHT, width, height);
+			}
+		}
+	}
+	
+	/**
+	 * Gets a chunk of the level's static tiles, baking it if it hasn't been shown yet.
+	 * @param chunkCol The column of the chunk.
+	 * @param chunkRow The row of the chunk.
+	 * @return The image of the chunk.
+	 */
+	private WritableImage getStaticChunk(int chunkCol, int chunkRow) {
+		int numChunkCols = (levelElements.getWidth() + CHUNK_CELLS - 1) / CHUNK_CELLS;
+		int chunkId = (chunkRow * numChunkCols) + chunkCol;
+		WritableImage chunk = staticChunks.get(chunkId);
+		if (chunk == null) {
+			// Draw the chunk on a canvas that's never shown, then keep an image of it.
+			Canvas chunkCanvas = new Canvas(CHUNK_CELLS * GRID_CELL_WIDTH, CHUNK_CELLS * GRID_CELL_HEIGHT);
+			GraphicsContext chunkGc = chunkCanvas.getGraphicsContext2D();
+			chunkGc.setFill(Color.BLACK);
+			chunkGc.fillRect(0, 0, chunkCanvas.getWidth(), chunkCanvas.getHeight());
+			for (int row = 0; row < CHUNK_CELLS; row++) {
+				for (int col = 0; col < CHUNK_CELLS; col++) {
+					int levelX = (chunkCol * CHUNK_CELLS) + col;
+					int levelY = (chunkRow * CHUNK_CELLS) + row;
+					if (levelElements.isInside(levelX, levelY)) {
+						drawStaticElement(chunkGc, levelElements.get(levelX, levelY), col, row,
+								levelY, levelX);
+					}
+				}
+			}
+			chunk = chunkCanvas.snapshot(null, null);
+			staticChunks.put(chunkId, chunk);
+		}
+		return chunk;
+	}
+	
+	/**
+	 * Draws the floor of a cell, and the element on it if it never changes
+	 * (a wall, the goal, a hazard or a portal).
+	 * @param staticGc Where the cell is drawn.
+	 * @param element The element in the cell.
+	 * @param tempCol The column to draw the cell at.
+	 * @param tempRow The row to draw the cell at.
+	 * @param row The y-coordinate of the cell in the level.
+	 * @param col The x-coordinate of the cell in the level.
+	 */
+	private void drawStaticElement(GraphicsContext staticGc, TileType element, int tempCol,
+			int tempRow, int row, int col) {
 		// Draw the floor first (as a base).
-		gc.drawImage(floor, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
+		staticGc.drawImage(floor, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
 		switch (element) {
-			case "W":
-				gc.drawImage(wall, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
+			case WALL:
+				staticGc.drawImage(wall, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
 				break;
-			case "G":
-				gc.drawImage(goal, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
+			case GOAL:
+				staticGc.drawImage(goal, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
 				break;
+			// HAZARDS.
+			case HAZARD:
+				Hazard hazard = hazards.get(col, row);
+				switch (hazard.getType()) {
+					case WATER:
+						staticGc.drawImage(water, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
+						break;
+					case FIRE:
+						staticGc.drawImage(fire, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
+						break;
+				}
+				break;
+			case PORTAL:
+				staticGc.drawImage(portal, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
+				break;
+			default:
+				// Drawn on top of the static tiles, as it can change.
+				break;
+		}
+	}
+	
+	/**
+	 * Draws the element in a cell if it can change during the level (an apparel, item,
+	 * token, door or enemy), on top of the static tiles.
+	 * @param element The element in the cell.
+	 * @param tempCol The column of the canvas to draw the element at.
+	 * @param tempRow The row of the canvas to draw the element at.
+	 * @param row The y-coordinate of the cell in the level.
+	 * @param col The x-coordinate of the cell in the level.
+	 */
+	private void drawDynamicElement(TileType element, int tempCol, int tempRow, int row, int col) {
+		switch (element) {
 			// APPAREL.
-			case "A":
-				Apparel apparel = apparels[row][col];
+			case APPAREL:
+				Apparel apparel = apparels.get(col, row);
 				switch (apparel.getType()) {
 				case FLIPPERS:
 					gc.drawImage(flippers, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT, 
@@ -622,8 +758,8 @@ public class GameController {
 				}
 				break;
 			// ITEMS.
-			case "I":
-				Item item = items[row][col];
+			case ITEM:
+				Item item = items.get(col, row);
 				switch (item.getType()) {
 					case YELLOWKEY:
 						gc.drawImage(yellowKey, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT, 
@@ -640,13 +776,13 @@ public class GameController {
 				}
 				break;
 			// TOKEN.
-			case "T":
+			case TOKEN:
 				gc.drawImage(token, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
 				break;
 			// DOOR.
-			case "D":
+			case DOOR:
 				// Fetch the correct door and draw it.
-				Door door = doors[row][col];
+				Door door = doors.get(col, row);
 				switch (door.getType()) {
 					case YELLOW:
 						gc.drawImage(yellowDoor, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
@@ -662,40 +798,23 @@ public class GameController {
 						break;
 				}
 				break;
-			// HAZARDS.
-			case "H":
-				Hazard hazard = hazards[row][col];
-				switch (hazard.getType()) {
-					case WATER:
-						gc.drawImage(water, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
-						break;
-					case FIRE:
-						gc.drawImage(fire, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
-						break;
-				}
-				break;
-			case "P":
-				gc.drawImage(portal, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
-				break;	
-			case "E":
+			case ENEMY:
 				// DRAW ENEMY.
-				for (Enemy elem : enemies) {
-					if (elem.getX() == col && elem.getY() == row) {
-						switch (elem.getType()) {
-							case "StraightEnemy":
-								gc.drawImage(straightEnemy, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
-								break;
-							case "WallEnemy":
-								gc.drawImage(wallEnemy, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
-								break;
-							case "DumbEnemy":
-								gc.drawImage(dumbEnemy, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
-								break;
-							case "SmartEnemy":
-								gc.drawImage(smartEnemy, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
-								break;
-						}
-						break;
+				int enemy = currentLevel.getEnemyAt(col, row);
+				if (enemy != EnemyIndex.NO_ENEMY) {
+					switch (enemies.getType(enemy)) {
+						case STRAIGHT:
+							gc.drawImage(straightEnemy, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
+							break;
+						case WALL:
+							gc.drawImage(wallEnemy, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
+							break;
+						case DUMB:
+							gc.drawImage(dumbEnemy, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
+							break;
+						case SMART:
+							gc.drawImage(smartEnemy, tempCol * GRID_CELL_WIDTH, tempRow * GRID_CELL_HEIGHT);
+							break;
 					}
 				}
 				break;
@@ -801,8 +920,12 @@ public class GameController {
 				FileHandling.editUser(strOldUser, strNewUser);
 			} 
 			
-			currentLevel = FileHandling.getLevel(levelNum);
+			gameEngine.loadLevel(FileHandling.getLevel(levelNum));
 			loadLevelElements();
+			// A game loaded from a save is only recorded from the start of a level.
+			if (recording == null) {
+				startRecording();
+			}
 			
 			lblToken.setText("0");
 			txtGamePrompt.appendText("Welcome to Level " + levelNum + ".");
@@ -818,21 +941,33 @@ public class GameController {
 	 * Resets the elements for the current level if the player has died.
 	 */
 	public void restartLevel() {
-		// Gets a new copy of the level.
-		currentLevel = FileHandling.getLevel(levelNum);
+		// Gets a new copy of the level from its template, dropping the changes made.
+		gameEngine.restartLevel();
+		if (recording == null) {
+			startRecording();
+		} else {
+			recordInput(RecordedInput.RESTART);
+		}
+		showRestartedLevel();
+		drawLevel(); // Also resets the player sprite.
+	}
+	
+	/**
+	 * Shows the level again after it has been restarted.
+	 */
+	private void showRestartedLevel() {
 		loadLevelElements();
-		
 		lblToken.setText("0");
 		txtGamePrompt.appendText("\nWelcome to Level " + levelNum + ".");
-		drawLevel(); // Also resets the player sprite.
 	}
 	
 	/**
 	 * Loads the game level when the player accesses it via New Game or Level Select.
 	 */
 	public void startGame() {
-		currentLevel = FileHandling.getLevel(levelNum);
+		gameEngine = new GameEngine(FileHandling.getLevel(levelNum));
 		loadLevelElements();
+		startRecording();
 		
 		lblToken.setText("0");
 		txtGamePrompt.appendText("Welcome to Level " + levelNum + ".");
@@ -851,9 +986,11 @@ public class GameController {
 	 * @param currentGameTime The total game time when the save state was made.
 	 */
 	public void loadGameState(Level level, long currentLevelTime, long currentGameTime) {
-		currentLevel = level;
+		gameEngine = new GameEngine(level);
 		levelNum = level.getLevelNumber();
 		loadLevelElements();
+		// The save isn't the start of a level, so it can't be replayed from the level file.
+		recording = null;
 		
 		lblToken.setText(player.getNumTokens() + "");
 		txtGamePrompt.appendText("Welcome back to Level " + levelNum + ".");
@@ -866,9 +1003,10 @@ public class GameController {
 	}
 	
 	/**
-	 * Sets the elements for each level when being loaded.
+	 * Sets the elements for each level when being loaded (or restarted).
 	 */
 	private void loadLevelElements() {
+		currentLevel = gameEngine.getLevel();
 		levelElements = currentLevel.getLevelElements();
 		player = currentLevel.getPlayer();
 		
@@ -886,6 +1024,7 @@ public class GameController {
 	private void showGameCompletion() {
 		txtGamePrompt.appendText(GAME_COMPLETE_MSG);
 		gc.drawImage(imgGameComplete, 0, 0, canvas.getWidth(), canvas.getHeight());
+		drawnLevel = null;
 		
 		btnPause.setDisable(true);
 		btnInventory.setDisable(true);
@@ -907,6 +1046,7 @@ public class GameController {
 			InventoryController inventoryWindow = fxmlLoader.<InventoryController> getController();
 			
 			// Pass down the player.
+			String[] oldEquippedItems = player.getEquippedItems().clone();
 			inventoryWindow.setPlayerDetails(player, playerSprite);
 			inventoryWindow.showSprites();
 			inventoryWindow.showInventory();
@@ -918,6 +1058,14 @@ public class GameController {
 			primaryStage.initModality(Modality.APPLICATION_MODAL);
 			primaryStage.showAndWait();
 			
+			// Record the items the player has changed to.
+			String[] equippedItems = player.getEquippedItems();
+			for (int i = 0; i < equippedItems.length; i++) {
+				if (!equippedItems[i].equals(oldEquippedItems[i])) {
+					recordInput(RecordedInput.fromItem(equippedItems[i]));
+				}
+			}
+			
 			// Update the level with the changed sprite.
 			playerSprite = inventoryWindow.getPlayerSprite();
 			drawLevel();
@@ -1069,10 +1217,39 @@ public class GameController {
 		}
 	}
 	
+	/**
+	 * Starts recording the player's inputs from the start of the level being played.
+	 */
+	private void startRecording() {
+		recording = new InputRecording(levelNum, gameEngine.getRandomSeed());
+	}
+	
+	/**
+	 * Adds an input to the recording of the game (if it's being recorded).
+	 * @param input The input made by the player.
+	 */
+	private void recordInput(RecordedInput input) {
+		if (recording != null) {
+			recording.add(input);
+		}
+	}
+	
+	/**
+	 * Saves the recording of the game to a file, with how the game ended.
+	 */
+	private void saveRecording() {
+		if (recording != null && recording.getNumInputs() > 0) {
+			recording.setFinalStateHash(gameEngine.getStateHash());
+			FileHandling.saveRecording(recording, currentUser.getUsername());
+		}
+		recording = null;
+	}
+	
 	/**
 	 * Closes the game window.
 	 */
 	public void closeGameWindow() {
+		saveRecording();
 		// Closes the window.
 		Stage stage = (Stage) btnPause.getScene().getWindow();
 		stage.close();
@@ -1,7 +1,5 @@
 package controllers;
 
-import java.io.File;
-
 import data.*;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -17,11 +15,6 @@ import javafx.stage.Stage;
  * @author William King
  */
 public class InventoryController {
-	/** File location of the player sprites. */
-	private final static String PLAYER_FILE_PATH = "DataFiles/Graphics/Player Sprites/";
-	/** File location of the items. */
-	private final static String ITEM_FILE_PATH = "DataFiles/Graphics/Items/";
-	
 	/** Player in the game (to control its status). */
 	private Player player;
 	/** Global storage of the player's inventory. */
@@ -74,32 +67,32 @@ public class InventoryController {
 	@FXML private Button btnBack;
 	
 	/**
-	 * Loads the player sprites that are equipped with items (and apparel).
+	 * Gets the player sprites that are equipped with items (and apparel).
 	 */
 	public void initialize() {
-		// Load the sprites holding the items.
-		playerDefault = new Image(new File (PLAYER_FILE_PATH + "Default.png").toURI().toString());
-		playerOrangeKey = new Image(new File (PLAYER_FILE_PATH + "DefaultOrangeKey.png").toURI().toString());
-		playerYellowKey = new Image(new File (PLAYER_FILE_PATH + "DefaultYellowKey.png").toURI().toString());
-		playerPurpleKey = new Image(new File (PLAYER_FILE_PATH + "DefaultPurpleKey.png").toURI().toString());
+		// Get the sprites holding the items.
+		playerDefault = SpriteRegistry.get(Sprite.PLAYER_DEFAULT);
+		playerOrangeKey = SpriteRegistry.get(Sprite.PLAYER_ORANGE_KEY);
+		playerYellowKey = SpriteRegistry.get(Sprite.PLAYER_YELLOW_KEY);
+		playerPurpleKey = SpriteRegistry.get(Sprite.PLAYER_PURPLE_KEY);
 		
 		
-		playerFlippers = new Image(new File (PLAYER_FILE_PATH + "Flippers.png").toURI().toString());
-		flippersOrangeKey = new Image(new File (PLAYER_FILE_PATH + "FlippersOrangeKey.png").toURI().toString());
-		flippersYellowKey = new Image(new File (PLAYER_FILE_PATH + "FlippersYellowKey.png").toURI().toString());
-		flippersPurpleKey = new Image(new File (PLAYER_FILE_PATH + "FlippersPurpleKey.png").toURI().toString());
+		playerFlippers = SpriteRegistry.get(Sprite.PLAYER_FLIPPERS);
+		flippersOrangeKey = SpriteRegistry.get(Sprite.FLIPPERS_ORANGE_KEY);
+		flippersYellowKey = SpriteRegistry.get(Sprite.FLIPPERS_YELLOW_KEY);
+		flippersPurpleKey = SpriteRegistry.get(Sprite.FLIPPERS_PURPLE_KEY);
 		
-		playerFireBoots = new Image(new File (PLAYER_FILE_PATH + "FireBoots.png").toURI().toString());
-		fireBootsOrangeKey = new Image(new File (PLAYER_FILE_PATH + "FireBootsOrangeKey.png").toURI().toString());
-		fireBootsYellowKey = new Image(new File (PLAYER_FILE_PATH + "FireBootsYellowKey.png").toURI().toString());
-		fireBootsPurpleKey = new Image(new File (PLAYER_FILE_PATH + "FireBootsPurpleKey.png").toURI().toString());
+		playerFireBoots = SpriteRegistry.get(Sprite.PLAYER_FIRE_BOOTS);
+		fireBootsOrangeKey = SpriteRegistry.get(Sprite.FIRE_BOOTS_ORANGE_KEY);
+		fireBootsYellowKey = SpriteRegistry.get(Sprite.FIRE_BOOTS_YELLOW_KEY);
+		fireBootsPurpleKey = SpriteRegistry.get(Sprite.FIRE_BOOTS_PURPLE_KEY);
 		
-		// Load the individual items.
-		flippers = new Image(new File (ITEM_FILE_PATH + "Flippers.png").toURI().toString());
-		fireBoots = new Image(new File (ITEM_FILE_PATH + "FireBoots.png").toURI().toString());
-		orangeKey = new Image(new File (ITEM_FILE_PATH + "OrangeKey.png").toURI().toString());
-		yellowKey = new Image(new File (ITEM_FILE_PATH + "YellowKey.png").toURI().toString());
-		purpleKey = new Image(new File (ITEM_FILE_PATH + "purpleKey.png").toURI().toString());
+		// Get the individual items.
+		flippers = SpriteRegistry.get(Sprite.FLIPPERS);
+		fireBoots = SpriteRegistry.get(Sprite.FIRE_BOOTS);
+		orangeKey = SpriteRegistry.get(Sprite.ORANGE_KEY);
+		yellowKey = SpriteRegistry.get(Sprite.YELLOW_KEY);
+		purpleKey = SpriteRegistry.get(Sprite.PURPLE_KEY);
 	}
 	
 	/**
@@ -0,0 +1,126 @@
+package controllers;
+
+/**
+ * An enum holding every sprite drawn by the game, along with the file it's loaded from.
+ * The sprites themselves are held by the SpriteRegistry.
+ * @author William King
+ */
+public enum Sprite {
+	/** The player with nothing equipped. */
+	PLAYER_DEFAULT("Player Sprites/Default.png"),
+	
+	/** The player holding the orange key. */
+	PLAYER_ORANGE_KEY("Player Sprites/DefaultOrangeKey.png"),
+	
+	/** The player holding the yellow key. */
+	PLAYER_YELLOW_KEY("Player Sprites/DefaultYellowKey.png"),
+	
+	/** The player holding the purple key. */
+	PLAYER_PURPLE_KEY("Player Sprites/DefaultPurpleKey.png"),
+	
+	/** The player wearing flippers. */
+	PLAYER_FLIPPERS("Player Sprites/Flippers.png"),
+	
+	/** The player wearing flippers and holding the orange key. */
+	FLIPPERS_ORANGE_KEY("Player Sprites/FlippersOrangeKey.png"),
+	
+	/** The player wearing flippers and holding the yellow key. */
+	FLIPPERS_YELLOW_KEY("Player Sprites/FlippersYellowKey.png"),
+	
+	/** The player wearing flippers and holding the purple key. */
+	FLIPPERS_PURPLE_KEY("Player Sprites/FlippersPurpleKey.png"),
+	
+	/** The player wearing fire boots. */
+	PLAYER_FIRE_BOOTS("Player Sprites/FireBoots.png"),
+	
+	/** The player wearing fire boots and holding the orange key. */
+	FIRE_BOOTS_ORANGE_KEY("Player Sprites/FireBootsOrangeKey.png"),
+	
+	/** The player wearing fire boots and holding the yellow key. */
+	FIRE_BOOTS_YELLOW_KEY("Player Sprites/FireBootsYellowKey.png"),
+	
+	/** The player wearing fire boots and holding the purple key. */
+	FIRE_BOOTS_PURPLE_KEY("Player Sprites/FireBootsPurpleKey.png"),
+	
+	/** The fire boots item. */
+	FIRE_BOOTS("Items/FireBoots.png"),
+	
+	/** The flippers item. */
+	FLIPPERS("Items/Flippers.png"),
+	
+	/** The orange key item. */
+	ORANGE_KEY("Items/OrangeKey.png"),
+	
+	/** The yellow key item. */
+	YELLOW_KEY("Items/YellowKey.png"),
+	
+	/** The purple key item. */
+	PURPLE_KEY("Items/PurpleKey.png"),
+	
+	/** The token item. */
+	TOKEN("Items/Token.png"),
+	
+	/** The door opened by the yellow key. */
+	YELLOW_DOOR("Doors/YellowDoor.png"),
+	
+	/** The door opened by the orange key. */
+	ORANGE_DOOR("Doors/OrangeDoor.png"),
+	
+	/** The door opened by the purple key. */
+	PURPLE_DOOR("Doors/PurpleDoor.png"),
+	
+	/** The door opened by tokens. */
+	TOKEN_DOOR("Doors/TokenDoor.png"),
+	
+	/** The floor. */
+	FLOOR("Textures/Floor.png"),
+	
+	/** A wall. */
+	WALL("Textures/StoneWall.png"),
+	
+	/** Water. */
+	WATER("Textures/Water.png"),
+	
+	/** Fire. */
+	FIRE("Textures/Fire.png"),
+	
+	/** The goal (a treasure chest). */
+	GOAL("Textures/Treasure Chest.png"),
+	
+	/** A portal. */
+	PORTAL("Textures/Portal.png"),
+	
+	/** The straight line enemy. */
+	STRAIGHT_ENEMY("Enemies/Straight.png"),
+	
+	/** The wall following enemy. */
+	WALL_ENEMY("Enemies/Wall.png"),
+	
+	/** The dumb targeting enemy. */
+	DUMB_ENEMY("Enemies/Dumb.png"),
+	
+	/** The smart targeting enemy. */
+	SMART_ENEMY("Enemies/Smart.png"),
+	
+	/** Shown when the last level is completed. */
+	GAME_COMPLETE("Game Completion.png");
+	
+	/** The file the sprite is loaded from, inside the graphics folder. */
+	private final String fileName;
+	
+	/**
+	 * Constructor for the Sprite enum.
+	 * @param fileName The file the sprite is loaded from, inside the graphics folder.
+	 */
+	private Sprite(String fileName) {
+		this.fileName = fileName;
+	}
+	
+	/**
+	 * Gets the file the sprite is loaded from.
+	 * @return The file name, inside the graphics folder.
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+}
@@ -0,0 +1,53 @@
+package controllers;
+
+import java.io.File;
+import java.util.EnumMap;
+
+import javafx.scene.image.Image;
+
+/**
+ * Holds every sprite in the game, loaded from disk once for the whole program and shared
+ * by every window. This way, opening a game (or the inventory) doesn't read any images,
+ * and only one copy of each sprite is kept in memory.
+ * @author William King
+ */
+public class SpriteRegistry {
+	/** File location of the graphics folder. */
+	private final static String GRAPHICS_FILE_PATH = "DataFiles/Graphics/";
+	
+	/** Each loaded sprite, or null if the sprites haven't been loaded yet. */
+	private static volatile EnumMap<Sprite, Image> sprites = null;
+	
+	/**
+	 * Loads every sprite, if they haven't been loaded already.
+	 * Called when the program starts, so no window has to wait for the images.
+	 */
+	public static synchronized void loadAll() {
+		if (sprites != null) {
+			return;
+		}
+		EnumMap<Sprite, Image> loaded = new EnumMap<Sprite, Image>(Sprite.class);
+		for (Sprite sprite : Sprite.values()) {
+			File file = new File(GRAPHICS_FILE_PATH + sprite.getFileName());
+			Image image = new Image(file.toURI().toString());
+			if (image.isError()) {
+				System.out.println("Cannot open " + file.getPath());
+				System.exit(-1);
+			}
+			loaded.put(sprite, image);
+		}
+		sprites = loaded;
+	}
+	
+	/**
+	 * Gets a sprite, loading every sprite first if they haven't been loaded.
+	 * @param sprite The sprite wanted.
+	 * @return The image of the sprite.
+	 */
+	public static Image get(Sprite sprite) {
+		if (sprites == null) {
+			loadAll();
+		}
+		return sprites.get(sprite);
+	}
+}
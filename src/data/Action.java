@@ -0,0 +1,64 @@
+package data;
+
+/**
+ * An enum holding the moves the player can make each turn.
+ * @author William King
+ */
+public enum Action {
+	/** Move up a row. */
+	UP(0, -1, Direction.UP),
+	
+	/** Move down a row. */
+	DOWN(0, 1, Direction.DOWN),
+	
+	/** Move left a column. */
+	LEFT(-1, 0, Direction.LEFT),
+	
+	/** Move right a column. */
+	RIGHT(1, 0, Direction.RIGHT);
+	
+	/** The change in the x-coordinate of the player. */
+	private final int xChange;
+	
+	/** The change in the y-coordinate of the player. */
+	private final int yChange;
+	
+	/** The direction of the move (from Direction). */
+	private final int direction;
+	
+	/**
+	 * Constructor for the Action enum.
+	 * @param xChange The change in the x-coordinate of the player.
+	 * @param yChange The change in the y-coordinate of the player.
+	 * @param direction The direction of the move.
+	 */
+	private Action(int xChange, int yChange, int direction) {
+		this.xChange = xChange;
+		this.yChange = yChange;
+		this.direction = direction;
+	}
+	
+	/**
+	 * Gets the change in the x-coordinate of the player.
+	 * @return The change as an integer (-1, 0 or 1).
+	 */
+	public int getXChange() {
+		return xChange;
+	}
+	
+	/**
+	 * Gets the change in the y-coordinate of the player.
+	 * @return The change as an integer (-1, 0 or 1).
+	 */
+	public int getYChange() {
+		return yChange;
+	}
+	
+	/**
+	 * Gets the direction of the move.
+	 * @return The direction, as in Direction.
+	 */
+	public int getDirection() {
+		return direction;
+	}
+}
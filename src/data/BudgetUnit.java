@@ -0,0 +1,13 @@
+package data;
+
+/**
+ * An enum that holds the units a search budget can be measured in.
+ * @author William King
+ */
+public enum BudgetUnit {
+	/** The number of cells the searches may expand. */
+	EXPANSIONS,
+	
+	/** The time the searches may take, in nanoseconds. */
+	NANOSECONDS
+}
\ No newline at end of file
@@ -0,0 +1,162 @@
+package data;
+
+/**
+ * Holds the objects (doors, items etc.) placed on a level, accessed by their location.
+ * Most cells of a level are empty, so rather than an array the size of the level, the
+ * objects are kept in a hash table keyed by the cell id (y * width + x), using open
+ * addressing. The memory used grows with the number of objects, not the size of the level.
+ * The objects are also kept in the order they were added, so they can be looped through
+ * without going over the empty cells.
+ * @param <T> The type of object held.
+ * @author William King
+ */
+public class CellMap<T> {
+	/** Marks an unused slot in the hash table. */
+	private final static int EMPTY = -1;
+	/** The number of slots in the hash table to start with. Must be a power of 2. */
+	private final static int INITIAL_CAPACITY = 16;
+	/** Used to spread the cell ids across the hash table (Fibonacci hashing). */
+	private final static int HASH_MULTIPLIER = 0x9E3779B9;
+	
+	/** The width of the level in cells. */
+	private int levelWidth;
+	
+	/** The cell id held in each slot of the hash table, or EMPTY. */
+	private int[] tableCells;
+	
+	/** The index (in the order added) of the object held in each slot of the hash table. */
+	private int[] tableIndexes;
+	
+	/** The cell id of each object, in the order added. */
+	private int[] cells;
+	
+	/** Each object, in the order added. */
+	private Object[] values;
+	
+	/** The number of objects held. */
+	private int size;
+	
+	/**
+	 * Constructor for the CellMap class.
+	 * @param levelWidth The width of the level in cells.
+	 */
+	public CellMap(int levelWidth) {
+		this.levelWidth = levelWidth;
+		tableCells = new int[INITIAL_CAPACITY];
+		tableIndexes = new int[INITIAL_CAPACITY];
+		for (int i = 0; i < INITIAL_CAPACITY; i++) {
+			tableCells[i] = EMPTY;
+		}
+		cells = new int[INITIAL_CAPACITY / 2];
+		values = new Object[INITIAL_CAPACITY / 2];
+		size = 0;
+	}
+	
+	/**
+	 * Places an object on a cell, replacing any object already there.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 * @param value The object to be placed.
+	 */
+	public void put(int x, int y, T value) {
+		int cell = (y * levelWidth) + x;
+		int slot = findSlot(cell);
+		if (tableCells[slot] == cell) {
+			values[tableIndexes[slot]] = value;
+			return;
+		}
+		
+		// Keep the hash table at most half full, so the searches stay short.
+		if ((size + 1) * 2 > tableCells.length) {
+			grow();
+			slot = findSlot(cell);
+		}
+		tableCells[slot] = cell;
+		tableIndexes[slot] = size;
+		cells[size] = cell;
+		values[size] = value;
+		size++;
+	}
+	
+	/**
+	 * Gets the object on a cell.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 * @return The object on the cell, or null if there isn't one.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int x, int y) {
+		int slot = findSlot((y * levelWidth) + x);
+		if (tableCells[slot] == EMPTY) {
+			return null;
+		}
+		return (T) values[tableIndexes[slot]];
+	}
+	
+	/**
+	 * Gets the number of objects held.
+	 * @return The number of objects.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Gets the cell id of an object, by the order it was added.
+	 * @param index The index of the object (from 0 to size - 1).
+	 * @return The cell id of the object.
+	 */
+	public int getCell(int index) {
+		return cells[index];
+	}
+	
+	/**
+	 * Gets an object, by the order it was added.
+	 * @param index The index of the object (from 0 to size - 1).
+	 * @return The object.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getValue(int index) {
+		return (T) values[index];
+	}
+	
+	/**
+	 * Finds the slot in the hash table holding a cell, or the empty slot where it would go.
+	 * @param cell The cell id.
+	 * @return The index of the slot.
+	 */
+	private int findSlot(int cell) {
+		int mask = tableCells.length - 1;
+		int slot = (cell * HASH_MULTIPLIER) >>> (32 - Integer.numberOfTrailingZeros(tableCells.length));
+		while (tableCells[slot] != EMPTY && tableCells[slot] != cell) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+	
+	/**
+	 * Doubles the size of the hash table and the object arrays.
+	 */
+	private void grow() {
+		int newCapacity = tableCells.length * 2;
+		tableCells = new int[newCapacity];
+		tableIndexes = new int[newCapacity];
+		for (int i = 0; i < newCapacity; i++) {
+			tableCells[i] = EMPTY;
+		}
+		
+		int[] newCells = new int[newCapacity / 2];
+		Object[] newValues = new Object[newCapacity / 2];
+		System.arraycopy(cells, 0, newCells, 0, size);
+		System.arraycopy(values, 0, newValues, 0, size);
+		cells = newCells;
+		values = newValues;
+		
+		// Put every cell back in the larger hash table.
+		for (int i = 0; i < size; i++) {
+			int slot = findSlot(cells[i]);
+			tableCells[slot] = cells[i];
+			tableIndexes[slot] = i;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package data;
+
+/**
+ * Holds the directions an enemy can move in, as small numbers rather than strings.
+ * The directions go clockwise, so the opposite of a direction is 2 along from it.
+ * @author William King
+ */
+public class Direction {
+	/** Used by enemies that don't keep a direction (dumb and smart enemies). */
+	public final static int NONE = -1;
+	/** Moving up a row. */
+	public final static int UP = 0;
+	/** Moving right a column. */
+	public final static int RIGHT = 1;
+	/** Moving down a row. */
+	public final static int DOWN = 2;
+	/** Moving left a column. */
+	public final static int LEFT = 3;
+	
+	/** The change in the x-coordinate for each direction. */
+	private final static int[] X_CHANGES = {0, 1, 0, -1};
+	/** The change in the y-coordinate for each direction. */
+	private final static int[] Y_CHANGES = {-1, 0, 1, 0};
+	/** The name of each direction, as used in the level files. */
+	private final static String[] NAMES = {"UP", "RIGHT", "DOWN", "LEFT"};
+	
+	/**
+	 * Gets the change in the x-coordinate when moving in a direction.
+	 * @param direction The direction.
+	 * @return The change as an integer (-1, 0 or 1).
+	 */
+	public static int getXChange(int direction) {
+		return X_CHANGES[direction];
+	}
+	
+	/**
+	 * Gets the change in the y-coordinate when moving in a direction.
+	 * @param direction The direction.
+	 * @return The change as an integer (-1, 0 or 1).
+	 */
+	public static int getYChange(int direction) {
+		return Y_CHANGES[direction];
+	}
+	
+	/**
+	 * Gets the opposite of a direction.
+	 * @param direction The direction.
+	 * @return The opposite direction.
+	 */
+	public static int getOpposite(int direction) {
+		return (direction + 2) & 3;
+	}
+	
+	/**
+	 * Gets the direction with a name from the level files.
+	 * @param name The name of the direction (e.g. "UP").
+	 * @return The direction, or NONE if the name isn't a direction.
+	 */
+	public static int fromString(String name) {
+		for (int direction = 0; direction < NAMES.length; direction++) {
+			if (NAMES[direction].equals(name)) {
+				return direction;
+			}
+		}
+		return NONE;
+	}
+	
+	/**
+	 * Gets the name of a direction, as used in the level files.
+	 * @param direction The direction.
+	 * @return The name of the direction, or a space if it's NONE.
+	 */
+	public static String toString(int direction) {
+		if (direction == NONE) {
+			return " ";
+		}
+		return NAMES[direction];
+	}
+}
@@ -0,0 +1,180 @@
+package data;
+
+/**
+ * Holds the distance (in moves) from every cell in the level to the player.
+ * It's worked out by a single breadth first search outwards from the player,
+ * so every smart enemy can share it in the same turn, rather than each of
+ * them searching for the player separately.
+ * The search only goes as far as it needs to and is limited by the level's
+ * search budget. A search that runs out of budget carries on next turn, so
+ * until it finishes, the distances lead to where the player was when it began.
+ * Otherwise, each turn starts a new search from where the player is.
+ * @author William King
+ */
+public class DistanceField {
+	/** Marks a cell that the player can't be reached from. */
+	public final static int UNREACHABLE = -1;
+	
+	/** The width of the level in cells. */
+	private int levelWidth;
+	
+	/** The height of the level in cells. */
+	private int levelHeight;
+	
+	/** The distance from each cell to the player. Accessed by the cell id (y * width + x). 
+	 * Only valid for cells that have been visited by the current search.
+	 * Only made when the first search starts. */
+	private int[] distances;
+	
+	/** The cells waiting to be expanded by the search. */
+	private int[] queue;
+	
+	/** The position of the next cell to be expanded in the queue. */
+	private int queueHead;
+	
+	/** The position after the last cell in the queue. */
+	private int queueTail;
+	
+	/** The cell the player was on when a distance was last asked for. */
+	private int lastPlayerCell;
+	
+	/** The cells that have been reached by the current search. */
+	private VisitedGrid visitedGrid;
+	
+	/** True if the player has moved since the current search started. */
+	private boolean isStale;
+	
+	/** True if the current search was stopped by the budget running out (rather than
+	 * stopping once the cell asked for was reached). */
+	private boolean isCutShort;
+	
+	/** Limits how many cells can be expanded each turn. */
+	private SearchBudget budget;
+	
+	/**
+	 * Constructor for the DistanceField class.
+	 * @param levelWidth The width of the level in cells.
+	 * @param levelHeight The height of the level in cells.
+	 */
+	public DistanceField(int levelWidth, int levelHeight) {
+		this.levelWidth = levelWidth;
+		this.levelHeight = levelHeight;
+		visitedGrid = new VisitedGrid(levelWidth * levelHeight);
+		queueHead = 0;
+		queueTail = 0;
+		lastPlayerCell = Pathfinder.NO_PATH;
+		isStale = true;
+		isCutShort = false;
+		budget = new SearchBudget();
+	}
+	
+	/**
+	 * Marks the distances as out of date. Called whenever the player moves,
+	 * so a new search starts (at most) once per turn, unless the last search
+	 * was cut short by the budget.
+	 */
+	public void invalidate() {
+		isStale = true;
+	}
+	
+	/**
+	 * Gets the distance from a cell to the player. The search is only carried
+	 * on until the cell is reached (or the budget runs out).
+	 * @param mover The enemy asking (decides which cells block the search).
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param playerX The x-coordinate location of the player.
+	 * @param playerY The y-coordinate location of the player.
+	 * @param cellX The x-coordinate of the cell.
+	 * @param cellY The y-coordinate of the cell.
+	 * @return The distance in moves, or UNREACHABLE (also if it wasn't reached in time).
+	 */
+	public int getDistance(Enemy mover, TileGrid levelElements, int playerX, int playerY,
+			int cellX, int cellY) {
+		int playerCell = (playerY * levelWidth) + playerX;
+		if (isStale || playerCell != lastPlayerCell) {
+			// A search cut short by the budget carries on (until it finishes),
+			// otherwise start again from where the player is now.
+			if (isCutShort && queueHead < queueTail) {
+				isStale = false;
+				isCutShort = false;
+			} else {
+				startSearch(playerCell);
+			}
+			lastPlayerCell = playerCell;
+		}
+		
+		int cell = (cellY * levelWidth) + cellX;
+		while (!visitedGrid.isVisited(cell) && queueHead < queueTail) {
+			if (!budget.spend()) {
+				isCutShort = true;
+				break;
+			}
+			expandNext(mover, levelElements);
+		}
+		
+		if (!visitedGrid.isVisited(cell)) {
+			return UNREACHABLE;
+		}
+		return distances[cell];
+	}
+	
+	/**
+	 * Starts a new search outwards from the player.
+	 * @param playerCell The cell id the player is on.
+	 */
+	private void startSearch(int playerCell) {
+		// The cells are only needed once a smart enemy asks for a distance.
+		if (distances == null) {
+			int numCells = levelWidth * levelHeight;
+			distances = new int[numCells];
+			queue = new int[numCells];
+		}
+		visitedGrid.startSearch();
+		visitedGrid.markVisited(playerCell);
+		distances[playerCell] = 0;
+		queue[0] = playerCell;
+		queueHead = 0;
+		queueTail = 1;
+		isStale = false;
+		isCutShort = false;
+	}
+	
+	/**
+	 * Expands the next cell of the search and records the distance to its neighbours.
+	 * Enemies don't block the search, as they move during the turn.
+	 * @param mover The enemy asking (decides which cells block the search).
+	 * @param levelElements An array holding all the elements in the level.
+	 */
+	private void expandNext(Enemy mover, TileGrid levelElements) {
+		int currentCell = queue[queueHead];
+		queueHead++;
+		int newDistance = distances[currentCell] + 1;
+		
+		// Offsets of the right, left, front and back cells.
+		int[] neighbourOffsets = {1, -1, -levelWidth, levelWidth};
+		
+		for (int offset : neighbourOffsets) {
+			int neighbourCell = currentCell + offset;
+			if (visitedGrid.isVisited(neighbourCell)) {
+				continue;
+			}
+			// Enemies don't block the search, as they move every turn.
+			if (mover.isBlocked(levelElements, neighbourCell)
+					&& !levelElements.isSet(OccupancyLayer.ENEMIES, neighbourCell)) {
+				continue;
+			}
+			visitedGrid.markVisited(neighbourCell);
+			distances[neighbourCell] = newDistance;
+			queue[queueTail] = neighbourCell;
+			queueTail++;
+		}
+	}
+	
+	/**
+	 * Sets the budget that limits how many cells can be expanded each turn.
+	 * @param budget The search budget to be set.
+	 */
+	public void setSearchBudget(SearchBudget budget) {
+		this.budget = budget;
+	}
+}
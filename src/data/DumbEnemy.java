@@ -1,29 +1,28 @@
 package data;
 
 /**
- * Models a Dumb Targeting Enemy in the game. Moves directly towards the 
+ * Moves the Dumb Targeting Enemies in the game. Moves directly towards the
  * player. They don't consider obstacles in the way and can easily get stuck.
  * @author William King
  */
-public class DumbEnemy extends Enemy {
-	
-	/**
-	 * Constructor for the Dumb Targeting Enemy.
-	 * @param The x-coordinate location of the enemy.
-	 * @param enemyY The y-coordinate location of the enemy.
-	 * @param moveDirection The starting direction the enemy.
-	 */
-	public DumbEnemy(int enemyX, int enemyY, String moveDirection) {
-		super(enemyX, enemyY, moveDirection);
-	}
+public class DumbEnemy {
 	
 	/**
 	 * Determines a dumb enemy's move based on its current location and the player's location.
+	 * Only looks at the level, so the moves of many enemies can be worked out at once.
+	 * Also used by the smart enemy when it can't reach the player.
+	 * @param enemies The enemies in the level.
+	 * @param index The index of the enemy to be moved.
 	 * @param levelElements An array holding all the elements in the level.
 	 * @param playerX The x-coordinate location of the player.
 	 * @param playerY The y-coordinate location of the player.
+	 * @param moves Where the enemy's new location is set (can be the same as enemies).
 	 */
-	public void move(String[][] levelElements, int playerX, int playerY) {
+	public static void move(EnemyTable enemies, int index, TileGrid levelElements,
+			int playerX, int playerY, EnemyTable moves) {
+		int enemyX = enemies.getX(index);
+		int enemyY = enemies.getY(index);
+		
 		// Calculate difference between the x and y.
 		// Move the smallest one (move left/right if x is smaller etc.).
 		// If it's blocked, move by the other axis.
@@ -38,9 +37,6 @@ public class DumbEnemy extends Enemy {
 		boolean xChanged = false;
 		boolean yChanged = false;
 		
-		// Clear the enemy from it's previous position.
-		levelElements[enemyY][enemyX] = " ";
-		
 		// If an index is the same (as the player), then change the other.
 		// NOTE: If the axis difference is 0, then it doesn't need to be checked (for an object).
 		if (diffY == 0) {
@@ -75,70 +71,46 @@ public class DumbEnemy extends Enemy {
 		}
 		
 		// Check if an object is blocking the enemy.
-		String object = levelElements[newY][newX];
-		boolean isObject = false;
-		switch (object) {
-			case "W":
-			case "G":
-			case "A":
-			case "I":
-			case "D":
-			case "T":
-			case "P":
-			case "H":
-			case "E":
-				// Check the other axis if the intended one is blocked.
-				if (xChanged) {
-					newX = enemyX;
-					if (diffY < 0) {
-						newY++;
-					} else {
-						newY--;
-					}
-					isObject = true;
-				} else if (yChanged) {
-					newY = enemyY;
-					if (diffX < 0) {
-						newX++;
-					} else {
-						newX--;
-					}
-					isObject = true;
-				} 
-				
-				// If the intended axis is blocked, check the other one.
-				if (isObject) {
-					String newObject = levelElements[newY][newX];
-					switch (newObject) {
-						case "W":
-						case "G":
-						case "A":
-						case "I":
-						case "D":
-						case "T":
-						case "P":
-						case "H":
-						case "E":
-							// The enemy is blocked in both directions if it gets to here.
-							// Add the 'E' back to the enemy's position (doesn't move).
-							levelElements[enemyY][enemyX] = "E";
-							break;
-					// If the other axis is clear.
-					default:
-						enemyX = newX;
-						enemyY = newY;
-						levelElements[enemyY][enemyX] = "E";
-					}
-				// If the intended axis is blocked, but the other axis difference is 0.
+		if (isBlocked(levelElements, newX, newY)) {
+			boolean isObject = false;
+			// Check the other axis if the intended one is blocked.
+			if (xChanged) {
+				newX = enemyX;
+				if (diffY < 0) {
+					newY++;
+				} else {
+					newY--;
+				}
+				isObject = true;
+			} else if (yChanged) {
+				newY = enemyY;
+				if (diffX < 0) {
+					newX++;
 				} else {
-					levelElements[enemyY][enemyX] = "E";
+					newX--;
 				}
-				break;
-			// If the intended axis is clear.
-			default:
-				enemyX = newX;
-				enemyY = newY;
-				levelElements[enemyY][enemyX] = "E";
+				isObject = true;
+			}
+			
+			// If the intended axis is blocked, check the other one.
+			// The enemy doesn't move if it's blocked in both directions, or if
+			// the intended axis is blocked and the other axis difference is 0.
+			if (!isObject || isBlocked(levelElements, newX, newY)) {
+				newX = enemyX;
+				newY = enemyY;
+			}
 		}
+		moves.setLocation(index, newX, newY);
+	}
+	
+	/**
+	 * Checks if a cell has an object on it that blocks the enemy.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 * @return True if the cell is blocked, otherwise false (if it's clear).
+	 */
+	private static boolean isBlocked(TileGrid levelElements, int x, int y) {
+		return levelElements.isSet(OccupancyLayer.ENEMY_BLOCKED, x, y);
 	}
 }
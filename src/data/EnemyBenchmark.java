@@ -0,0 +1,124 @@
+package data;
+
+import java.util.Random;
+
+/**
+ * Times moving thousands of enemies (and a few smart enemies) on a generated arena, once working out
+ * their moves one at a time and once in parallel. Also checks that both ways
+ * leave every enemy (and the level) in exactly the same state.
+ * @author William King
+ */
+public class EnemyBenchmark {
+	/** The height and width of the generated arena. */
+	private final static int ARENA_SIZE = 512;
+	/** The chance of a cell in the arena being a wall. */
+	private final static double ARENA_WALL_CHANCE = 0.1;
+	/** The number of enemies placed in the arena. */
+	private final static int NUM_ENEMIES = 8000;
+	/** One in this many enemies is a smart enemy. */
+	private final static int SMART_ENEMY_RATE = 500;
+	/** The number of turns timed. */
+	private final static int NUM_TURNS = 200;
+	/** The number of turns run before timing, so the JIT warms up. */
+	private final static int WARM_UP_TURNS = 50;
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args Not used.
+	 */
+	public static void main(String[] args) {
+		Level sequentialLevel = makeArena();
+		Level parallelLevel = makeArena();
+		sequentialLevel.getEnemyMover().setParallel(false);
+		
+		for (int i = 0; i < WARM_UP_TURNS; i++) {
+			moveEnemies(sequentialLevel);
+			moveEnemies(parallelLevel);
+		}
+		
+		long startTime = System.nanoTime();
+		for (int i = 0; i < NUM_TURNS; i++) {
+			moveEnemies(sequentialLevel);
+		}
+		long sequentialTime = System.nanoTime() - startTime;
+		
+		startTime = System.nanoTime();
+		for (int i = 0; i < NUM_TURNS; i++) {
+			moveEnemies(parallelLevel);
+		}
+		long parallelTime = System.nanoTime() - startTime;
+		
+		boolean isSame = sequentialLevel.toStringDetail().equals(parallelLevel.toStringDetail());
+		System.out.printf("%d enemies, %d turns, %d cores%n", NUM_ENEMIES, NUM_TURNS,
+				Runtime.getRuntime().availableProcessors());
+		System.out.printf("One at a time: %.2f ms per turn%n", sequentialTime / 1e6 / NUM_TURNS);
+		System.out.printf("Parallel:      %.2f ms per turn%n", parallelTime / 1e6 / NUM_TURNS);
+		System.out.println("Same result:   " + isSame);
+	}
+	
+	/**
+	 * Moves the enemies in a level, keeping the player alive so the turns can carry on.
+	 * @param level The level to be moved.
+	 */
+	private static void moveEnemies(Level level) {
+		level.getEnemyMover().moveEnemies(level, level.getPlayer());
+		level.getPlayer().setDead(false);
+	}
+	
+	/**
+	 * Generates an arena surrounded by walls, with walls and enemies scattered inside.
+	 * The same arena is made every time.
+	 * @return The generated level.
+	 */
+	private static Level makeArena() {
+		Random rand = new Random(ARENA_SIZE);
+		TileGrid levelElements = new TileGrid(ARENA_SIZE, ARENA_SIZE);
+		for (int row = 0; row < ARENA_SIZE; row++) {
+			for (int col = 0; col < ARENA_SIZE; col++) {
+				boolean isEdge = row == 0 || col == 0 || row == ARENA_SIZE - 1 || col == ARENA_SIZE - 1;
+				if (isEdge || rand.nextDouble() < ARENA_WALL_CHANCE) {
+					levelElements.set(col, row, TileType.WALL);
+				} else {
+					levelElements.set(col, row, TileType.FLOOR);
+				}
+			}
+		}
+		
+		Player player = new Player(ARENA_SIZE / 2, ARENA_SIZE / 2);
+		levelElements.set(player.getX(), player.getY(), TileType.FLOOR);
+		
+		int[] directions = {Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT};
+		EnemyTable enemies = new EnemyTable(NUM_ENEMIES);
+		for (int i = 0; i < NUM_ENEMIES; i++) {
+			int enemyX;
+			int enemyY;
+			do {
+				enemyX = 1 + rand.nextInt(ARENA_SIZE - 2);
+				enemyY = 1 + rand.nextInt(ARENA_SIZE - 2);
+			} while (levelElements.get(enemyX, enemyY) != TileType.FLOOR
+					|| (enemyX == player.getX() && enemyY == player.getY()));
+			levelElements.set(enemyX, enemyY, TileType.ENEMY);
+			
+			int direction = directions[rand.nextInt(directions.length)];
+			if (i % SMART_ENEMY_RATE == 0) {
+				enemies.add(EnemyType.SMART, enemyX, enemyY, Direction.NONE);
+				continue;
+			}
+			switch (i % 3) {
+				case 0:
+					enemies.add(EnemyType.STRAIGHT, enemyX, enemyY, direction);
+					break;
+				case 1:
+					enemies.add(EnemyType.WALL, enemyX, enemyY, direction);
+					break;
+				default:
+					enemies.add(EnemyType.DUMB, enemyX, enemyY, direction);
+					break;
+			}
+		}
+		
+		return new Level(levelElements, 0, player, new CellMap<Door>(ARENA_SIZE),
+				new CellMap<Apparel>(ARENA_SIZE), new CellMap<Item>(ARENA_SIZE),
+				new CellMap<Hazard>(ARENA_SIZE), new CellMap<Portal>(ARENA_SIZE), enemies);
+	}
+}
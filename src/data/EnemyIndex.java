@@ -0,0 +1,199 @@
+package data;
+
+/**
+ * Finds the enemy standing on a cell of a level, without looping through all of the enemies.
+ * Only a small part of a level has an enemy on it, so rather than an array the size of the
+ * level, each enemy's cell id (y * width + x) is kept in a hash table using open addressing,
+ * along with the enemy's index in the level's enemy table. The memory used grows with the
+ * number of enemies, not the size of the level. Kept up to date as the enemies move.
+ * @author William King
+ */
+public class EnemyIndex {
+	/** Returned if there is no enemy on a cell. */
+	public final static int NO_ENEMY = -1;
+	/** Marks an unused slot in the hash table. */
+	private final static int EMPTY = -1;
+	/** The fewest slots in the hash table. Must be a power of 2. */
+	private final static int MIN_CAPACITY = 16;
+	/** Used to spread the cell ids across the hash table (Fibonacci hashing). */
+	private final static int HASH_MULTIPLIER = 0x9E3779B9;
+	
+	/** The width of the level in cells. */
+	private int levelWidth;
+	
+	/** The cell id held in each slot of the hash table, or EMPTY. */
+	private int[] tableCells;
+	
+	/** The index of the enemy on the cell held in each slot of the hash table. */
+	private int[] tableEnemies;
+	
+	/** The number of cells with an enemy on them. */
+	private int size;
+	
+	/**
+	 * Constructor for the EnemyIndex class. Adds every enemy at its current location.
+	 * @param enemies The enemies in the level.
+	 * @param levelWidth The width of the level in cells.
+	 */
+	public EnemyIndex(EnemyTable enemies, int levelWidth) {
+		this.levelWidth = levelWidth;
+		reset(enemies);
+	}
+	
+	/**
+	 * Empties the index, then adds every enemy at its current location.
+	 * Used when the enemies have been placed without going through the index.
+	 * @param enemies The enemies in the level.
+	 */
+	public void reset(EnemyTable enemies) {
+		// Keep the hash table at most half full, so the searches stay short.
+		int capacity = MIN_CAPACITY;
+		while (capacity < enemies.size() * 2) {
+			capacity = capacity * 2;
+		}
+		makeTable(capacity);
+		
+		for (int i = 0; i < enemies.size(); i++) {
+			put((enemies.getY(i) * levelWidth) + enemies.getX(i), i);
+		}
+	}
+	
+	/**
+	 * Gets the enemy standing on a cell.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 * @return The index of the enemy in the level's enemy table, or NO_ENEMY.
+	 */
+	public int get(int x, int y) {
+		int slot = findSlot((y * levelWidth) + x);
+		if (tableCells[slot] == EMPTY) {
+			return NO_ENEMY;
+		}
+		return tableEnemies[slot];
+	}
+	
+	/**
+	 * Moves an enemy from one cell to another.
+	 * @param index The index of the enemy in the level's enemy table.
+	 * @param oldX The x-coordinate the enemy was on.
+	 * @param oldY The y-coordinate the enemy was on.
+	 * @param newX The x-coordinate the enemy is now on.
+	 * @param newY The y-coordinate the enemy is now on.
+	 */
+	public void move(int index, int oldX, int oldY, int newX, int newY) {
+		if (oldX == newX && oldY == newY) {
+			return;
+		}
+		remove((oldY * levelWidth) + oldX);
+		put((newY * levelWidth) + newX, index);
+	}
+	
+	/**
+	 * Gets the number of cells with an enemy on them.
+	 * @return The number of cells.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Places an enemy on a cell, replacing any enemy already there.
+	 * @param cell The cell id.
+	 * @param index The index of the enemy.
+	 */
+	private void put(int cell, int index) {
+		int slot = findSlot(cell);
+		if (tableCells[slot] == cell) {
+			tableEnemies[slot] = index;
+			return;
+		}
+		
+		if ((size + 1) * 2 > tableCells.length) {
+			grow();
+			slot = findSlot(cell);
+		}
+		tableCells[slot] = cell;
+		tableEnemies[slot] = index;
+		size++;
+	}
+	
+	/**
+	 * Takes the enemy off a cell. The cells after it in the hash table are shifted
+	 * back, so the searches for them don't stop at the emptied slot.
+	 * @param cell The cell id.
+	 */
+	private void remove(int cell) {
+		int slot = findSlot(cell);
+		if (tableCells[slot] == EMPTY) {
+			return;
+		}
+		
+		int mask = tableCells.length - 1;
+		int emptySlot = slot;
+		int nextSlot = (slot + 1) & mask;
+		while (tableCells[nextSlot] != EMPTY) {
+			int homeSlot = getHomeSlot(tableCells[nextSlot]);
+			// Only shift the cell back if the emptied slot is between its home slot and it.
+			if (((nextSlot - homeSlot) & mask) >= ((nextSlot - emptySlot) & mask)) {
+				tableCells[emptySlot] = tableCells[nextSlot];
+				tableEnemies[emptySlot] = tableEnemies[nextSlot];
+				emptySlot = nextSlot;
+			}
+			nextSlot = (nextSlot + 1) & mask;
+		}
+		tableCells[emptySlot] = EMPTY;
+		size--;
+	}
+	
+	/**
+	 * Finds the slot in the hash table holding a cell, or the empty slot where it would go.
+	 * @param cell The cell id.
+	 * @return The index of the slot.
+	 */
+	private int findSlot(int cell) {
+		int mask = tableCells.length - 1;
+		int slot = getHomeSlot(cell);
+		while (tableCells[slot] != EMPTY && tableCells[slot] != cell) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+	
+	/**
+	 * Gets the slot a cell is first looked for in.
+	 * @param cell The cell id.
+	 * @return The index of the slot.
+	 */
+	private int getHomeSlot(int cell) {
+		return (cell * HASH_MULTIPLIER) >>> (32 - Integer.numberOfTrailingZeros(tableCells.length));
+	}
+	
+	/**
+	 * Makes an empty hash table.
+	 * @param capacity The number of slots. Must be a power of 2.
+	 */
+	private void makeTable(int capacity) {
+		tableCells = new int[capacity];
+		tableEnemies = new int[capacity];
+		for (int i = 0; i < capacity; i++) {
+			tableCells[i] = EMPTY;
+		}
+		size = 0;
+	}
+	
+	/**
+	 * Doubles the size of the hash table.
+	 */
+	private void grow() {
+		int[] oldCells = tableCells;
+		int[] oldEnemies = tableEnemies;
+		makeTable(oldCells.length * 2);
+		
+		// Put every cell back in the larger hash table.
+		for (int i = 0; i < oldCells.length; i++) {
+			if (oldCells[i] != EMPTY) {
+				put(oldCells[i], oldEnemies[i]);
+			}
+		}
+	}
+}
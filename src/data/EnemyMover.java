@@ -0,0 +1,236 @@
+package data;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Moves every enemy in a level after the player has made a move.
+ * On levels with many enemies, the move of each straight, wall and dumb enemy
+ * is first worked out in parallel, against the level as it is before any enemy
+ * moves. The moves are then made one at a time, in the same order as the enemies
+ * are stored. An enemy whose cells have been changed by an enemy before it (or a
+ * smart enemy, which looks at the whole level) works out its move again, so the
+ * result is exactly the same as moving the enemies one at a time.
+ * A straight or wall enemy with a compiled path (see EnemyTrajectories) is just put
+ * where its path says it is this turn.
+ * @author William King
+ */
+public class EnemyMover {
+	/** The fewest enemies needed before their moves are worked out in parallel. */
+	private final static int PARALLEL_THRESHOLD = 256;
+	/** The number of enemies handled by each parallel task. */
+	private final static int TASK_SIZE = 1024;
+	
+	/** The width of the level in cells. */
+	private int levelWidth;
+	
+	/** The cells changed by the enemies that have already moved this turn. */
+	private VisitedGrid changedCells;
+	
+	/** The moves worked out in parallel. Reused each turn. */
+	private EnemyTable proposals;
+	
+	/** True if the moves can be worked out in parallel. */
+	private boolean isParallel;
+	
+	/**
+	 * Constructor for the EnemyMover class.
+	 * @param levelWidth The width of the level in cells.
+	 * @param levelHeight The height of the level in cells.
+	 */
+	public EnemyMover(int levelWidth, int levelHeight) {
+		this.levelWidth = levelWidth;
+		changedCells = new VisitedGrid(levelWidth * levelHeight);
+		isParallel = true;
+	}
+	
+	/**
+	 * Moves every enemy in the level, and checks if any of them have moved on the player.
+	 * @param level The level the enemies are in.
+	 * @param player The player in the level (set as dead if an enemy lands on them).
+	 */
+	public void moveEnemies(Level level, Player player) {
+		// The player has moved, so the smart enemies need new distances.
+		level.getDistanceField().invalidate();
+		// The smart enemies share a fixed amount of path finding each turn.
+		level.getSearchBudget().startTurn();
+		
+		TileGrid levelElements = level.getLevelElements();
+		EnemyTable enemies = level.getEnemies();
+		EnemyIndex enemyIndex = level.getEnemyIndex();
+		EnemyTrajectories trajectories = level.getEnemyTrajectories();
+		long turn = level.getEnemyTurn() + 1;
+		int numEnemies = enemies.size();
+		int playerX = player.getX();
+		int playerY = player.getY();
+		
+		// Work out the moves against the level as it is before any enemy moves.
+		boolean isProposed = isParallel && numEnemies >= PARALLEL_THRESHOLD;
+		if (isProposed) {
+			if (proposals == null || proposals.getCapacity() < numEnemies) {
+				proposals = new EnemyTable(numEnemies);
+			}
+			ForkJoinPool.commonPool().invoke(new ProposeTask(enemies, proposals, levelElements,
+					playerX, playerY, 0, numEnemies));
+		}
+		
+		// Make the moves in order.
+		changedCells.startSearch();
+		for (int i = 0; i < numEnemies; i++) {
+			int oldX = enemies.getX(i);
+			int oldY = enemies.getY(i);
+			EnemyType type = enemies.getType(i);
+			
+			if (type == EnemyType.SMART) {
+				enemies.getSmartEnemy(i).move(level, i, playerX, playerY);
+			} else {
+				if (trajectories != null && trajectories.isCompiled(i)) {
+					// Nothing can get in its way, so its location is looked up.
+					trajectories.moveTo(enemies, i, turn);
+				} else if (isProposed && !isWindowChanged(oldX, oldY)) {
+					enemies.takeMove(i, proposals);
+				} else {
+					moveEnemy(type, enemies, i, levelElements, playerX, playerY, enemies);
+				}
+				levelElements.set(oldX, oldY, TileType.FLOOR);
+				levelElements.set(enemies.getX(i), enemies.getY(i), TileType.ENEMY);
+			}
+			enemyIndex.move(i, oldX, oldY, enemies.getX(i), enemies.getY(i));
+			changedCells.markVisited((oldY * levelWidth) + oldX);
+			changedCells.markVisited((enemies.getY(i) * levelWidth) + enemies.getX(i));
+		}
+		level.setEnemyTurn(turn);
+		
+		// Check if an enemy 'landed' on the player.
+		if (enemyIndex.get(playerX, playerY) != EnemyIndex.NO_ENEMY) {
+			player.setDead(true);
+		}
+	}
+	
+	/**
+	 * Works out the move of a straight, wall or dumb enemy, without changing the level.
+	 * @param type The type of the enemy.
+	 * @param enemies The enemies in the level.
+	 * @param index The index of the enemy to be moved.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param playerX The x-coordinate location of the player.
+	 * @param playerY The y-coordinate location of the player.
+	 * @param moves Where the enemy's move is set (can be the same as enemies).
+	 */
+	private static void moveEnemy(EnemyType type, EnemyTable enemies, int index,
+			TileGrid levelElements, int playerX, int playerY, EnemyTable moves) {
+		switch (type) {
+			case STRAIGHT:
+				StraightEnemy.move(enemies, index, levelElements, moves);
+				break;
+			case WALL:
+				WallEnemy.move(enemies, index, levelElements, moves);
+				break;
+			case DUMB:
+				DumbEnemy.move(enemies, index, levelElements, playerX, playerY, moves);
+				break;
+			default:
+				// Smart enemies look at the whole level, so they're moved one at a time.
+				break;
+		}
+	}
+	
+	/**
+	 * Checks if any of the cells around a location have been changed this turn.
+	 * @param cellX The x-coordinate of the location.
+	 * @param cellY The y-coordinate of the location.
+	 * @return True if a cell has changed, otherwise false.
+	 */
+	private boolean isWindowChanged(int cellX, int cellY) {
+		int numCells = changedCells.getNumCells();
+		for (int row = cellY - 1; row <= cellY + 1; row++) {
+			for (int col = cellX - 1; col <= cellX + 1; col++) {
+				int cell = (row * levelWidth) + col;
+				if (col >= 0 && col < levelWidth && cell >= 0 && cell < numCells
+						&& changedCells.isVisited(cell)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Sets whether the moves can be worked out in parallel. The result is the same either way.
+	 * @param isParallel True to allow working out moves in parallel, otherwise false.
+	 */
+	public void setParallel(boolean isParallel) {
+		this.isParallel = isParallel;
+	}
+	
+	/**
+	 * Works out the moves of a range of enemies, splitting the range between threads.
+	 */
+	private static class ProposeTask extends RecursiveAction {
+		/** Used for serialisation. */
+		private static final long serialVersionUID = 1L;
+		
+		/** All the enemies in the level. */
+		private EnemyTable enemies;
+		
+		/** Filled in with the move worked out for each enemy. */
+		private EnemyTable proposals;
+		
+		/** An array holding all the elements in the level. Only read. */
+		private TileGrid levelElements;
+		
+		/** The x-coordinate location of the player. */
+		private int playerX;
+		
+		/** The y-coordinate location of the player. */
+		private int playerY;
+		
+		/** The first enemy in the range. */
+		private int start;
+		
+		/** The enemy after the last one in the range. */
+		private int end;
+		
+		/**
+		 * Constructor for the ProposeTask class.
+		 * @param enemies All the enemies in the level.
+		 * @param proposals Filled in with the move worked out for each enemy.
+		 * @param levelElements An array holding all the elements in the level.
+		 * @param playerX The x-coordinate location of the player.
+		 * @param playerY The y-coordinate location of the player.
+		 * @param start The first enemy in the range.
+		 * @param end The enemy after the last one in the range.
+		 */
+		private ProposeTask(EnemyTable enemies, EnemyTable proposals, TileGrid levelElements,
+				int playerX, int playerY, int start, int end) {
+			this.enemies = enemies;
+			this.proposals = proposals;
+			this.levelElements = levelElements;
+			this.playerX = playerX;
+			this.playerY = playerY;
+			this.start = start;
+			this.end = end;
+		}
+		
+		/**
+		 * Works out the moves, or splits the range in two if it's too large.
+		 */
+		@Override
+		protected void compute() {
+			if (end - start <= TASK_SIZE) {
+				for (int i = start; i < end; i++) {
+					// Start from the enemy as it is, so whatever its move doesn't change is kept.
+					proposals.takeMove(i, enemies);
+					moveEnemy(enemies.getType(i), enemies, i, levelElements, playerX, playerY,
+							proposals);
+				}
+			} else {
+				int middle = (start + end) / 2;
+				invokeAll(new ProposeTask(enemies, proposals, levelElements, playerX, playerY,
+						start, middle),
+						new ProposeTask(enemies, proposals, levelElements, playerX, playerY,
+						middle, end));
+			}
+		}
+	}
+}
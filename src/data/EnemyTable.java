@@ -0,0 +1,267 @@
+package data;
+
+/**
+ * Holds every enemy in a level. Rather than an object for each enemy, the enemies'
+ * locations, directions and types are kept in arrays side by side (accessed by the
+ * enemy's index), so moving all of them each turn goes through the arrays in order
+ * without following a reference per enemy. Directions are held as Direction numbers.
+ * Only the smart enemies have an object, which keeps their search between moves.
+ * @author William King
+ */
+public class EnemyTable {
+	/** The number of enemies that can be held to start with. */
+	private final static int INITIAL_CAPACITY = 16;
+	/** Every enemy type. Accessed by the enemy type's ordinal. */
+	private final static EnemyType[] ENEMY_TYPES = EnemyType.values();
+	
+	/** The x-coordinate location of each enemy. */
+	private int[] xs;
+	
+	/** The y-coordinate location of each enemy. */
+	private int[] ys;
+	
+	/** The type of each enemy, as the enemy type's ordinal. */
+	private byte[] types;
+	
+	/** The direction each enemy moves towards, as a Direction number. */
+	private byte[] directions;
+	
+	/** The seed of each wall enemy's next random turn. Kept so its turns can be repeated. */
+	private long[] randomSeeds;
+	
+	/** The search of each smart enemy, or null if the enemy isn't a smart enemy. */
+	private SmartEnemy[] smartEnemies;
+	
+	/** The number of enemies held. */
+	private int size;
+	
+	/**
+	 * Constructor for the EnemyTable class.
+	 */
+	public EnemyTable() {
+		this(INITIAL_CAPACITY);
+	}
+	
+	/**
+	 * Constructor for the EnemyTable class, with room for a number of enemies.
+	 * @param capacity The number of enemies that can be held before the arrays grow.
+	 */
+	public EnemyTable(int capacity) {
+		capacity = Math.max(capacity, 1);
+		xs = new int[capacity];
+		ys = new int[capacity];
+		types = new byte[capacity];
+		directions = new byte[capacity];
+		randomSeeds = new long[capacity];
+		smartEnemies = new SmartEnemy[capacity];
+		size = 0;
+	}
+	
+	/**
+	 * Adds an enemy.
+	 * @param type The type of enemy.
+	 * @param enemyX The x-coordinate location of the enemy.
+	 * @param enemyY The y-coordinate location of the enemy.
+	 * @param direction The direction the enemy moves towards (or Direction.NONE).
+	 * @return The index of the enemy.
+	 */
+	public int add(EnemyType type, int enemyX, int enemyY, int direction) {
+		if (size == xs.length) {
+			grow();
+		}
+		xs[size] = enemyX;
+		ys[size] = enemyY;
+		types[size] = (byte) type.ordinal();
+		directions[size] = (byte) direction;
+		// Start from where the enemy is, so each wall enemy turns differently.
+		randomSeeds[size] = ((long) enemyY << 32) | enemyX;
+		if (type == EnemyType.SMART) {
+			smartEnemies[size] = new SmartEnemy();
+		}
+		size++;
+		return size - 1;
+	}
+	
+	/**
+	 * Makes a copy of the enemies, e.g. for a new play of a level.
+	 * The smart enemies keep their search modes, but not their searches.
+	 * @return The copy of the enemies.
+	 */
+	public EnemyTable copy() {
+		EnemyTable copy = new EnemyTable(size);
+		System.arraycopy(xs, 0, copy.xs, 0, size);
+		System.arraycopy(ys, 0, copy.ys, 0, size);
+		System.arraycopy(types, 0, copy.types, 0, size);
+		System.arraycopy(directions, 0, copy.directions, 0, size);
+		System.arraycopy(randomSeeds, 0, copy.randomSeeds, 0, size);
+		for (int i = 0; i < size; i++) {
+			if (smartEnemies[i] != null) {
+				copy.smartEnemies[i] = smartEnemies[i].copy();
+			}
+		}
+		copy.size = size;
+		return copy;
+	}
+	
+	/**
+	 * Gets a string of an enemy's full details for file saving.
+	 * Includes a smart enemy's search mode if it has its own.
+	 * @param index The index of the enemy.
+	 * @return A string of the enemy's full details.
+	 */
+	public String toStringDetail(int index) {
+		String strEnemy = "ENEMY," + xs[index] + ":" + ys[index] + ":" + getType(index)
+				+ ":" + Direction.toString(directions[index]);
+		if (smartEnemies[index] != null && smartEnemies[index].getSearchMode() != null) {
+			strEnemy = strEnemy + ":" + smartEnemies[index].getSearchMode();
+		}
+		return strEnemy + ",";
+	}
+	
+	/**
+	 * Gets the number of enemies held.
+	 * @return The number of enemies.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Gets the x-coordinate location of an enemy.
+	 * @param index The index of the enemy.
+	 * @return The x-coordinate as an integer.
+	 */
+	public int getX(int index) {
+		return xs[index];
+	}
+	
+	/**
+	 * Gets the y-coordinate location of an enemy.
+	 * @param index The index of the enemy.
+	 * @return The y-coordinate as an integer.
+	 */
+	public int getY(int index) {
+		return ys[index];
+	}
+	
+	/**
+	 * Sets the location of an enemy.
+	 * @param index The index of the enemy.
+	 * @param enemyX The x-coordinate to be set.
+	 * @param enemyY The y-coordinate to be set.
+	 */
+	public void setLocation(int index, int enemyX, int enemyY) {
+		xs[index] = enemyX;
+		ys[index] = enemyY;
+	}
+	
+	/**
+	 * Gets the type of an enemy.
+	 * @param index The index of the enemy.
+	 * @return The enemy type as an enum.
+	 */
+	public EnemyType getType(int index) {
+		return ENEMY_TYPES[types[index]];
+	}
+	
+	/**
+	 * Gets the direction an enemy moves towards.
+	 * @param index The index of the enemy.
+	 * @return The direction as a Direction number.
+	 */
+	public int getDirection(int index) {
+		return directions[index];
+	}
+	
+	/**
+	 * Sets the direction an enemy moves towards.
+	 * @param index The index of the enemy.
+	 * @param direction The direction as a Direction number.
+	 */
+	public void setDirection(int index, int direction) {
+		directions[index] = (byte) direction;
+	}
+	
+	/**
+	 * Gets the seed of a wall enemy's next random turn.
+	 * @param index The index of the enemy.
+	 * @return The random seed.
+	 */
+	public long getRandomSeed(int index) {
+		return randomSeeds[index];
+	}
+	
+	/**
+	 * Sets the seed of a wall enemy's next random turn.
+	 * @param index The index of the enemy.
+	 * @param randomSeed The random seed to be set.
+	 */
+	public void setRandomSeed(int index, long randomSeed) {
+		randomSeeds[index] = randomSeed;
+	}
+	
+	/**
+	 * Mixes a seed into every wall enemy's random turns, so a game can be played with
+	 * different (but repeatable) turns.
+	 * @param seed The seed mixed in. 0 leaves the turns as they are.
+	 */
+	public void mixRandomSeeds(long seed) {
+		for (int i = 0; i < size; i++) {
+			randomSeeds[i] = randomSeeds[i] ^ seed;
+		}
+	}
+
+	/**
+	 * Gets the search of a smart enemy.
+	 * @param index The index of the enemy.
+	 * @return The smart enemy's search, or null if the enemy isn't a smart enemy.
+	 */
+	public SmartEnemy getSmartEnemy(int index) {
+		return smartEnemies[index];
+	}
+	
+	/**
+	 * Takes on the move worked out for an enemy in another table (with the same enemies).
+	 * @param index The index of the enemy.
+	 * @param moves The table the move was worked out in.
+	 */
+	public void takeMove(int index, EnemyTable moves) {
+		xs[index] = moves.xs[index];
+		ys[index] = moves.ys[index];
+		directions[index] = moves.directions[index];
+		randomSeeds[index] = moves.randomSeeds[index];
+	}
+	
+	/**
+	 * Gets the number of enemies that can be held before the arrays grow.
+	 * @return The capacity of the table.
+	 */
+	public int getCapacity() {
+		return xs.length;
+	}
+	
+	/**
+	 * Doubles the size of the arrays.
+	 */
+	private void grow() {
+		int newCapacity = xs.length * 2;
+		int[] newXs = new int[newCapacity];
+		int[] newYs = new int[newCapacity];
+		byte[] newTypes = new byte[newCapacity];
+		byte[] newDirections = new byte[newCapacity];
+		long[] newRandomSeeds = new long[newCapacity];
+		SmartEnemy[] newSmartEnemies = new SmartEnemy[newCapacity];
+		System.arraycopy(xs, 0, newXs, 0, size);
+		System.arraycopy(ys, 0, newYs, 0, size);
+		System.arraycopy(types, 0, newTypes, 0, size);
+		System.arraycopy(directions, 0, newDirections, 0, size);
+		System.arraycopy(randomSeeds, 0, newRandomSeeds, 0, size);
+		System.arraycopy(smartEnemies, 0, newSmartEnemies, 0, size);
+		xs = newXs;
+		ys = newYs;
+		types = newTypes;
+		directions = newDirections;
+		randomSeeds = newRandomSeeds;
+		smartEnemies = newSmartEnemies;
+	}
+}
@@ -0,0 +1,521 @@
+package data;
+
+import java.util.ArrayDeque;
+
+/**
+ * Holds the path of each straight and wall enemy that patrols a fixed loop, worked out
+ * when the level is loaded, so where it is after any number of turns can be looked up
+ * rather than moved there a turn at a time.
+ * These enemies never look at the player, so on a level that doesn't change each one
+ * goes round the same loop forever (after a few turns getting onto it). Each enemy is
+ * followed on its own until it repeats itself (Brent's cycle detection), and its path
+ * is kept as the turns before the loop followed by one lap of the loop.
+ * An enemy is only compiled if nothing else can get in its way: no other enemy's path
+ * (or anywhere a dumb, smart or uncompiled enemy could go) is on or next to its path.
+ * A wall enemy that makes a random turn isn't compiled, as its path depends on the
+ * game's random seed. Once a door is opened or something is picked up, the enemies
+ * the change could get in the way of (see clearCell) are moved a turn at a time
+ * again, and the rest keep their paths.
+ * @author William King
+ */
+public class EnemyTrajectories {
+	/** Marks an enemy without a compiled path. */
+	private final static int NOT_COMPILED = -1;
+	/** The most moves an enemy is followed for before giving up on finding its loop. */
+	private final static int MAX_STEPS = 4096;
+	/** The changes in the x-coordinate to the cells next to a cell. */
+	private final static int[] X_CHANGES = {0, 1, 0, -1};
+	/** The changes in the y-coordinate to the cells next to a cell. */
+	private final static int[] Y_CHANGES = {-1, 0, 1, 0};
+	
+	/** The width of the level in cells. */
+	private int levelWidth;
+	
+	/** Where each enemy's path starts in the path arrays, or NOT_COMPILED. */
+	private int[] pathStarts;
+	
+	/** The number of turns each enemy takes to get onto its loop. */
+	private int[] leadLengths;
+	
+	/** The number of turns each enemy takes to go round its loop. */
+	private int[] loopLengths;
+	
+	/** The cell id of each step of each path. */
+	private int[] pathCells;
+	
+	/** The direction of each step of each path. */
+	private byte[] pathDirections;
+	
+	/** The number of steps held in the path arrays. */
+	private int pathLength;
+	
+	/** The number of enemies with a compiled path. */
+	private int numCompiled;
+	
+	/** True for each cell that an enemy without a compiled path could go. */
+	private boolean[] isFree;
+	
+	/** The number of compiled paths covering each cell. */
+	private int[] numPaths;
+	
+	/**
+	 * Constructor for the EnemyTrajectories class. Works out the path of each straight
+	 * and wall enemy, then drops the ones that another enemy could get in the way of.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param enemies The enemies in the level, where they start.
+	 */
+	public EnemyTrajectories(TileGrid levelElements, EnemyTable enemies) {
+		levelWidth = levelElements.getWidth();
+		int numCells = levelWidth * levelElements.getHeight();
+		int numEnemies = enemies.size();
+		pathStarts = new int[numEnemies];
+		leadLengths = new int[numEnemies];
+		loopLengths = new int[numEnemies];
+		pathCells = new int[Math.max(numEnemies, 16)];
+		pathDirections = new byte[pathCells.length];
+		pathLength = 0;
+		
+		// Each enemy is followed on its own, so the others are taken off the level.
+		TileGrid clearElements = levelElements.copy();
+		for (int i = 0; i < numEnemies; i++) {
+			clearElements.set(enemies.getX(i), enemies.getY(i), TileType.FLOOR);
+		}
+		for (int i = 0; i < numEnemies; i++) {
+			pathStarts[i] = NOT_COMPILED;
+			EnemyType type = enemies.getType(i);
+			if (type == EnemyType.STRAIGHT || type == EnemyType.WALL) {
+				compilePath(enemies, i, clearElements);
+			}
+		}
+		
+		// Mark everywhere the other enemies could go, and how many paths cover each cell.
+		isFree = new boolean[numCells];
+		numPaths = new int[numCells];
+		VisitedGrid pathGrid = new VisitedGrid(numCells);
+		for (int i = 0; i < numEnemies; i++) {
+			if (pathStarts[i] == NOT_COMPILED) {
+				markReachable(clearElements, (enemies.getY(i) * levelWidth) + enemies.getX(i));
+			} else {
+				countPath(i, pathGrid, 1);
+			}
+		}
+		
+		// Drop the enemies that could be blocked. They can then block others, so repeat.
+		boolean isDropped = true;
+		while (isDropped) {
+			isDropped = false;
+			for (int i = 0; i < numEnemies; i++) {
+				if (pathStarts[i] != NOT_COMPILED && !isIndependent(i, clearElements, pathGrid)) {
+					countPath(i, pathGrid, -1);
+					pathStarts[i] = NOT_COMPILED;
+					markReachable(clearElements, (enemies.getY(i) * levelWidth) + enemies.getX(i));
+					isDropped = true;
+				}
+			}
+		}
+		
+		numCompiled = 0;
+		for (int i = 0; i < numEnemies; i++) {
+			if (pathStarts[i] != NOT_COMPILED) {
+				numCompiled++;
+			}
+		}
+	}
+	
+	/**
+	 * Constructor for a copy of the trajectories, which can drop enemies without
+	 * changing the original (shared by every play of the level).
+	 * @param original The trajectories to be copied.
+	 */
+	private EnemyTrajectories(EnemyTrajectories original) {
+		levelWidth = original.levelWidth;
+		pathStarts = original.pathStarts.clone();
+		leadLengths = original.leadLengths;
+		loopLengths = original.loopLengths;
+		pathCells = original.pathCells;
+		pathDirections = original.pathDirections;
+		pathLength = original.pathLength;
+		numCompiled = original.numCompiled;
+		isFree = original.isFree.clone();
+		numPaths = original.numPaths.clone();
+	}
+	
+	/**
+	 * Gets the trajectories for the level once a cell has been cleared (an item picked up
+	 * or a door opened). An enemy is dropped if its path is on or next to the cell, or
+	 * next to anywhere the enemies without a compiled path can now go. A dropped enemy
+	 * can then get in the way of others, so this repeats. The rest keep their paths.
+	 * @param levelElements An array holding all the elements in the level, with the cell cleared.
+	 * @param cellX The x-coordinate of the cleared cell.
+	 * @param cellY The y-coordinate of the cleared cell.
+	 * @return These trajectories if the change can't get in any enemy's way,
+	 * otherwise a copy with the enemies dropped.
+	 */
+	public EnemyTrajectories clearCell(TileGrid levelElements, int cellX, int cellY) {
+		int changedCell = (cellY * levelWidth) + cellX;
+		boolean isNextToFree = false;
+		boolean isNextToPath = false;
+		for (int i = -1; i < X_CHANGES.length; i++) {
+			int nextX = cellX;
+			int nextY = cellY;
+			if (i >= 0) {
+				nextX = cellX + X_CHANGES[i];
+				nextY = cellY + Y_CHANGES[i];
+			}
+			if (levelElements.isInside(nextX, nextY)) {
+				int cell = (nextY * levelWidth) + nextX;
+				isNextToFree = isNextToFree || isFree[cell];
+				isNextToPath = isNextToPath || numPaths[cell] > 0;
+			}
+		}
+		if (!isNextToFree && !isNextToPath) {
+			return this;
+		}
+		
+		EnemyTrajectories newTrajectories = new EnemyTrajectories(this);
+		newTrajectories.dropBlockable(levelElements, changedCell, isNextToFree);
+		return newTrajectories;
+	}
+	
+	/**
+	 * Drops the enemies that a cleared cell could get them in the way of.
+	 * @param levelElements An array holding all the elements in the level, with the cell cleared.
+	 * @param changedCell The cell id of the cleared cell.
+	 * @param isNextToFree True if an enemy without a compiled path can now reach the cell.
+	 */
+	private void dropBlockable(TileGrid levelElements, int changedCell, boolean isNextToFree) {
+		if (isNextToFree) {
+			markReachable(levelElements, changedCell);
+		}
+		
+		VisitedGrid pathGrid = new VisitedGrid(isFree.length);
+		boolean isDropped = true;
+		while (isDropped) {
+			isDropped = false;
+			for (int i = 0; i < pathStarts.length; i++) {
+				if (pathStarts[i] != NOT_COMPILED && (isNextTo(i, changedCell)
+						|| !isIndependent(i, levelElements, pathGrid))) {
+					// It could be anywhere on its path, so it could go anywhere reachable from it.
+					countPath(i, pathGrid, -1);
+					int pathEnd = pathStarts[i] + leadLengths[i] + loopLengths[i];
+					for (int step = pathStarts[i]; step < pathEnd; step++) {
+						markReachable(levelElements, pathCells[step]);
+					}
+					pathStarts[i] = NOT_COMPILED;
+					numCompiled--;
+					isDropped = true;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Checks if a compiled enemy's path is on or next to a cell.
+	 * @param index The index of the enemy.
+	 * @param cell The cell id.
+	 * @return True if the path is on or next to the cell, otherwise false.
+	 */
+	private boolean isNextTo(int index, int cell) {
+		int cellX = cell % levelWidth;
+		int cellY = cell / levelWidth;
+		int pathEnd = pathStarts[index] + leadLengths[index] + loopLengths[index];
+		for (int step = pathStarts[index]; step < pathEnd; step++) {
+			int xDiff = Math.abs((pathCells[step] % levelWidth) - cellX);
+			int yDiff = Math.abs((pathCells[step] / levelWidth) - cellY);
+			if (xDiff + yDiff <= 1) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Checks if an enemy has a compiled path.
+	 * @param index The index of the enemy.
+	 * @return True if its location can be looked up, otherwise false.
+	 */
+	public boolean isCompiled(int index) {
+		return pathStarts[index] != NOT_COMPILED;
+	}
+	
+	/**
+	 * Gets the number of enemies with a compiled path.
+	 * @return The number of compiled enemies.
+	 */
+	public int getNumCompiled() {
+		return numCompiled;
+	}
+	
+	/**
+	 * Gets the x-coordinate of a compiled enemy after a number of turns.
+	 * @param index The index of the enemy.
+	 * @param turn The number of turns the enemies have moved since the level was loaded.
+	 * @return The x-coordinate of the enemy.
+	 */
+	public int getX(int index, long turn) {
+		return pathCells[getStep(index, turn)] % levelWidth;
+	}
+	
+	/**
+	 * Gets the y-coordinate of a compiled enemy after a number of turns.
+	 * @param index The index of the enemy.
+	 * @param turn The number of turns the enemies have moved since the level was loaded.
+	 * @return The y-coordinate of the enemy.
+	 */
+	public int getY(int index, long turn) {
+		return pathCells[getStep(index, turn)] / levelWidth;
+	}
+	
+	/**
+	 * Gets the direction of a compiled enemy after a number of turns.
+	 * @param index The index of the enemy.
+	 * @param turn The number of turns the enemies have moved since the level was loaded.
+	 * @return The direction of the enemy.
+	 */
+	public int getDirection(int index, long turn) {
+		return pathDirections[getStep(index, turn)];
+	}
+	
+	/**
+	 * Puts a compiled enemy where it is after a number of turns.
+	 * @param enemies The enemies in the level.
+	 * @param index The index of the enemy.
+	 * @param turn The number of turns the enemies have moved since the level was loaded.
+	 */
+	public void moveTo(EnemyTable enemies, int index, long turn) {
+		int step = getStep(index, turn);
+		enemies.setLocation(index, pathCells[step] % levelWidth, pathCells[step] / levelWidth);
+		enemies.setDirection(index, pathDirections[step]);
+	}
+	
+	/**
+	 * Gets where the step of a compiled enemy's path after a number of turns is held.
+	 * @param index The index of the enemy.
+	 * @param turn The number of turns the enemies have moved since the level was loaded.
+	 * @return The index of the step in the path arrays.
+	 */
+	private int getStep(int index, long turn) {
+		int leadLength = leadLengths[index];
+		if (turn < leadLength) {
+			return pathStarts[index] + (int) turn;
+		}
+		return pathStarts[index] + leadLength + (int) ((turn - leadLength) % loopLengths[index]);
+	}
+	
+	/**
+	 * Follows an enemy on its own until it repeats itself, and keeps its path.
+	 * Leaves it uncompiled if it takes too long or it's a wall enemy making a random turn.
+	 * @param enemies The enemies in the level, where they start.
+	 * @param index The index of the enemy.
+	 * @param clearElements The level, without any enemies on it.
+	 */
+	private void compilePath(EnemyTable enemies, int index, TileGrid clearElements) {
+		// The first walker is the tortoise, the second the hare.
+		EnemyTable walkers = new EnemyTable(2);
+		EnemyType type = enemies.getType(index);
+		walkers.add(type, enemies.getX(index), enemies.getY(index), enemies.getDirection(index));
+		walkers.add(type, enemies.getX(index), enemies.getY(index), enemies.getDirection(index));
+		
+		// Find the length of the loop. The tortoise jumps to the hare at each power of 2.
+		int power = 1;
+		int loopLength = 1;
+		int numSteps = 1;
+		if (!step(walkers, 1, clearElements)) {
+			return;
+		}
+		while (!isSamePlace(walkers, 0, 1)) {
+			if (numSteps == MAX_STEPS) {
+				return;
+			}
+			if (power == loopLength) {
+				walkers.setLocation(0, walkers.getX(1), walkers.getY(1));
+				walkers.setDirection(0, walkers.getDirection(1));
+				power = power * 2;
+				loopLength = 0;
+			}
+			if (!step(walkers, 1, clearElements)) {
+				return;
+			}
+			loopLength++;
+			numSteps++;
+		}
+		
+		// Find where the loop starts: start the hare a loop ahead, then walk them together.
+		resetWalker(walkers, 0, enemies, index);
+		resetWalker(walkers, 1, enemies, index);
+		for (int i = 0; i < loopLength; i++) {
+			step(walkers, 1, clearElements);
+		}
+		int leadLength = 0;
+		while (!isSamePlace(walkers, 0, 1)) {
+			step(walkers, 0, clearElements);
+			step(walkers, 1, clearElements);
+			leadLength++;
+		}
+		
+		// Keep the turns before the loop and one lap of it.
+		resetWalker(walkers, 0, enemies, index);
+		ensureCapacity(pathLength + leadLength + loopLength);
+		pathStarts[index] = pathLength;
+		leadLengths[index] = leadLength;
+		loopLengths[index] = loopLength;
+		for (int i = 0; i < leadLength + loopLength; i++) {
+			pathCells[pathLength] = (walkers.getY(0) * levelWidth) + walkers.getX(0);
+			pathDirections[pathLength] = (byte) walkers.getDirection(0);
+			pathLength++;
+			step(walkers, 0, clearElements);
+		}
+	}
+	
+	/**
+	 * Moves a walker a turn, on the level without any other enemies.
+	 * @param walkers The walkers following an enemy.
+	 * @param walker The index of the walker to be moved.
+	 * @param clearElements The level, without any enemies on it.
+	 * @return False if a wall enemy made a random turn, otherwise true.
+	 */
+	private static boolean step(EnemyTable walkers, int walker, TileGrid clearElements) {
+		if (walkers.getType(walker) == EnemyType.STRAIGHT) {
+			StraightEnemy.move(walkers, walker, clearElements, walkers);
+			return true;
+		}
+		long randomSeed = walkers.getRandomSeed(walker);
+		WallEnemy.move(walkers, walker, clearElements, walkers);
+		return walkers.getRandomSeed(walker) == randomSeed;
+	}
+	
+	/**
+	 * Checks if two walkers are in the same place, going the same way.
+	 * @param walkers The walkers following an enemy.
+	 * @param first The index of the first walker.
+	 * @param second The index of the second walker.
+	 * @return True if they're the same, otherwise false.
+	 */
+	private static boolean isSamePlace(EnemyTable walkers, int first, int second) {
+		return walkers.getX(first) == walkers.getX(second) && walkers.getY(first) == walkers.getY(second)
+				&& walkers.getDirection(first) == walkers.getDirection(second);
+	}
+	
+	/**
+	 * Puts a walker back where the enemy starts.
+	 * @param walkers The walkers following an enemy.
+	 * @param walker The index of the walker.
+	 * @param enemies The enemies in the level, where they start.
+	 * @param index The index of the enemy.
+	 */
+	private static void resetWalker(EnemyTable walkers, int walker, EnemyTable enemies, int index) {
+		walkers.setLocation(walker, enemies.getX(index), enemies.getY(index));
+		walkers.setDirection(walker, enemies.getDirection(index));
+	}
+	
+	/**
+	 * Checks if nothing can get in the way of a compiled enemy: no cell on or next
+	 * to its path is on another compiled path or anywhere another enemy could go.
+	 * @param index The index of the enemy.
+	 * @param clearElements The level (only used for its size).
+	 * @param pathGrid Used to mark the cells of the enemy's path.
+	 * @return True if the enemy can't be blocked, otherwise false.
+	 */
+	private boolean isIndependent(int index, TileGrid clearElements, VisitedGrid pathGrid) {
+		markPath(index, pathGrid);
+		int pathEnd = pathStarts[index] + leadLengths[index] + loopLengths[index];
+		for (int step = pathStarts[index]; step < pathEnd; step++) {
+			int cellX = pathCells[step] % levelWidth;
+			int cellY = pathCells[step] / levelWidth;
+			for (int i = -1; i < X_CHANGES.length; i++) {
+				int nextX = cellX;
+				int nextY = cellY;
+				if (i >= 0) {
+					nextX = cellX + X_CHANGES[i];
+					nextY = cellY + Y_CHANGES[i];
+				}
+				if (clearElements.isInside(nextX, nextY)) {
+					int cell = (nextY * levelWidth) + nextX;
+					int numOwnPaths = pathGrid.isVisited(cell) ? 1 : 0;
+					if (isFree[cell] || numPaths[cell] > numOwnPaths) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Adds (or takes away) a compiled enemy's path from the count of paths covering each cell.
+	 * @param index The index of the enemy.
+	 * @param pathGrid Used to count each cell of the path once.
+	 * @param change 1 to add the path, -1 to take it away.
+	 */
+	private void countPath(int index, VisitedGrid pathGrid, int change) {
+		pathGrid.startSearch();
+		int pathEnd = pathStarts[index] + leadLengths[index] + loopLengths[index];
+		for (int step = pathStarts[index]; step < pathEnd; step++) {
+			if (!pathGrid.isVisited(pathCells[step])) {
+				pathGrid.markVisited(pathCells[step]);
+				numPaths[pathCells[step]] += change;
+			}
+		}
+	}
+	
+	/**
+	 * Marks the cells of a compiled enemy's path.
+	 * @param index The index of the enemy.
+	 * @param pathGrid Where the cells are marked (as visited by a new search).
+	 */
+	private void markPath(int index, VisitedGrid pathGrid) {
+		pathGrid.startSearch();
+		int pathEnd = pathStarts[index] + leadLengths[index] + loopLengths[index];
+		for (int step = pathStarts[index]; step < pathEnd; step++) {
+			pathGrid.markVisited(pathCells[step]);
+		}
+	}
+	
+	/**
+	 * Marks every cell an enemy could reach from where it starts (if nothing changes) as free.
+	 * Enemies don't block it, as they move.
+	 * @param clearElements The level (enemies on it are ignored).
+	 * @param startCell The cell id the enemy starts on.
+	 */
+	private void markReachable(TileGrid clearElements, int startCell) {
+		// A cell already reached was filled in along with everything it leads to.
+		if (isFree[startCell]) {
+			return;
+		}
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		isFree[startCell] = true;
+		queue.add(startCell);
+		while (!queue.isEmpty()) {
+			int cell = queue.poll();
+			int cellX = cell % levelWidth;
+			int cellY = cell / levelWidth;
+			for (int i = 0; i < X_CHANGES.length; i++) {
+				int nextX = cellX + X_CHANGES[i];
+				int nextY = cellY + Y_CHANGES[i];
+				int nextCell = (nextY * levelWidth) + nextX;
+				if (clearElements.isInside(nextX, nextY) && !isFree[nextCell]
+						&& (!clearElements.isSet(OccupancyLayer.ENEMY_BLOCKED, nextX, nextY)
+						|| clearElements.isSet(OccupancyLayer.ENEMIES, nextX, nextY))) {
+					isFree[nextCell] = true;
+					queue.add(nextCell);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Makes room in the path arrays.
+	 * @param capacity The number of steps that must fit.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > pathCells.length) {
+			int newCapacity = Math.max(capacity, pathCells.length * 2);
+			int[] newCells = new int[newCapacity];
+			byte[] newDirections = new byte[newCapacity];
+			System.arraycopy(pathCells, 0, newCells, 0, pathLength);
+			System.arraycopy(pathDirections, 0, newDirections, 0, pathLength);
+			pathCells = newCells;
+			pathDirections = newDirections;
+		}
+	}
+}
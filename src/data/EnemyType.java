@@ -0,0 +1,19 @@
+package data;
+
+/**
+ * An enum holding the different types of enemy. The names are the same as in the level files.
+ * @author William King
+ */
+public enum EnemyType {
+	/** Goes in a single direction and turns around when it hits something. */
+	STRAIGHT,
+	
+	/** Follows the wall, as if it had its hand on the wall at all times. */
+	WALL,
+	
+	/** Moves directly towards the player, without going around anything in the way. */
+	DUMB,
+	
+	/** Moves towards the player along the shortest path. */
+	SMART
+}
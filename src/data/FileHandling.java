@@ -1,14 +1,21 @@
 package data;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Scanner;
 
@@ -25,8 +32,18 @@ public class FileHandling {
 	private final static String LEVEL_FILE_PATH = "DataFiles/Levels/";
 	/** File location of the leaderboard times text files. */
 	private final static String TIME_FILE_PATH = "DataFiles/Level Times/";
+	/** File location of the recorded games. */
+	private final static String RECORDING_FILE_PATH = "DataFiles/Recordings/";
 	/** The number of levels in the game i.e. the highest level in the game. */
 	private final static int MAX_LEVEL = 5;
+	/** Written at the start of a recording file ("THRC"), to check it's a recording. */
+	private final static int RECORDING_MAGIC = 0x54485243;
+	/** The version of the recording file format. */
+	private final static int RECORDING_VERSION = 1;
+	
+	/** Each level that has been read in, as it is at the start. Accessed by the level number.
+	 * Kept so restarting or reloading a level doesn't read its files again. */
+	private static HashMap<Integer, LevelTemplate> levelTemplates = new HashMap<Integer, LevelTemplate>();
 	
 	/**
 	 * Saves the username of the currently logged in user to a text file.
@@ -173,11 +190,41 @@ public class FileHandling {
 	}
 	
 	/**
-	 * Fetches a single specified level from the game.
+	 * Fetches a single specified level from the game, as it is at the start.
 	 * @param levelNum Indicates which level to get as an integer.
 	 * @return The level the user specifies.
 	 */
 	public static Level getLevel(int levelNum) {
+		return getLevelTemplate(levelNum).createLevel();
+	}
+	
+	/**
+	 * Fetches the template of a level, only reading the level's files the first time
+	 * or if either file has been changed since it was read.
+	 * @param levelNum Indicates which level to get as an integer.
+	 * @return The level's template.
+	 */
+	public static LevelTemplate getLevelTemplate(int levelNum) {
+		// Checked before reading, so a change made while reading is picked up next time.
+		long levelFileTime = new File(LEVEL_FILE_PATH + "Level " + levelNum + ".txt").lastModified();
+		long baseFileTime = new File(LEVEL_FILE_PATH + "Base Level " + levelNum + ".txt").lastModified();
+		
+		LevelTemplate template = levelTemplates.get(levelNum);
+		if (template == null || template.getLevelFileTime() != levelFileTime
+				|| template.getBaseFileTime() != baseFileTime) {
+			template = readLevelTemplate(levelNum);
+			template.setFileTimes(levelFileTime, baseFileTime);
+			levelTemplates.put(levelNum, template);
+		}
+		return template;
+	}
+	
+	/**
+	 * Reads in a level and its level base from their files.
+	 * @param levelNum Indicates which level to read as an integer.
+	 * @return The level's template.
+	 */
+	private static LevelTemplate readLevelTemplate(int levelNum) {
 		String filePath = LEVEL_FILE_PATH + "Level " + levelNum + ".txt";
 		File inputFile = new File(filePath);
 		Scanner in = null;
@@ -199,90 +246,95 @@ public class FileHandling {
 		in.nextLine();
 		
 		// Then read the level elements.
-		String[][] levelElements = new String[levelHeight][levelWidth];
+		TileGrid levelElements = new TileGrid(levelWidth, levelHeight);
 		
 		for (int row = 0; row < levelHeight; row++) {
 			for (int col = 0; col < levelWidth; col++) {
 				String element = in.next();
-				levelElements[row][col] = element;
+				levelElements.set(col, row, TileType.fromCode(element.charAt(0)));
 			}
 			in.nextLine(); // Needed if you change delimiter.
 		}
 		
 		// Read miscellaneous game objects (that require more details).
-		Player player = null;
-		Door[][] doors = new Door[levelHeight][levelWidth];
-		Apparel[][] apparels = new Apparel[levelHeight][levelWidth];
-		Item[][] items = new Item[levelHeight][levelWidth];
-		Hazard[][] hazards = new Hazard[levelHeight][levelWidth];
-		Portal[][] portals = new Portal[levelHeight][levelWidth];
-		ArrayList<Enemy> alEnemies = new ArrayList<Enemy>(); // Will be converted to an array.
+		int startX = 0;
+		int startY = 0;
+		CellMap<Door> doors = new CellMap<Door>(levelWidth);
+		CellMap<Apparel> apparels = new CellMap<Apparel>(levelWidth);
+		CellMap<Item> items = new CellMap<Item>(levelWidth);
+		CellMap<Hazard> hazards = new CellMap<Hazard>(levelWidth);
+		CellMap<Portal> portals = new CellMap<Portal>(levelWidth);
+		EnemyTable enemies = new EnemyTable();
+		SearchMode searchMode = SearchMode.DISTANCE_FIELD;
+		SearchBudget searchBudget = new SearchBudget();
 		
 		while(in.hasNextLine()) {
 			String elementType = in.next();
 			switch(elementType) {
 				case "START":
 					// Read the player's start position.
-					int playerX = in.nextInt();
-					int playerY = in.nextInt();
-					// Construct the player.
-					player = new Player(playerX, playerY);
+					startX = in.nextInt();
+					startY = in.nextInt();
 					break;
 				case "APPAREL":
 					Apparel newApparel = readApparel(in.next());
 					int apparelX = newApparel.getX();
 					int apparelY = newApparel.getY();
-					apparels[apparelY][apparelX] = newApparel;
+					apparels.put(apparelX, apparelY, newApparel);
 					break;
 				case "ITEM":
 					Item newItem = readItem(in.next());
 					int itemX = newItem.getX();
 					int itemY = newItem.getY();
-					items[itemY][itemX] = newItem;
+					items.put(itemX, itemY, newItem);
 					break;
 				case "DOOR":
 					Door newDoor = readDoor(in.next());
 					int doorX = newDoor.getX();
 					int doorY = newDoor.getY();
-					doors[doorY][doorX] = newDoor;
+					doors.put(doorX, doorY, newDoor);
 					break;
 				case "HAZARD":
 					Hazard newHazard = readHazard(in.next());
 					int hazardX = newHazard.getX();
 					int hazardY = newHazard.getY();
-					hazards[hazardY][hazardX] = newHazard;
+					hazards.put(hazardX, hazardY, newHazard);
 					break;
 				case "PORTAL":
 					Portal newPortal = readPortal(in.next());
 					int portalX = newPortal.getX();
 					int portalY = newPortal.getY();
-					portals[portalY][portalX] = newPortal;
+					portals.put(portalX, portalY, newPortal);
 					break;
 				case "ENEMY":
-					Enemy newEnemy = readEnemy(in.next());
-					alEnemies.add(newEnemy);
+					readEnemy(in.next(), enemies);
+					break;
+				case "SEARCH":
+					// How the smart enemies search for the player.
+					searchMode = SearchMode.valueOf(in.next());
+					break;
+				case "BUDGET":
+					// How much path finding the smart enemies can do each turn.
+					searchBudget = readSearchBudget(in.next());
 					break;
 			}
 			in.nextLine();
 		}
 		in.close();
+		compilePortalExits(portals, levelElements, filePath);
 		
-		// Convert enemies array list to an array.
-		Enemy[] enemies = new Enemy[alEnemies.size()];
-		enemies = alEnemies.toArray(enemies);
-		
-		// Construct the level.
-		Level newLevel = new Level(levelElements, levelNum, player, doors, 
-				apparels, items, hazards, portals, enemies);
-		return newLevel;
+		// Construct the level's template.
+		TileGrid baseElements = readLevelBase(levelNum);
+		return new LevelTemplate(levelElements, baseElements, levelNum, startX, startY, 
+				doors, apparels, items, hazards, portals, enemies, searchMode, searchBudget);
 	}
 	
 	/**
 	 * Reads in the base of a specified level (only walls and goal elements).
 	 * @param levelNum The specified level as an integer.
-	 * @return A 2D array of level elements.
+	 * @return The grid of level elements.
 	 */
-	private static String[][] readLevelBase(int levelNum) {
+	private static TileGrid readLevelBase(int levelNum) {
 		// Read in the level text file (the level base).
 		String filePath = LEVEL_FILE_PATH + "Base Level " + levelNum + ".txt";
 		File inputFile = new File(filePath);
@@ -303,12 +355,12 @@ public class FileHandling {
 		int levelWidth = in.nextInt();
 		in.nextLine();
 		
-		String[][] levelElements = new String[levelHeight][levelWidth];
+		TileGrid levelElements = new TileGrid(levelWidth, levelHeight);
 		
 		for (int row = 0; row < levelHeight; row++) {
 			for (int col = 0; col < levelWidth; col++) {
 				String element = in.next();
-				levelElements[row][col] = element;
+				levelElements.set(col, row, TileType.fromCode(element.charAt(0)));
 			}
 			in.nextLine(); // Needed if you change delimiter.
 		}
@@ -607,17 +659,19 @@ public class FileHandling {
 			Player player = readPlayer(readState.next());
 			
 			// Fetch the level base.
-			String[][] levelElements = readLevelBase(levelNum);
-			int levelHeight = levelElements.length;
-			int levelWidth = levelElements[0].length;
+			LevelTemplate template = getLevelTemplate(levelNum);
+			TileGrid levelElements = template.copyBaseElements();
+			int levelWidth = levelElements.getWidth();
 			
 			// Read miscellaneous game objects (that require more details).
-			Door[][] doors = new Door[levelHeight][levelWidth];
-			Apparel[][] apparels = new Apparel[levelHeight][levelWidth];
-			Item[][] items = new Item[levelHeight][levelWidth];
-			Hazard[][] hazards = new Hazard[levelHeight][levelWidth];
-			Portal[][] portals = new Portal[levelHeight][levelWidth];
-			ArrayList<Enemy> alEnemies = new ArrayList<Enemy>(); // Will be converted to an array.
+			CellMap<Door> doors = new CellMap<Door>(levelWidth);
+			CellMap<Apparel> apparels = new CellMap<Apparel>(levelWidth);
+			CellMap<Item> items = new CellMap<Item>(levelWidth);
+			CellMap<Hazard> hazards = new CellMap<Hazard>(levelWidth);
+			CellMap<Portal> portals = new CellMap<Portal>(levelWidth);
+			EnemyTable enemies = new EnemyTable();
+			SearchMode searchMode = SearchMode.DISTANCE_FIELD;
+			SearchBudget searchBudget = new SearchBudget();
 			
 			// Read the elements of the level (from its current state).
 			while (readState.hasNext()) {
@@ -627,59 +681,65 @@ public class FileHandling {
 						Door newDoor = readDoor(readState.next());
 						int doorX = newDoor.getX();
 						int doorY = newDoor.getY();
-						doors[doorY][doorX] = newDoor;
-						levelElements[doorY][doorX] = "D";
+						doors.put(doorX, doorY, newDoor);
+						levelElements.set(doorX, doorY, TileType.DOOR);
 						break;
 					case "APPAREL":
 						Apparel newApparel = readApparel(readState.next());
 						int apparelX = newApparel.getX();
 						int apparelY = newApparel.getY();
-						apparels[apparelY][apparelX] = newApparel;
-						levelElements[apparelY][apparelX] = "A";
+						apparels.put(apparelX, apparelY, newApparel);
+						levelElements.set(apparelX, apparelY, TileType.APPAREL);
 						break;
 					case "ITEM":
 						Item newItem = readItem(readState.next());
 						int itemX = newItem.getX();
 						int itemY = newItem.getY();
-						items[itemY][itemX] = newItem;
-						levelElements[itemY][itemX] = "I";
+						items.put(itemX, itemY, newItem);
+						levelElements.set(itemX, itemY, TileType.ITEM);
 						break;
 					case "HAZARD":
 						Hazard newHazard = readHazard(readState.next());
 						int hazardX = newHazard.getX();
 						int hazardY = newHazard.getY();
-						hazards[hazardY][hazardX] = newHazard;
-						levelElements[hazardY][hazardX] = "H";
+						hazards.put(hazardX, hazardY, newHazard);
+						levelElements.set(hazardX, hazardY, TileType.HAZARD);
 						break;
 					case "PORTAL":
 						Portal newPortal = readPortal(readState.next());
 						int portalX = newPortal.getX();
 						int portalY = newPortal.getY();
-						portals[portalY][portalX] = newPortal;
-						levelElements[portalY][portalX] = "P";
+						portals.put(portalX, portalY, newPortal);
+						levelElements.set(portalX, portalY, TileType.PORTAL);
 						break;
 					case "ENEMY":
-						Enemy newEnemy = readEnemy(readState.next());
-						int enemyX = newEnemy.getX();
-						int enemyY = newEnemy.getY();
-						alEnemies.add(newEnemy);
-						levelElements[enemyY][enemyX] = "E";
+						int enemyIndex = readEnemy(readState.next(), enemies);
+						int enemyX = enemies.getX(enemyIndex);
+						int enemyY = enemies.getY(enemyIndex);
+						levelElements.set(enemyX, enemyY, TileType.ENEMY);
 						break;
 					case "TOKEN":
 						int tokenX = readState.nextInt();
 						int tokenY = readState.nextInt();
-						levelElements[tokenY][tokenX] = "T";
+						levelElements.set(tokenX, tokenY, TileType.TOKEN);
+						break;
+					case "SEARCH":
+						searchMode = SearchMode.valueOf(readState.next());
+						break;
+					case "BUDGET":
+						searchBudget = readSearchBudget(readState.next());
 						break;
 				}
 			}
 			
-			// Convert enemies array list to an array.
-			Enemy[] enemies = new Enemy[alEnemies.size()];
-			enemies = alEnemies.toArray(enemies);
+			compilePortalExits(portals, levelElements, filePath);
 			
 			// Construct the level.
 			Level newLevel = new Level(levelElements, levelNum, player, doors, 
 			apparels, items, hazards, portals, enemies);
+			newLevel.setSearchMode(searchMode);
+			newLevel.setSearchBudget(searchBudget);
+			template.prepareSearch(newLevel);
 			
 			// Construct the game state.
 			GameState newState = new GameState(username, description, currentLevelTime, 
@@ -857,6 +917,27 @@ public class FileHandling {
 		return newHazard;
 	}
 	
+	/**
+	 * Works out where the player leaves each portal's destination, so teleporting is a
+	 * single look up. Exits the program if a portal's destination is outside the level
+	 * or walled in, as the player could never leave it.
+	 * @param portals The portals in the level.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param filePath The path of the file the portals were read from.
+	 */
+	private static void compilePortalExits(CellMap<Portal> portals, TileGrid levelElements,
+			String filePath) {
+		for (int i = 0; i < portals.size(); i++) {
+			Portal portal = portals.getValue(i);
+			if (!portal.compileExits(levelElements)) {
+				System.out.println("Bad portal in " + filePath + ": the destination of the portal at "
+						+ portal.getX() + ":" + portal.getY() + " (" + portal.getDestX() + ":"
+						+ portal.getDestY() + ") is outside the level or walled in");
+				System.exit(-1);
+			}
+		}
+	}
+	
 	/**
 	 * Reads in and constructs a portal based on the string elements passed in.
 	 * @param strPortal A string holding the portal's details.
@@ -878,37 +959,45 @@ public class FileHandling {
 	}
 	
 	/**
-	 * Reads in and constructs an enemy based on the string elements passed in.
+	 * Reads in an enemy based on the string elements passed in, and adds it to the enemies.
 	 * @param strEnemy A string holding the enemy's details.
-	 * @return An enemy object.
+	 * @param enemies The enemies of the level being read.
+	 * @return The index of the enemy in the enemies.
 	 */
-	private static Enemy readEnemy(String strEnemy) {
+	private static int readEnemy(String strEnemy, EnemyTable enemies) {
 		// Scanner to read the enemy's details.
 		Scanner in = new Scanner(strEnemy);
 		in.useDelimiter(":");
 		
 		int enemyX = in.nextInt();
 		int enemyY = in.nextInt();
-		String eType = in.next();
-		String moveDirection = in.next();
-		in.close();
+		EnemyType enemyType = EnemyType.valueOf(in.next());
+		int moveDirection = Direction.fromString(in.next());
 		
-		Enemy newEnemy = null;
-		switch (eType) {
-			case "STRAIGHT":
-				newEnemy = new StraightEnemy(enemyX, enemyY, moveDirection);
-				break;
-			case "WALL":
-				newEnemy = new WallEnemy(enemyX, enemyY, moveDirection);
-				break;
-			case "DUMB":
-				newEnemy = new DumbEnemy(enemyX, enemyY, moveDirection);
-				break;
-			case "SMART":
-				newEnemy = new SmartEnemy(enemyX, enemyY, moveDirection);
-				break;
+		int enemyIndex = enemies.add(enemyType, enemyX, enemyY, moveDirection);
+		// A smart enemy can have its own search mode.
+		if (enemyType == EnemyType.SMART && in.hasNext()) {
+			enemies.getSmartEnemy(enemyIndex).setSearchMode(SearchMode.valueOf(in.next()));
 		}
-		return newEnemy;
+		in.close();
+		return enemyIndex;
+	}
+	
+	/**
+	 * Reads a search budget's details and creates it.
+	 * @param budgetDetail Holds the budget's unit and limit.
+	 * @return The search budget read in.
+	 */
+	private static SearchBudget readSearchBudget(String budgetDetail) {
+		// Scanner to read the budget's details.
+		Scanner in = new Scanner(budgetDetail);
+		in.useDelimiter(":");
+		
+		BudgetUnit unit = BudgetUnit.valueOf(in.next());
+		long limit = in.nextLong();
+		
+		in.close();
+		return new SearchBudget(unit, limit);
 	}
 	
 	/**
@@ -949,6 +1038,73 @@ public class FileHandling {
 		return itemsArray;
 	}
 	
+	/**
+	 * Saves a recorded game to its own file, named after the player and the time it was saved.
+	 * The file holds the level the game started on, the random seed, the hash of how the
+	 * game ended, then a byte for each input.
+	 * @param recording The recorded game.
+	 * @param username The username of the player.
+	 * @return The path of the file written.
+	 */
+	public static String saveRecording(InputRecording recording, String username) {
+		String filePath = RECORDING_FILE_PATH + username + " " + System.currentTimeMillis() + ".rec";
+		
+		try {
+			new File(RECORDING_FILE_PATH).mkdirs();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(filePath)));
+			out.writeInt(RECORDING_MAGIC);
+			out.writeByte(RECORDING_VERSION);
+			out.writeInt(recording.getLevelNumber());
+			out.writeLong(recording.getRandomSeed());
+			out.writeLong(recording.getFinalStateHash());
+			out.writeInt(recording.getNumInputs());
+			for (int i = 0; i < recording.getNumInputs(); i++) {
+				out.writeByte(recording.getInput(i).ordinal());
+			}
+			out.close();
+		} catch (IOException e) {
+			System.out.println("Cannot write to " + filePath);
+			System.exit(-1);
+		}
+		return filePath;
+	}
+	
+	/**
+	 * Reads a recorded game from its file.
+	 * @param filePath The path of the recording file.
+	 * @return The recorded game.
+	 */
+	public static InputRecording readRecording(String filePath) {
+		InputRecording recording = null;
+		
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(filePath)));
+			if (in.readInt() != RECORDING_MAGIC || in.readByte() != RECORDING_VERSION) {
+				in.close();
+				System.out.println(filePath + " is not a recording");
+				System.exit(-1);
+			}
+			int levelNumber = in.readInt();
+			long randomSeed = in.readLong();
+			long finalStateHash = in.readLong();
+			int numInputs = in.readInt();
+			
+			recording = new InputRecording(levelNumber, randomSeed);
+			for (int i = 0; i < numInputs; i++) {
+				recording.add(RecordedInput.fromCode(in.readUnsignedByte()));
+			}
+			recording.setFinalStateHash(finalStateHash);
+			in.close();
+		// Catch an exception if the file can't be read and exit the program.
+		} catch (IOException e) {
+			System.out.println("Cannot open " + filePath);
+			System.exit(-1);
+		}
+		return recording;
+	}
+	
 	/**
 	 * Deletes the specified save state from the text file.
 	 * @param strSaveState The save state to be deleted as a string.
@@ -0,0 +1,346 @@
+package data;
+
+import java.util.ArrayList;
+
+/**
+ * Plays a level one turn at a time, without needing a screen. It holds the rules
+ * of the game: moving the player, picking up items, opening doors, going through
+ * portals, moving the enemies and restarting the level when the player dies.
+ * Each turn gives back what happened, so the game screen (or anything else
+ * playing the game, e.g. a test) can choose what to show.
+ * @author William King
+ */
+public class GameEngine {
+	/** The level being played. */
+	private Level currentLevel;
+	
+	/** The number of the level being played. */
+	private int levelNum;
+	
+	/** The elements of the level being played. */
+	private TileGrid levelElements;
+	
+	/** The player in the level being played. */
+	private Player player;
+	
+	/** True if the player has reached the goal of the level. */
+	private boolean isLevelComplete;
+	
+	/** What happened during the last turn. Reused each turn. */
+	private ArrayList<GameEvent> events;
+	
+	/** Mixed into the wall enemies' random turns of each level played. 0 leaves them as they are. */
+	private long randomSeed;
+	
+	/**
+	 * Constructor for the GameEngine class.
+	 * @param level The level to be played.
+	 */
+	public GameEngine(Level level) {
+		this(level, 0);
+	}
+	
+	/**
+	 * Constructor for the GameEngine class, with a random seed for the game.
+	 * @param level The level to be played.
+	 * @param randomSeed Mixed into the wall enemies' random turns. 0 leaves them as they are.
+	 */
+	public GameEngine(Level level, long randomSeed) {
+		this.randomSeed = randomSeed;
+		events = new ArrayList<GameEvent>();
+		loadLevel(level);
+	}
+	
+	/**
+	 * Starts playing a level (a new one, or one from a saved game).
+	 * @param level The level to be played.
+	 */
+	public void loadLevel(Level level) {
+		currentLevel = level;
+		levelNum = level.getLevelNumber();
+		levelElements = level.getLevelElements();
+		player = level.getPlayer();
+		isLevelComplete = false;
+		level.getEnemies().mixRandomSeeds(randomSeed);
+	}
+	
+	/**
+	 * Plays a turn: the player makes a move, then the enemies move.
+	 * If the player dies, the level is restarted.
+	 * @param action The move the player makes.
+	 * @return What happened during the turn, in order. The list is reused by the next turn.
+	 */
+	public ArrayList<GameEvent> step(Action action) {
+		events.clear();
+		if (isLevelComplete) {
+			return events;
+		}
+		
+		int newX = player.getX() + action.getXChange();
+		int newY = player.getY() + action.getYChange();
+		if (!movePlayer(newX, newY, action)) {
+			return events;
+		}
+		
+		// Moves the enemies and check if the any of them
+		// have moved on the player's position.
+		currentLevel.getEnemyMover().moveEnemies(currentLevel, player);
+		if (player.isDead()) {
+			playerDied(GameEventType.KILLED_BY_ENEMY);
+		}
+		return events;
+	}
+	
+	/**
+	 * Restarts the level being played from a new copy of it.
+	 */
+	public void restartLevel() {
+		loadLevel(FileHandling.getLevel(levelNum));
+		addEvent(GameEventType.LEVEL_RESTARTED, levelNum);
+	}
+	
+	/**
+	 * Moves the player (if the move is valid) and carries out the action
+	 * depending on the element the player moves into.
+	 * @param newX The new x-coordinate.
+	 * @param newY The new y-coordinate.
+	 * @param action The move the player made.
+	 * @return True if the enemies move this turn, false if the player died or completed the level.
+	 */
+	private boolean movePlayer(int newX, int newY, Action action) {
+		// Fetches the element the player moves into.
+		TileType element = levelElements.get(newX, newY);
+		String[] equippedItems = player.getEquippedItems();
+		String apparelEquipped = equippedItems[0]; // For water/fire hazards.
+		String itemEquipped = equippedItems[1]; // For coloured doors.
+		switch (element) {
+			case WALL:
+				break;
+			case GOAL:
+				isLevelComplete = true;
+				addEvent(GameEventType.LEVEL_COMPLETED, levelNum);
+				return false;
+			// APPAREL.
+			case APPAREL:
+				Apparel apparel = currentLevel.getApparels().get(newX, newY);
+				switch (apparel.getType()) {
+					case FLIPPERS:
+						addEvent(GameEventType.FLIPPERS_PICKED_UP, 0);
+						player.addInventory("Flippers");
+						break;
+					case FIREBOOTS:
+						addEvent(GameEventType.FIRE_BOOTS_PICKED_UP, 0);
+						player.addInventory("Fire Boots");
+						break;
+				}
+				clearCell(newX, newY); // Make it disappear.
+				setPlayerLocation(newX, newY);
+				break;
+			// ITEMS.
+			case ITEM:
+				Item item = currentLevel.getItems().get(newX, newY);
+				switch (item.getType()) {
+					case YELLOWKEY:
+						addEvent(GameEventType.YELLOW_KEY_PICKED_UP, 0);
+						player.addInventory("Yellow Key");
+						break;
+					case ORANGEKEY:
+						addEvent(GameEventType.ORANGE_KEY_PICKED_UP, 0);
+						player.addInventory("Orange Key");
+						break;
+					case PURPLEKEY:
+						addEvent(GameEventType.PURPLE_KEY_PICKED_UP, 0);
+						player.addInventory("Purple Key");
+						break;
+				}
+				clearCell(newX, newY); // Make it disappear.
+				setPlayerLocation(newX, newY);
+				break;
+			// TOKENS.
+			case TOKEN:
+				addEvent(GameEventType.TOKEN_PICKED_UP, 0);
+				int newTokenCount = player.getNumTokens() + 1;
+				player.setNumTokens(newTokenCount);
+				addEvent(GameEventType.TOKENS_CHANGED, newTokenCount);
+				clearCell(newX, newY);
+				setPlayerLocation(newX, newY);
+				break;
+			// DOOR
+			case DOOR:
+				openDoor(currentLevel.getDoors().get(newX, newY), itemEquipped);
+				break;
+			// HAZARDS.
+			case HAZARD:
+				Hazard hazard = currentLevel.getHazards().get(newX, newY);
+				switch (hazard.getType()) {
+					case WATER:
+						if (!apparelEquipped.equals("Flippers")) {
+							playerDied(GameEventType.DROWNED);
+							return false;
+						}
+						break;
+					case FIRE:
+						if (!apparelEquipped.equals("Fire Boots")) {
+							playerDied(GameEventType.BURNED);
+							return false;
+						}
+						break;
+				}
+				setPlayerLocation(newX, newY);
+				break;
+			case PORTAL:
+				addEvent(GameEventType.PORTAL_USED, 0);
+				Portal portal = currentLevel.getPortals().get(newX, newY);
+				portal.movePlayer(levelElements, player, action.getDirection());
+				// If the player teleported into an enemy.
+				if (player.isDead()) {
+					playerDied(GameEventType.KILLED_BY_PORTAL);
+					return false;
+				}
+				break;
+			// If the player moves into an enemy.
+			case ENEMY:
+				playerDied(GameEventType.KILLED_BY_ENEMY);
+				return false;
+			default:
+				setPlayerLocation(newX, newY);
+		}
+		return true;
+	}
+	
+	/**
+	 * Opens a door if the player has the key equipped or enough tokens.
+	 * The player stays where they are either way.
+	 * @param door The door the player walked into.
+	 * @param itemEquipped The item the player has equipped.
+	 */
+	private void openDoor(Door door, String itemEquipped) {
+		String keyNeeded = null;
+		switch (door.getType()) {
+			case YELLOW:
+				keyNeeded = "Yellow Key";
+				break;
+			case ORANGE:
+				keyNeeded = "Orange Key";
+				break;
+			case PURPLE:
+				keyNeeded = "Purple Key";
+				break;
+			case TOKEN:
+				int doorCost = door.getNumTokens();
+				int currentTokens = player.getNumTokens();
+				// Checks if the player has enough tokens.
+				if (currentTokens >= doorCost) {
+					int newTokens = currentTokens - doorCost;
+					player.setNumTokens(newTokens);
+					clearCell(door.getX(), door.getY());
+					addEvent(GameEventType.DOOR_OPENED, 0);
+					addEvent(GameEventType.TOKENS_CHANGED, newTokens);
+				} else {
+					addEvent(GameEventType.TOKEN_DOOR_LOCKED, doorCost);
+				}
+				return;
+		}
+		
+		if (itemEquipped.equals(keyNeeded)) {
+			player.useItem(itemEquipped);
+			clearCell(door.getX(), door.getY());
+			addEvent(GameEventType.DOOR_OPENED, 0);
+		} else {
+			addEvent(GameEventType.COLOUR_DOOR_LOCKED, 0);
+		}
+	}
+	
+	/**
+	 * Records the player's death and restarts the level, dropping the changes made.
+	 * @param cause What killed the player.
+	 */
+	private void playerDied(GameEventType cause) {
+		addEvent(cause, 0);
+		restartLevel();
+	}
+	
+	/**
+	 * Removes an object from a cell (it's been picked up or opened).
+	 * @param cellX The x-coordinate of the cell.
+	 * @param cellY The y-coordinate of the cell.
+	 */
+	private void clearCell(int cellX, int cellY) {
+		levelElements.set(cellX, cellY, TileType.FLOOR);
+		currentLevel.markChanged(cellX, cellY);
+	}
+	
+	/**
+	 * Moves the player to a cell.
+	 * @param newX The new x-coordinate.
+	 * @param newY The new y-coordinate.
+	 */
+	private void setPlayerLocation(int newX, int newY) {
+		player.setX(newX);
+		player.setY(newY);
+	}
+	
+	/**
+	 * Records something that happened this turn.
+	 * @param type What happened.
+	 * @param value A number that goes with the event, or 0 if it doesn't need one.
+	 */
+	private void addEvent(GameEventType type, int value) {
+		events.add(new GameEvent(type, value));
+	}
+	
+	/**
+	 * Gets the level being played.
+	 * @return The current level.
+	 */
+	public Level getLevel() {
+		return currentLevel;
+	}
+	
+	/**
+	 * Gets the player in the level being played.
+	 * @return The player.
+	 */
+	public Player getPlayer() {
+		return player;
+	}
+	
+	/**
+	 * Gets the number of the level being played.
+	 * @return The level number.
+	 */
+	public int getLevelNumber() {
+		return levelNum;
+	}
+	
+	/**
+	 * Checks if the player has reached the goal of the level.
+	 * @return True if the level is complete, otherwise false.
+	 */
+	public boolean isLevelComplete() {
+		return isLevelComplete;
+	}
+	
+	/**
+	 * Gets the random seed of the game.
+	 * @return The seed mixed into the wall enemies' random turns.
+	 */
+	public long getRandomSeed() {
+		return randomSeed;
+	}
+	
+	/**
+	 * Gets a hash of the state of the game (the level being played, as it would be saved).
+	 * Used to check that a replay of a recorded game ends the same way.
+	 * @return A 64-bit hash of the state.
+	 */
+	public long getStateHash() {
+		// FNV-1a, over the characters of the saved level.
+		String strLevel = currentLevel.toStringDetail();
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < strLevel.length(); i++) {
+			hash = (hash ^ strLevel.charAt(i)) * 0x100000001b3L;
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,40 @@
+package data;
+
+/**
+ * Models something that happened during a turn of the game, e.g. an item was
+ * picked up or the player died. Used to tell the screen what to show.
+ * @author William King
+ */
+public class GameEvent {
+	/** Specifies what happened. */
+	private GameEventType type;
+	
+	/** A number that goes with the event (e.g. the new token count), or 0 if it doesn't need one. */
+	private int value;
+	
+	/**
+	 * Constructor for the GameEvent class.
+	 * @param type What happened.
+	 * @param value A number that goes with the event, or 0 if it doesn't need one.
+	 */
+	public GameEvent(GameEventType type, int value) {
+		this.type = type;
+		this.value = value;
+	}
+	
+	/**
+	 * Gets what happened.
+	 * @return The event type as an enum.
+	 */
+	public GameEventType getType() {
+		return type;
+	}
+	
+	/**
+	 * Gets the number that goes with the event.
+	 * @return The value as an integer.
+	 */
+	public int getValue() {
+		return value;
+	}
+}
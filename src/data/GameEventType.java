@@ -0,0 +1,58 @@
+package data;
+
+/**
+ * An enum holding the things that can happen during a turn of the game.
+ * @author William King
+ */
+public enum GameEventType {
+	/** The player picked up a pair of flippers. */
+	FLIPPERS_PICKED_UP,
+	
+	/** The player picked up a pair of fire boots. */
+	FIRE_BOOTS_PICKED_UP,
+	
+	/** The player picked up a yellow key. */
+	YELLOW_KEY_PICKED_UP,
+	
+	/** The player picked up an orange key. */
+	ORANGE_KEY_PICKED_UP,
+	
+	/** The player picked up a purple key. */
+	PURPLE_KEY_PICKED_UP,
+	
+	/** The player picked up a token. */
+	TOKEN_PICKED_UP,
+	
+	/** The player's token count has changed. The value is the new count. */
+	TOKENS_CHANGED,
+	
+	/** The player opened a door. */
+	DOOR_OPENED,
+	
+	/** The player walked into a coloured door without the key equipped. */
+	COLOUR_DOOR_LOCKED,
+	
+	/** The player walked into a token door without enough tokens. The value is the tokens required. */
+	TOKEN_DOOR_LOCKED,
+	
+	/** The player went through a portal. */
+	PORTAL_USED,
+	
+	/** The player walked into water without flippers and died. */
+	DROWNED,
+	
+	/** The player walked into fire without fire boots and died. */
+	BURNED,
+	
+	/** The player walked into an enemy, or an enemy moved onto the player, and died. */
+	KILLED_BY_ENEMY,
+	
+	/** The player came out of a portal onto an enemy and died. */
+	KILLED_BY_PORTAL,
+	
+	/** The level was restarted (after the player died). */
+	LEVEL_RESTARTED,
+	
+	/** The player reached the goal. */
+	LEVEL_COMPLETED
+}
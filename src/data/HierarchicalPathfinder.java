@@ -0,0 +1,726 @@
+package data;
+
+import java.util.ArrayList;
+
+/**
+ * Finds a path between two cells using Hierarchical Path Finding (HPA*).
+ * The level is cut into square clusters. Where two clusters touch and both
+ * sides are clear, entrance cells are placed, and the distances between the
+ * entrances of each cluster are worked out once when the level is loaded.
+ * A search then only runs over the entrances, plus a small search inside the
+ * start and goal clusters, so it stays cheap on very large levels.
+ * When a cell changes (an item is picked up or a door is opened), only the
+ * clusters around it are worked out again.
+ * The clusters are worked out once for a level's template, and each play gets a
+ * copy that shares them until one of its cells changes.
+ * The searches inside clusters (for the start and goal, and to rebuild the clusters
+ * around a change) spend the search budget as well as the search over the entrances.
+ * If the budget runs out while rebuilding, the rebuild carries on from where it
+ * stopped next turn, and no path is found until it's done.
+ * The path found is close to, but not always exactly, the shortest one.
+ * @author William King
+ */
+public class HierarchicalPathfinder extends Pathfinder {
+	/** The height and width of each cluster in cells. */
+	public final static int CLUSTER_SIZE = 10;
+	/** Runs of clear border cells at least this long get an entrance at each end. */
+	private final static int LONG_ENTRANCE = 6;
+	/** The distance between two cells that can't reach each other. */
+	private final static int INFINITY = Integer.MAX_VALUE / 2;
+	/** Flags marking a cell as an entrance to the cell on its right, left, above or below. */
+	private final static int[] DIRECTION_FLAGS = {1, 2, 4, 8};
+	/** The most clusters rebuilt for a change: its own and the four next to it. */
+	private final static int MAX_REBUILD_CLUSTERS = 5;
+	
+	/** The enemy whose blocking rules were used to build the clusters. */
+	private Enemy mover;
+	
+	/** An array holding all the elements in the level. */
+	private TileGrid levelElements;
+	
+	/** The cells (as ids) that have changed since the level was loaded. */
+	private ArrayList<Integer> changedCells;
+	
+	/** The number of level changes that have already been handled. */
+	private int changesSeen;
+	
+	/** The number of clusters across the level. */
+	private int clustersWide;
+	
+	/** The number of clusters down the level. */
+	private int clustersHigh;
+	
+	/** Offsets of the right, left, front and back cells. */
+	private int[] neighbourOffsets;
+	
+	/** Which of its neighbours each cell is an entrance to (as direction flags). */
+	private byte[] entranceFlags;
+	
+	/** The entrance cells of each cluster. */
+	private int[][] clusterEntrances;
+	
+	/** The distances between the entrances of each cluster, inside that cluster. */
+	private int[][][] clusterDistances;
+	
+	/** The index of each entrance cell in its cluster's list of entrances. */
+	private int[] entranceIndexes;
+	
+	/** The distance from each cell in a cluster to a cell, found by a search inside the cluster. */
+	private int[] localDistances;
+	
+	/** The cells waiting to be expanded by a search inside a cluster. */
+	private int[] localQueue;
+	
+	/** The position of the next cell to be expanded in the local queue. */
+	private int localHead;
+	
+	/** The position after the last cell in the local queue. Equal to the head once a search is done. */
+	private int localTail;
+	
+	/** The cluster being searched inside. */
+	private int localCluster;
+	
+	/** The goal of the search inside the cluster (always treated as clear), or -1 if there isn't one. */
+	private int localGoalCell;
+	
+	/** The clusters around the change being rebuilt. */
+	private int[] rebuildClusters;
+	
+	/** The number of clusters around the change being rebuilt. */
+	private int numRebuildClusters;
+	
+	/** The number of clusters around the change that have been rebuilt. */
+	private int rebuildClusterIndex;
+	
+	/** The number of entrances linked in the cluster being rebuilt, or -1 if they haven't been collected. */
+	private int rebuildEntrance;
+	
+	/** The distance from each goal cluster entrance to the goal. Large enough for any cluster. */
+	private int[] goalDistances;
+	
+	/** True if the entrances and clusters may be shared with a copy, so must be copied before changing. */
+	private boolean isShared;
+	
+	/**
+	 * Constructor for the HierarchicalPathfinder class. Builds the clusters straight away.
+	 * @param mover The enemy whose blocking rules decide which cells are clear.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param changedCells The cells that have changed since the level was loaded.
+	 * @param visitedGrid Keeps track of the cells reached by each search.
+	 */
+	public HierarchicalPathfinder(Enemy mover, TileGrid levelElements,
+			ArrayList<Integer> changedCells, VisitedGrid visitedGrid) {
+		super(levelElements.getWidth(), levelElements.getHeight(), visitedGrid);
+		this.mover = mover;
+		this.levelElements = levelElements;
+		this.changedCells = changedCells;
+		changesSeen = changedCells.size();
+		
+		clustersWide = (levelWidth + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+		clustersHigh = (levelHeight + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+		int numClusters = clustersWide * clustersHigh;
+		
+		neighbourOffsets = new int[] {1, -1, -levelWidth, levelWidth};
+		entranceFlags = new byte[levelWidth * levelHeight];
+		entranceIndexes = new int[levelWidth * levelHeight];
+		clusterEntrances = new int[numClusters][];
+		clusterDistances = new int[numClusters][][];
+		localDistances = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+		localQueue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+		goalDistances = new int[4 * CLUSTER_SIZE];
+		rebuildClusters = new int[MAX_REBUILD_CLUSTERS];
+		rebuildEntrance = -1;
+		
+		// Place the entrances between every pair of clusters, then link up each cluster.
+		for (int cluster = 0; cluster < numClusters; cluster++) {
+			buildEntrances(cluster, 0);
+			buildEntrances(cluster, 3);
+		}
+		for (int cluster = 0; cluster < numClusters; cluster++) {
+			buildCluster(cluster);
+		}
+	}
+	
+	/**
+	 * Constructor for a copy of a HierarchicalPathfinder, which shares its entrances
+	 * and clusters until one of them is rebuilt.
+	 * @param original The path finder to be copied.
+	 * @param levelElements An array holding all the elements in the copy's level.
+	 * @param changedCells The cells that have changed since the copy's level was loaded.
+	 * @param visitedGrid Keeps track of the cells reached by each search.
+	 */
+	private HierarchicalPathfinder(HierarchicalPathfinder original, TileGrid levelElements,
+			ArrayList<Integer> changedCells, VisitedGrid visitedGrid) {
+		super(original.levelWidth, original.levelHeight, visitedGrid);
+		mover = original.mover;
+		this.levelElements = levelElements;
+		this.changedCells = changedCells;
+		changesSeen = changedCells.size();
+		clustersWide = original.clustersWide;
+		clustersHigh = original.clustersHigh;
+		neighbourOffsets = original.neighbourOffsets;
+		entranceFlags = original.entranceFlags;
+		entranceIndexes = original.entranceIndexes;
+		clusterEntrances = original.clusterEntrances;
+		clusterDistances = original.clusterDistances;
+		localDistances = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+		localQueue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+		goalDistances = new int[4 * CLUSTER_SIZE];
+		rebuildClusters = new int[MAX_REBUILD_CLUSTERS];
+		rebuildEntrance = -1;
+		isShared = true;
+	}
+	
+	/**
+	 * Makes a copy of the path finder for another play of the same level. The entrances
+	 * and clusters are only copied once either path finder rebuilds them. Clusters around
+	 * cells that differ between the two levels (e.g. items picked up in a saved game)
+	 * are rebuilt straight away.
+	 * @param levelElements An array holding all the elements in the copy's level.
+	 * @param changedCells The cells that have changed since the copy's level was loaded.
+	 * @param visitedGrid Keeps track of the cells reached by each search.
+	 * @return The copy of the path finder.
+	 */
+	public HierarchicalPathfinder copy(TileGrid levelElements, ArrayList<Integer> changedCells,
+			VisitedGrid visitedGrid) {
+		isShared = true;
+		HierarchicalPathfinder copy = new HierarchicalPathfinder(this, levelElements,
+				changedCells, visitedGrid);
+		copy.rebuildDifferences(this.levelElements);
+		return copy;
+	}
+	
+	/**
+	 * Finds the first step of a path from the start to the goal.
+	 * @param mover The enemy that the path is for (decides which cells block its step).
+	 * @param currentElements An array holding all the elements in the level (the same
+	 * one the clusters are kept for).
+	 * @param startX The x-coordinate of the start cell.
+	 * @param startY The y-coordinate of the start cell.
+	 * @param goalX The x-coordinate of the goal cell.
+	 * @param goalY The y-coordinate of the goal cell.
+	 * @return The cell id of the next move, or NO_PATH if the goal is unreachable
+	 * (or the budget ran out first).
+	 */
+	@Override
+	public int findNextStep(Enemy mover, TileGrid currentElements,
+			int startX, int startY, int goalX, int goalY) {
+		int startCell = (startY * levelWidth) + startX;
+		int goalCell = (goalY * levelWidth) + goalX;
+		if (startCell == goalCell || !updateChangedClusters()) {
+			return NO_PATH;
+		}
+		
+		int startCluster = getCluster(startCell);
+		int goalCluster = getCluster(goalCell);
+		
+		startSearch();
+		expansions = 0;
+		visitedGrid.markVisited(startCell);
+		costs[startCell] = 0;
+		ancestors[startCell] = UNSET;
+		
+		// Link the goal to the entrances of its cluster.
+		int[] goalEntrances = clusterEntrances[goalCluster];
+		if (!searchCluster(goalCell, goalCluster, goalCell)) {
+			return NO_PATH;
+		}
+		for (int i = 0; i < goalEntrances.length; i++) {
+			goalDistances[i] = getLocalDistance(goalEntrances[i], goalCluster);
+		}
+		
+		// Link the start to the entrances of its cluster (and the goal, if it's in there too).
+		if (!searchCluster(startCell, startCluster, goalCell)) {
+			return NO_PATH;
+		}
+		for (int entranceCell : clusterEntrances[startCluster]) {
+			relax(startCell, entranceCell, getLocalDistance(entranceCell, startCluster), goalCell);
+		}
+		if (startCluster == goalCluster) {
+			relax(startCell, goalCell, getLocalDistance(goalCell, startCluster), goalCell);
+		}
+		relaxAcrossEdges(startCell, goalCell);
+		
+		// Search over the entrances.
+		while (!openList.isEmpty() && budget.spend()) {
+			int currentCell = openList.removeMin();
+			expansions++;
+			if (currentCell == goalCell) {
+				int waypoint = goalCell;
+				while (ancestors[waypoint] != startCell) {
+					waypoint = ancestors[waypoint];
+				}
+				return getLocalStep(startCell, startCluster, waypoint, goalCell, mover);
+			}
+			
+			int cluster = getCluster(currentCell);
+			int index = entranceIndexes[currentCell];
+			int[] entrances = clusterEntrances[cluster];
+			
+			// Entrances of the same cluster.
+			for (int i = 0; i < entrances.length; i++) {
+				relax(currentCell, entrances[i], clusterDistances[cluster][index][i], goalCell);
+			}
+			relaxAcrossEdges(currentCell, goalCell);
+			// The goal itself.
+			if (cluster == goalCluster) {
+				relax(currentCell, goalCell, goalDistances[index], goalCell);
+			}
+		}
+		return NO_PATH;
+	}
+	
+	/**
+	 * Tries to improve the cost of a cell through another cell.
+	 * @param fromCell The cell id the move is made from.
+	 * @param toCell The cell id the move is made to.
+	 * @param distance The distance between the two cells.
+	 * @param goalCell The cell id of the goal.
+	 */
+	private void relax(int fromCell, int toCell, int distance, int goalCell) {
+		if (distance >= INFINITY || toCell == fromCell) {
+			return;
+		}
+		int newCost = costs[fromCell] + distance;
+		if (visitedGrid.isVisited(toCell) && costs[toCell] <= newCost) {
+			return;
+		}
+		visitedGrid.markVisited(toCell);
+		costs[toCell] = newCost;
+		ancestors[toCell] = fromCell;
+		int score = newCost + getHeuristic(toCell, goalCell);
+		openList.addOrDecrease(toCell, score);
+	}
+	
+	/**
+	 * Tries to improve the cost of the entrances on the other side of a cluster's edge.
+	 * @param cell The cell id the move is made from.
+	 * @param goalCell The cell id of the goal.
+	 */
+	private void relaxAcrossEdges(int cell, int goalCell) {
+		for (int d = 0; d < neighbourOffsets.length; d++) {
+			if ((entranceFlags[cell] & DIRECTION_FLAGS[d]) != 0) {
+				relax(cell, cell + neighbourOffsets[d], 1, goalCell);
+			}
+		}
+	}
+	
+	/**
+	 * Works out the actual step towards the first waypoint, searching only inside
+	 * the start cluster.
+	 * @param startCell The cell id of the start.
+	 * @param startCluster The cluster the start is in.
+	 * @param waypoint The first entrance (or the goal) on the path.
+	 * @param goalCell The cell id of the goal.
+	 * @param mover The enemy moving (decides which cells block its step).
+	 * @return The cell id of the next move, or NO_PATH if the way is blocked
+	 * (or the budget ran out first).
+	 */
+	private int getLocalStep(int startCell, int startCluster, int waypoint, int goalCell, Enemy mover) {
+		// The waypoint may be just over the edge of the cluster.
+		if (getCluster(waypoint) != startCluster) {
+			return mover.isBlocked(levelElements, waypoint) ? NO_PATH : waypoint;
+		}
+		if (!searchCluster(waypoint, startCluster, goalCell)) {
+			return NO_PATH;
+		}
+		int nextCell = NO_PATH;
+		int nextDistance = INFINITY;
+		for (int offset : neighbourOffsets) {
+			int neighbourCell = startCell + offset;
+			if (getCluster(neighbourCell) != startCluster) {
+				continue;
+			}
+			int distance = getLocalDistance(neighbourCell, startCluster);
+			if (distance < nextDistance && !mover.isBlocked(levelElements, neighbourCell)) {
+				nextCell = neighbourCell;
+				nextDistance = distance;
+			}
+		}
+		return nextCell;
+	}
+	
+	/**
+	 * Searches outwards from a cell without leaving its cluster. The results are
+	 * read with getLocalDistance.
+	 * @param fromCell The cell id to search from.
+	 * @param cluster The cluster to search inside.
+	 * @param goalCell The cell id of the goal (always treated as clear).
+	 * @return True if the search finished, false if the budget ran out first.
+	 */
+	private boolean searchCluster(int fromCell, int cluster, int goalCell) {
+		startClusterSearch(fromCell, cluster, goalCell);
+		if (!continueClusterSearch()) {
+			// Drop the unfinished search, so a rebuild doesn't carry it on as its own.
+			localHead = localTail;
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Starts a search outwards from a cell without leaving its cluster.
+	 * @param fromCell The cell id to search from.
+	 * @param cluster The cluster to search inside.
+	 * @param goalCell The cell id of the goal (always treated as clear), or -1 if there isn't one.
+	 */
+	private void startClusterSearch(int fromCell, int cluster, int goalCell) {
+		for (int i = 0; i < localDistances.length; i++) {
+			localDistances[i] = INFINITY;
+		}
+		localDistances[getLocalIndex(fromCell, cluster)] = 0;
+		localQueue[0] = fromCell;
+		localHead = 0;
+		localTail = 1;
+		localCluster = cluster;
+		localGoalCell = goalCell;
+	}
+	
+	/**
+	 * Carries on the search inside a cluster until it's done, or the budget runs out.
+	 * @return True if the search finished, false if the budget ran out first.
+	 */
+	private boolean continueClusterSearch() {
+		while (localHead < localTail) {
+			if (!budget.spend()) {
+				return false;
+			}
+			int currentCell = localQueue[localHead];
+			localHead++;
+			expansions++;
+			int newDistance = localDistances[getLocalIndex(currentCell, localCluster)] + 1;
+			for (int offset : neighbourOffsets) {
+				int neighbourCell = currentCell + offset;
+				if (!isInCluster(currentCell, offset, localCluster)) {
+					continue;
+				}
+				int localIndex = getLocalIndex(neighbourCell, localCluster);
+				if (localDistances[localIndex] != INFINITY) {
+					continue;
+				}
+				if (neighbourCell != localGoalCell && !isClear(neighbourCell)) {
+					continue;
+				}
+				localDistances[localIndex] = newDistance;
+				localQueue[localTail] = neighbourCell;
+				localTail++;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Places the entrances along one edge of a cluster, replacing any that were there.
+	 * @param cluster The cluster.
+	 * @param direction The edge: 0 for the right edge, 3 for the bottom edge.
+	 */
+	private void buildEntrances(int cluster, int direction) {
+		int clusterX = (cluster % clustersWide) * CLUSTER_SIZE;
+		int clusterY = (cluster / clustersWide) * CLUSTER_SIZE;
+		boolean isRightEdge = direction == 0;
+		
+		// The edge must have a cluster on the other side.
+		int edgeX = isRightEdge ? clusterX + CLUSTER_SIZE - 1 : clusterX;
+		int edgeY = isRightEdge ? clusterY : clusterY + CLUSTER_SIZE - 1;
+		if ((isRightEdge && edgeX + 1 >= levelWidth) || (!isRightEdge && edgeY + 1 >= levelHeight)) {
+			return;
+		}
+		int edgeLength = isRightEdge ? Math.min(CLUSTER_SIZE, levelHeight - clusterY)
+				: Math.min(CLUSTER_SIZE, levelWidth - clusterX);
+		int step = isRightEdge ? levelWidth : 1;
+		int offset = neighbourOffsets[direction];
+		int oppositeFlag = DIRECTION_FLAGS[isRightEdge ? 1 : 2];
+		int firstCell = (edgeY * levelWidth) + edgeX;
+		
+		// Clear the old entrances on this edge.
+		for (int i = 0; i < edgeLength; i++) {
+			int cell = firstCell + (i * step);
+			entranceFlags[cell] &= ~DIRECTION_FLAGS[direction];
+			entranceFlags[cell + offset] &= ~oppositeFlag;
+		}
+		
+		// Find each run of cells that are clear on both sides.
+		int runStart = -1;
+		for (int i = 0; i <= edgeLength; i++) {
+			int cell = firstCell + (i * step);
+			boolean isOpen = i < edgeLength && isClear(cell) && isClear(cell + offset);
+			if (isOpen && runStart == -1) {
+				runStart = i;
+			} else if (!isOpen && runStart != -1) {
+				int runEnd = i - 1;
+				if (runEnd - runStart + 1 >= LONG_ENTRANCE) {
+					addEntrance(firstCell + (runStart * step), direction, offset, oppositeFlag);
+					addEntrance(firstCell + (runEnd * step), direction, offset, oppositeFlag);
+				} else {
+					int middle = (runStart + runEnd) / 2;
+					addEntrance(firstCell + (middle * step), direction, offset, oppositeFlag);
+				}
+				runStart = -1;
+			}
+		}
+	}
+	
+	/**
+	 * Marks a pair of cells on either side of a cluster edge as entrances to each other.
+	 * @param cell The cell id on this side of the edge.
+	 * @param direction The direction of the edge (index into the direction flags).
+	 * @param offset The cell id offset to the other side.
+	 * @param oppositeFlag The flag for the way back.
+	 */
+	private void addEntrance(int cell, int direction, int offset, int oppositeFlag) {
+		entranceFlags[cell] |= DIRECTION_FLAGS[direction];
+		entranceFlags[cell + offset] |= oppositeFlag;
+	}
+	
+	/**
+	 * Collects the entrances of a cluster and works out the distances between them.
+	 * Only used while loading, when the budget can't run out.
+	 * @param cluster The cluster to be built.
+	 */
+	private void buildCluster(int cluster) {
+		collectEntrances(cluster);
+		rebuildEntrance = 0;
+		linkEntrances(cluster);
+		rebuildEntrance = -1;
+	}
+	
+	/**
+	 * Collects the entrances of a cluster, ready for the distances between them to be worked out.
+	 * @param cluster The cluster to be built.
+	 */
+	private void collectEntrances(int cluster) {
+		int clusterX = (cluster % clustersWide) * CLUSTER_SIZE;
+		int clusterY = (cluster / clustersWide) * CLUSTER_SIZE;
+		int maxX = Math.min(clusterX + CLUSTER_SIZE, levelWidth);
+		int maxY = Math.min(clusterY + CLUSTER_SIZE, levelHeight);
+		
+		// Entrances are always on the edge of the cluster.
+		ArrayList<Integer> entrances = new ArrayList<Integer>();
+		for (int row = clusterY; row < maxY; row++) {
+			for (int col = clusterX; col < maxX; col++) {
+				boolean isEdge = row == clusterY || row == maxY - 1 || col == clusterX || col == maxX - 1;
+				int cell = (row * levelWidth) + col;
+				if (isEdge && entranceFlags[cell] != 0) {
+					entranceIndexes[cell] = entrances.size();
+					entrances.add(cell);
+				}
+			}
+		}
+		
+		int numEntrances = entrances.size();
+		clusterEntrances[cluster] = new int[numEntrances];
+		clusterDistances[cluster] = new int[numEntrances][numEntrances];
+		for (int i = 0; i < numEntrances; i++) {
+			clusterEntrances[cluster][i] = entrances.get(i);
+		}
+	}
+	
+	/**
+	 * Works out the distances between the entrances of a cluster, carrying on from
+	 * the entrance (and the search) where the budget last ran out.
+	 * @param cluster The cluster being built.
+	 * @return True if every entrance is linked, false if the budget ran out first.
+	 */
+	private boolean linkEntrances(int cluster) {
+		int[] entrances = clusterEntrances[cluster];
+		while (rebuildEntrance < entrances.length) {
+			// Carry on with the search left unfinished last turn, if there is one.
+			if (localHead == localTail) {
+				startClusterSearch(entrances[rebuildEntrance], cluster, -1);
+			}
+			if (!continueClusterSearch()) {
+				return false;
+			}
+			for (int j = 0; j < entrances.length; j++) {
+				clusterDistances[cluster][rebuildEntrance][j] = getLocalDistance(entrances[j], cluster);
+			}
+			rebuildEntrance++;
+		}
+		return true;
+	}
+	
+	/**
+	 * Rebuilds the clusters around any cells that have changed since the last search,
+	 * carrying on from where the budget last ran out.
+	 * @return True if every cluster is up to date, false if the budget ran out first.
+	 */
+	private boolean updateChangedClusters() {
+		while (true) {
+			if (rebuildClusterIndex == numRebuildClusters) {
+				if (changesSeen == changedCells.size()) {
+					return true;
+				}
+				startRebuild(changedCells.get(changesSeen));
+				changesSeen++;
+			}
+			
+			int cluster = rebuildClusters[rebuildClusterIndex];
+			if (rebuildEntrance == -1) {
+				collectEntrances(cluster);
+				rebuildEntrance = 0;
+			}
+			if (!linkEntrances(cluster)) {
+				return false;
+			}
+			rebuildEntrance = -1;
+			rebuildClusterIndex++;
+		}
+	}
+	
+	/**
+	 * Rebuilds the clusters around every cell whose clearness differs from another
+	 * level's, comparing 64 cells at a time.
+	 * @param otherElements An array holding all the elements in the other level.
+	 */
+	private void rebuildDifferences(TileGrid otherElements) {
+		OccupancyLayer blockedLayer = mover.getBlockedLayer();
+		for (int blockCell = 0; blockCell < levelWidth * levelHeight; blockCell = blockCell + 64) {
+			long otherClear = otherElements.getCells(OccupancyLayer.ENEMIES, blockCell)
+					| ~otherElements.getCells(blockedLayer, blockCell);
+			long clear = levelElements.getCells(OccupancyLayer.ENEMIES, blockCell)
+					| ~levelElements.getCells(blockedLayer, blockCell);
+			long differences = otherClear ^ clear;
+			while (differences != 0) {
+				rebuildAround(blockCell + Long.numberOfTrailingZeros(differences));
+				differences = differences & (differences - 1);
+			}
+		}
+	}
+	
+	/**
+	 * Rebuilds the entrances and clusters around a changed cell straight away.
+	 * Only used while loading, when the budget can't run out.
+	 * @param cell The cell id that has changed.
+	 */
+	private void rebuildAround(int cell) {
+		startRebuild(cell);
+		for (int i = 0; i < numRebuildClusters; i++) {
+			buildCluster(rebuildClusters[i]);
+		}
+		rebuildClusterIndex = numRebuildClusters;
+	}
+	
+	/**
+	 * Rebuilds the entrances around a changed cell, and lists the clusters that need
+	 * their entrances linked again.
+	 * @param cell The cell id that has changed.
+	 */
+	private void startRebuild(int cell) {
+		if (isShared) {
+			unshare();
+		}
+		int cluster = getCluster(cell);
+		int clusterX = cluster % clustersWide;
+		int clusterY = cluster / clustersWide;
+		
+		// Entrances on all four edges of the cluster may have changed.
+		buildEntrances(cluster, 0);
+		buildEntrances(cluster, 3);
+		if (clusterX > 0) {
+			buildEntrances(cluster - 1, 0);
+		}
+		if (clusterY > 0) {
+			buildEntrances(cluster - clustersWide, 3);
+		}
+		// The edges are short, so the cells on them are paid for together.
+		budget.spend(4 * CLUSTER_SIZE);
+		
+		// So the cluster and the clusters next to it need their entrances linked again.
+		numRebuildClusters = 0;
+		addRebuildCluster(cluster);
+		if (clusterX > 0) {
+			addRebuildCluster(cluster - 1);
+		}
+		if (clusterX < clustersWide - 1) {
+			addRebuildCluster(cluster + 1);
+		}
+		if (clusterY > 0) {
+			addRebuildCluster(cluster - clustersWide);
+		}
+		if (clusterY < clustersHigh - 1) {
+			addRebuildCluster(cluster + clustersWide);
+		}
+		rebuildClusterIndex = 0;
+		rebuildEntrance = -1;
+	}
+	
+	/**
+	 * Adds a cluster to the clusters around the change being rebuilt.
+	 * @param cluster The cluster to be rebuilt.
+	 */
+	private void addRebuildCluster(int cluster) {
+		rebuildClusters[numRebuildClusters] = cluster;
+		numRebuildClusters++;
+	}
+	
+	/**
+	 * Takes a copy of the entrances and clusters, so they can be rebuilt without
+	 * changing another path finder's. Each cluster's own arrays are replaced (never
+	 * changed) when it's rebuilt, so they can still be shared.
+	 */
+	private void unshare() {
+		entranceFlags = entranceFlags.clone();
+		entranceIndexes = entranceIndexes.clone();
+		clusterEntrances = clusterEntrances.clone();
+		clusterDistances = clusterDistances.clone();
+		isShared = false;
+	}
+	
+	/**
+	 * Gets the distance to a cell found by the last search inside a cluster.
+	 * @param cell The cell id (must be in the cluster).
+	 * @param cluster The cluster searched.
+	 * @return The distance, or INFINITY if it wasn't reached.
+	 */
+	private int getLocalDistance(int cell, int cluster) {
+		return localDistances[getLocalIndex(cell, cluster)];
+	}
+	
+	/**
+	 * Gets the position of a cell within its cluster.
+	 * @param cell The cell id.
+	 * @param cluster The cluster the cell is in.
+	 * @return The index of the cell within the cluster.
+	 */
+	private int getLocalIndex(int cell, int cluster) {
+		int localX = (cell % levelWidth) - ((cluster % clustersWide) * CLUSTER_SIZE);
+		int localY = (cell / levelWidth) - ((cluster / clustersWide) * CLUSTER_SIZE);
+		return (localY * CLUSTER_SIZE) + localX;
+	}
+	
+	/**
+	 * Checks if moving from a cell by an offset stays inside a cluster.
+	 * @param cell The cell id moved from (inside the cluster).
+	 * @param offset The cell id offset of the move.
+	 * @param cluster The cluster.
+	 * @return True if the new cell is inside the cluster, otherwise false.
+	 */
+	private boolean isInCluster(int cell, int offset, int cluster) {
+		int newX = (cell % levelWidth) + ((offset == 1) ? 1 : (offset == -1) ? -1 : 0);
+		int newY = (cell / levelWidth) + ((offset == levelWidth) ? 1 : (offset == -levelWidth) ? -1 : 0);
+		if (newX < 0 || newY < 0 || newX >= levelWidth || newY >= levelHeight) {
+			return false;
+		}
+		return getCluster((newY * levelWidth) + newX) == cluster;
+	}
+	
+	/**
+	 * Gets the cluster that a cell is in.
+	 * @param cell The cell id.
+	 * @return The cluster number.
+	 */
+	private int getCluster(int cell) {
+		int clusterX = (cell % levelWidth) / CLUSTER_SIZE;
+		int clusterY = (cell / levelWidth) / CLUSTER_SIZE;
+		return (clusterY * clustersWide) + clusterX;
+	}
+	
+	/**
+	 * Checks if a cell is clear for the clusters. Enemies don't count, as they move.
+	 * @param cell The cell id to be checked.
+	 * @return True if the cell is clear, otherwise false.
+	 */
+	private boolean isClear(int cell) {
+		return levelElements.isSet(OccupancyLayer.ENEMIES, cell) || !mover.isBlocked(levelElements, cell);
+	}
+}
@@ -0,0 +1,290 @@
+package data;
+
+import java.util.ArrayList;
+
+/**
+ * Finds the smart enemy's path to the player using D* Lite. The search runs
+ * outwards from the player towards the enemy, and is kept between turns.
+ * When the enemy or the player moves, or a cell in the level changes (an item
+ * is picked up or a door is opened), only the cells affected by the change
+ * are repaired instead of starting the search again.
+ * If the search runs out of budget, it carries on from where it stopped next turn.
+ * One search is shared by all the smart enemies in a level, as the cost of each cell
+ * is its distance to the player whichever enemy asks. Moving between enemies is
+ * handled the same way as an enemy moving.
+ * @author William King
+ */
+public class IncrementalPathfinder {
+	/** The cost of a cell that can't reach the player. Kept low enough to fit in a key. */
+	private final static int INFINITY = Integer.MAX_VALUE / 2;
+	
+	/** The key modifier at which the search is started again, so the keys don't overflow. */
+	private final static long MAX_KEY_MODIFIER = INFINITY / 2;
+	
+	/** The width of the level in cells. */
+	private int levelWidth;
+	
+	/** The distance from each cell to the player. Accessed by the cell id (y * width + x). */
+	private int[] costs;
+	
+	/** The look-ahead distance of each cell, based on its neighbours' costs. */
+	private int[] lookAheadCosts;
+	
+	/** The cells whose cost and look-ahead cost don't match. */
+	private OpenList openList;
+	
+	/** Offsets of the right, left, front and back cells. */
+	private int[] neighbourOffsets;
+	
+	/** The cell the last enemy searched for was on when the keys were last adjusted. */
+	private int lastEnemyCell;
+	
+	/** The cell the player was on during the last search. */
+	private int playerCell;
+	
+	/** Adjusts the keys in the open list as the enemy moves away from where they were made. */
+	private long keyModifier;
+	
+	/** The number of level changes that have already been repaired. */
+	private int changesSeen;
+	
+	/** True once the first search has been run. */
+	private boolean isStarted;
+	
+	/** The enemy that the path is for (decides which cells block it). */
+	private Enemy mover;
+	
+	/** An array holding all the elements in the level. */
+	private TileGrid levelElements;
+	
+	/** Limits how many cells can be expanded each turn. */
+	private SearchBudget budget;
+	
+	/**
+	 * Constructor for the IncrementalPathfinder class.
+	 * @param levelWidth The width of the level in cells.
+	 * @param levelHeight The height of the level in cells.
+	 */
+	public IncrementalPathfinder(int levelWidth, int levelHeight) {
+		this.levelWidth = levelWidth;
+		
+		int numCells = levelWidth * levelHeight;
+		costs = new int[numCells];
+		lookAheadCosts = new int[numCells];
+		openList = new OpenList(numCells);
+		neighbourOffsets = new int[] {1, -1, -levelWidth, levelWidth};
+		isStarted = false;
+		budget = new SearchBudget();
+	}
+	
+	/**
+	 * Finds the first step of the shortest path from the enemy to the player,
+	 * repairing the search from the previous turn.
+	 * @param mover The enemy that the path is for (decides which cells block it).
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param changedCells The cells that have changed since the level was loaded.
+	 * @param enemyX The x-coordinate location of the enemy.
+	 * @param enemyY The y-coordinate location of the enemy.
+	 * @param playerX The x-coordinate location of the player.
+	 * @param playerY The y-coordinate location of the player.
+	 * @return The cell id of the next move, the enemy's own cell if every step closer to the
+	 * player is blocked, or Pathfinder.NO_PATH if the player is unreachable (or the search
+	 * hasn't finished yet).
+	 */
+	public int findNextStep(Enemy mover, TileGrid levelElements, ArrayList<Integer> changedCells,
+			int enemyX, int enemyY, int playerX, int playerY) {
+		this.mover = mover;
+		this.levelElements = levelElements;
+		int enemyCell = (enemyY * levelWidth) + enemyX;
+		int newPlayerCell = (playerY * levelWidth) + playerX;
+		
+		if (!isStarted || keyModifier > MAX_KEY_MODIFIER) {
+			start(enemyCell, newPlayerCell, changedCells.size());
+		} else {
+			// The old keys are now too high by (at most) the distance the enemy moved
+			// (or the distance to the enemy asking, if it's a different one).
+			if (enemyCell != lastEnemyCell) {
+				keyModifier = keyModifier + getManhattanDistance(lastEnemyCell, enemyCell);
+				lastEnemyCell = enemyCell;
+			}
+			
+			// Moving the player changes which cell the search starts from. The new cell
+			// is 0 moves from the player (wherever it is, e.g. through a portal), and the
+			// old cell is now worked out from its neighbours like any other cell.
+			if (newPlayerCell != playerCell) {
+				int oldPlayerCell = playerCell;
+				playerCell = newPlayerCell;
+				lookAheadCosts[playerCell] = 0;
+				updateCellAndNeighbours(oldPlayerCell);
+				updateCellAndNeighbours(playerCell);
+			}
+			
+			// Repair the cells that have changed since the last search.
+			for (int i = changesSeen; i < changedCells.size(); i++) {
+				updateCellAndNeighbours(changedCells.get(i));
+			}
+			changesSeen = changedCells.size();
+		}
+		
+		boolean isFinished = computeShortestPath(enemyCell);
+		if (!isFinished || costs[enemyCell] == INFINITY) {
+			return Pathfinder.NO_PATH;
+		}
+		
+		// Step to the clear neighbour that's closest to the player. If every neighbour
+		// closer to the player is blocked (e.g. by another enemy), wait for it to clear
+		// rather than step further away.
+		int nextCell = enemyCell;
+		int nextCost = costs[enemyCell];
+		for (int offset : neighbourOffsets) {
+			int neighbourCell = enemyCell + offset;
+			if (costs[neighbourCell] < nextCost && !mover.isBlocked(levelElements, neighbourCell)) {
+				nextCell = neighbourCell;
+				nextCost = costs[neighbourCell];
+			}
+		}
+		return nextCell;
+	}
+	
+	/**
+	 * Sets up the first search from the player.
+	 * @param enemyCell The cell the enemy is on.
+	 * @param newPlayerCell The cell the player is on.
+	 * @param numChanges The number of level changes made so far.
+	 */
+	private void start(int enemyCell, int newPlayerCell, int numChanges) {
+		for (int i = 0; i < costs.length; i++) {
+			costs[i] = INFINITY;
+			lookAheadCosts[i] = INFINITY;
+		}
+		openList.clear();
+		
+		lastEnemyCell = enemyCell;
+		playerCell = newPlayerCell;
+		keyModifier = 0;
+		changesSeen = numChanges;
+		
+		lookAheadCosts[playerCell] = 0;
+		openList.addOrDecrease(playerCell, calculateKey(playerCell));
+		isStarted = true;
+	}
+	
+	/**
+	 * Expands cells until the enemy's cost is correct, or the budget runs out.
+	 * The open list is left as it is, so the search can carry on later.
+	 * @param enemyCell The cell the enemy is on.
+	 * @return True if the enemy's cost is correct, false if the budget ran out.
+	 */
+	private boolean computeShortestPath(int enemyCell) {
+		while (!openList.isEmpty() && (openList.getMinPriority() < calculateKey(enemyCell)
+				|| lookAheadCosts[enemyCell] != costs[enemyCell])) {
+			if (!budget.spend()) {
+				return false;
+			}
+			int currentCell = openList.peekMin();
+			long oldKey = openList.getMinPriority();
+			long newKey = calculateKey(currentCell);
+			
+			if (oldKey < newKey) {
+				// The key is out of date (the enemy has moved since), so requeue it.
+				openList.update(currentCell, newKey);
+			} else if (costs[currentCell] > lookAheadCosts[currentCell]) {
+				// The cell got closer to the player.
+				costs[currentCell] = lookAheadCosts[currentCell];
+				openList.remove(currentCell);
+				for (int offset : neighbourOffsets) {
+					updateCell(currentCell + offset);
+				}
+			} else {
+				// The cell got further from the player (or is now blocked).
+				costs[currentCell] = INFINITY;
+				updateCell(currentCell);
+				for (int offset : neighbourOffsets) {
+					updateCell(currentCell + offset);
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Sets the budget that limits how many cells can be expanded each turn.
+	 * @param budget The search budget to be set.
+	 */
+	public void setSearchBudget(SearchBudget budget) {
+		this.budget = budget;
+	}
+	
+	/**
+	 * Recalculates a cell's look-ahead cost and (re)queues it if it's inconsistent.
+	 * @param cell The cell id to be updated.
+	 */
+	private void updateCell(int cell) {
+		if (cell != playerCell) {
+			int bestCost = INFINITY;
+			if (isWalkable(cell)) {
+				for (int offset : neighbourOffsets) {
+					int neighbourCell = cell + offset;
+					int neighbourCost = costs[neighbourCell];
+					if (neighbourCost != INFINITY && neighbourCost + 1 < bestCost
+							&& isWalkable(neighbourCell)) {
+						bestCost = neighbourCost + 1;
+					}
+				}
+			}
+			lookAheadCosts[cell] = bestCost;
+		}
+		
+		if (costs[cell] != lookAheadCosts[cell]) {
+			openList.update(cell, calculateKey(cell));
+		} else {
+			openList.remove(cell);
+		}
+	}
+	
+	/**
+	 * Updates a cell and the cells next to it, as the edges between them may have changed.
+	 * @param cell The cell id that has changed.
+	 */
+	private void updateCellAndNeighbours(int cell) {
+		updateCell(cell);
+		for (int offset : neighbourOffsets) {
+			updateCell(cell + offset);
+		}
+	}
+	
+	/**
+	 * Calculates the key of a cell. The cost part is held in the upper half of the
+	 * number, and ties are broken by the cost alone (held in the lower half).
+	 * @param cell The cell id.
+	 * @return The key as a long.
+	 */
+	private long calculateKey(int cell) {
+		long minCost = Math.min(costs[cell], lookAheadCosts[cell]);
+		long firstKey = minCost + getManhattanDistance(lastEnemyCell, cell) + keyModifier;
+		return (firstKey << 32) | minCost;
+	}
+	
+	/**
+	 * Checks if a cell can be passed through. Enemies don't block the search, as they
+	 * move every turn. The player's cell is always passable.
+	 * @param cell The cell id to be checked.
+	 * @return True if the cell can be passed through, otherwise false.
+	 */
+	private boolean isWalkable(int cell) {
+		return cell == playerCell || levelElements.isSet(OccupancyLayer.ENEMIES, cell)
+				|| !mover.isBlocked(levelElements, cell);
+	}
+	
+	/**
+	 * Gets the Manhattan distance between two cells, used as the heuristic.
+	 * @param firstCell The first cell id.
+	 * @param secondCell The second cell id.
+	 * @return The distance as an integer.
+	 */
+	private int getManhattanDistance(int firstCell, int secondCell) {
+		int xDiff = Math.abs((firstCell % levelWidth) - (secondCell % levelWidth));
+		int yDiff = Math.abs((firstCell / levelWidth) - (secondCell / levelWidth));
+		return xDiff + yDiff;
+	}
+}
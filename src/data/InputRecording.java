@@ -0,0 +1,103 @@
+package data;
+
+/**
+ * Holds the inputs of a game, from the start of a level, so the game can be played again
+ * exactly (e.g. to look into a player's report). Along with the inputs, it keeps the level
+ * the game started on, the random seed of the game, and a hash of how the game ended, so
+ * a replay can be checked against it. Each input takes a single byte.
+ * @author William King
+ */
+public class InputRecording {
+	/** The number of inputs that can be held to start with. */
+	private final static int INITIAL_CAPACITY = 256;
+	
+	/** The number of the level the game started on. */
+	private int levelNumber;
+	
+	/** The random seed of the game. */
+	private long randomSeed;
+	
+	/** The ordinal of each input, in the order they were made. */
+	private byte[] inputs;
+	
+	/** The number of inputs held. */
+	private int numInputs;
+	
+	/** A hash of the state of the game after the last input. */
+	private long finalStateHash;
+	
+	/**
+	 * Constructor for the InputRecording class.
+	 * @param levelNumber The number of the level the game starts on.
+	 * @param randomSeed The random seed of the game.
+	 */
+	public InputRecording(int levelNumber, long randomSeed) {
+		this.levelNumber = levelNumber;
+		this.randomSeed = randomSeed;
+		inputs = new byte[INITIAL_CAPACITY];
+		numInputs = 0;
+	}
+	
+	/**
+	 * Adds an input at the end of the recording.
+	 * @param input The input made.
+	 */
+	public void add(RecordedInput input) {
+		if (numInputs == inputs.length) {
+			byte[] newInputs = new byte[inputs.length * 2];
+			System.arraycopy(inputs, 0, newInputs, 0, numInputs);
+			inputs = newInputs;
+		}
+		inputs[numInputs] = (byte) input.ordinal();
+		numInputs++;
+	}
+	
+	/**
+	 * Gets an input of the recording.
+	 * @param index The index of the input (from 0 to the number of inputs - 1).
+	 * @return The input.
+	 */
+	public RecordedInput getInput(int index) {
+		return RecordedInput.fromCode(inputs[index]);
+	}
+	
+	/**
+	 * Gets the number of inputs in the recording.
+	 * @return The number of inputs.
+	 */
+	public int getNumInputs() {
+		return numInputs;
+	}
+	
+	/**
+	 * Gets the number of the level the game started on.
+	 * @return The level number.
+	 */
+	public int getLevelNumber() {
+		return levelNumber;
+	}
+	
+	/**
+	 * Gets the random seed of the game.
+	 * @return The random seed.
+	 */
+	public long getRandomSeed() {
+		return randomSeed;
+	}
+	
+	/**
+	 * Gets the hash of the state of the game after the last input.
+	 * @return The hash, as given by GameEngine.getStateHash.
+	 */
+	public long getFinalStateHash() {
+		return finalStateHash;
+	}
+	
+	/**
+	 * Sets the hash of the state of the game after the last input.
+	 * @param finalStateHash The hash, as given by GameEngine.getStateHash.
+	 */
+	public void setFinalStateHash(long finalStateHash) {
+		this.finalStateHash = finalStateHash;
+	}
+}
@@ -0,0 +1,332 @@
+package data;
+
+/**
+ * Finds the shortest path between two cells of a level using Jump Point Search.
+ * Instead of adding every neighbouring cell to the open list, the search jumps
+ * in a straight line until it reaches a cell where the path could turn (a jump
+ * point), which skips the many equally short paths across open floor.
+ * Vertical moves are tried before horizontal ones, so a vertical jump checks
+ * each row it passes for something worth turning towards.
+ * Horizontal jumps scan 64 cells of the row at a time, using the level's
+ * blocked cells as bits, and each one's result is kept for the rest of the
+ * search (as vertical jumps that pass the same cell ask for it again).
+ * Every cell a jump passes over counts as an expansion (as well as each jump point
+ * taken from the open list and each kept jump looked up), even when 64 of them are
+ * scanned at once. So JPS shows more expansions than plain A*, but takes less time.
+ * Each expansion is also spent from the search budget, so a long jump stops when it runs out.
+ * @author William King
+ */
+public class JumpPointPathfinder extends Pathfinder {
+	/** Returned by a jump that didn't find a jump point. */
+	private final static int NO_JUMP_POINT = -1;
+	
+	/** The number of cells a horizontal jump scans at once. */
+	private final static int BLOCK_SIZE = 64;
+	
+	/** The enemy that the current search is for (decides which cells block it). */
+	private Enemy mover;
+	
+	/** The cells that block the enemy in the current search. */
+	private OccupancyLayer blockedLayer;
+	
+	/** An array holding all the elements in the level. */
+	private TileGrid levelElements;
+	
+	/** The cell id of the goal of the current search. */
+	private int goalCell;
+	
+	/** The directions searched from the start cell. */
+	private int[] startDirections;
+	
+	/** The directions searched after moving up: keep going, or turn either way. */
+	private int[] upDirections;
+	
+	/** The directions searched after moving down: keep going, or turn either way. */
+	private int[] downDirections;
+	
+	/** The directions searched after moving right. The turns are filled in if forced. */
+	private int[] rightDirections;
+	
+	/** The directions searched after moving left. The turns are filled in if forced. */
+	private int[] leftDirections;
+	
+	/** The cells whose jump to the right has been made this search. */
+	private VisitedGrid rightJumpsKnown;
+	
+	/** The cells whose jump to the left has been made this search. */
+	private VisitedGrid leftJumpsKnown;
+	
+	/** The jump point found by jumping right from each cell. Only made when the first search starts. */
+	private int[] rightJumps;
+	
+	/** The jump point found by jumping left from each cell. Only made when the first search starts. */
+	private int[] leftJumps;
+	
+	/**
+	 * Constructor for the JumpPointPathfinder class, using a visited grid owned by the level.
+	 * @param levelWidth The width of the level in cells.
+	 * @param levelHeight The height of the level in cells.
+	 * @param visitedGrid Keeps track of the cells reached by each search.
+	 */
+	public JumpPointPathfinder(int levelWidth, int levelHeight, VisitedGrid visitedGrid) {
+		super(levelWidth, levelHeight, visitedGrid);
+		startDirections = new int[] {1, -1, -levelWidth, levelWidth};
+		upDirections = new int[] {-levelWidth, 1, -1};
+		downDirections = new int[] {levelWidth, 1, -1};
+		rightDirections = new int[] {1, 0, 0};
+		leftDirections = new int[] {-1, 0, 0};
+		rightJumpsKnown = new VisitedGrid(levelWidth * levelHeight);
+		leftJumpsKnown = new VisitedGrid(levelWidth * levelHeight);
+	}
+	
+	/**
+	 * Finds the first step of the shortest path from the start to the goal.
+	 * @param mover The enemy that the path is for (decides which cells block it).
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param startX The x-coordinate of the start cell.
+	 * @param startY The y-coordinate of the start cell.
+	 * @param goalX The x-coordinate of the goal cell.
+	 * @param goalY The y-coordinate of the goal cell.
+	 * @return The cell id of the next move, or NO_PATH if the goal is unreachable
+	 * (or the budget ran out first).
+	 */
+	@Override
+	public int findNextStep(Enemy mover, TileGrid levelElements,
+			int startX, int startY, int goalX, int goalY) {
+		this.mover = mover;
+		this.levelElements = levelElements;
+		blockedLayer = mover.getBlockedLayer();
+		int startCell = (startY * levelWidth) + startX;
+		goalCell = (goalY * levelWidth) + goalX;
+		if (startCell == goalCell) {
+			return NO_PATH;
+		}
+		
+		// Start a new search (the costs and jumps from the previous search are now ignored).
+		startSearch();
+		if (rightJumps == null) {
+			rightJumps = new int[levelWidth * levelHeight];
+			leftJumps = new int[levelWidth * levelHeight];
+		}
+		rightJumpsKnown.startSearch();
+		leftJumpsKnown.startSearch();
+		expansions = 0;
+		
+		visitedGrid.markVisited(startCell);
+		costs[startCell] = 0;
+		ancestors[startCell] = UNSET;
+		openList.addOrDecrease(startCell, getHeuristic(startCell, goalCell));
+		
+		while (!openList.isEmpty() && budget.spend()) {
+			int currentCell = openList.removeMin();
+			expansions++;
+			
+			if (currentCell == goalCell) {
+				return getFirstStep(startCell);
+			}
+			
+			for (int direction : getDirections(currentCell)) {
+				if (direction == 0) {
+					continue;
+				}
+				int jumpCell = jump(currentCell, direction);
+				if (jumpCell == NO_JUMP_POINT) {
+					continue;
+				}
+				
+				// Jump points are always in a straight line from the current cell.
+				int newCost = costs[currentCell] + getDistance(currentCell, jumpCell);
+				if (visitedGrid.isVisited(jumpCell) && costs[jumpCell] <= newCost) {
+					continue;
+				}
+				
+				visitedGrid.markVisited(jumpCell);
+				costs[jumpCell] = newCost;
+				ancestors[jumpCell] = currentCell;
+				int score = newCost + getHeuristic(jumpCell, goalCell);
+				openList.addOrDecrease(jumpCell, score);
+			}
+		}
+		return NO_PATH;
+	}
+	
+	/**
+	 * Gets the directions worth searching from a cell, based on how it was reached.
+	 * Directions are given as cell id offsets. Unused slots are set to 0.
+	 * The array is reused, so it's only valid until the next call.
+	 * @param cell The cell id being expanded.
+	 * @return The directions to jump in.
+	 */
+	private int[] getDirections(int cell) {
+		int ancestorCell = ancestors[cell];
+		
+		// The start cell searches in every direction.
+		if (ancestorCell == UNSET) {
+			return startDirections;
+		}
+		
+		// Reached by a vertical move: keep going, or turn either way.
+		if ((ancestorCell % levelWidth) == (cell % levelWidth)) {
+			return (cell > ancestorCell) ? downDirections : upDirections;
+		}
+		
+		// Reached by a horizontal move: keep going, and only turn if the cell
+		// behind blocks the way (otherwise turning earlier is just as short).
+		int horizontalDirection = (cell > ancestorCell) ? 1 : -1;
+		int[] directions = (horizontalDirection == 1) ? rightDirections : leftDirections;
+		directions[1] = isForced(cell, horizontalDirection, -levelWidth) ? -levelWidth : 0;
+		directions[2] = isForced(cell, horizontalDirection, levelWidth) ? levelWidth : 0;
+		return directions;
+	}
+	
+	/**
+	 * Moves from a cell in a straight line until a jump point is found.
+	 * @param cell The cell id to jump from.
+	 * @param direction The direction to jump in (as a cell id offset).
+	 * @return The cell id of the jump point, or NO_JUMP_POINT if it hit an object
+	 * (or the budget ran out).
+	 */
+	private int jump(int cell, int direction) {
+		if (direction == 1 || direction == -1) {
+			return jumpHorizontally(cell, direction);
+		}
+		
+		while (true) {
+			cell = cell + direction;
+			expansions++;
+			if (!budget.spend()) {
+				return NO_JUMP_POINT;
+			}
+			if (isBlocked(cell)) {
+				return NO_JUMP_POINT;
+			}
+			if (cell == goalCell) {
+				return cell;
+			}
+			
+			// Stop if turning here leads to a jump point.
+			if (jumpHorizontally(cell, 1) != NO_JUMP_POINT
+					|| jumpHorizontally(cell, -1) != NO_JUMP_POINT) {
+				return cell;
+			}
+		}
+	}
+	
+	/**
+	 * Moves from a cell along its row until a jump point is found, a block of cells
+	 * at a time. The jump point is kept in case the same jump is asked for again.
+	 * @param startCell The cell id to jump from.
+	 * @param direction The direction to jump in (1 or -1).
+	 * @return The cell id of the jump point, or NO_JUMP_POINT if it hit an object
+	 * (or the budget ran out).
+	 */
+	private int jumpHorizontally(int startCell, int direction) {
+		VisitedGrid jumpsKnown = (direction == 1) ? rightJumpsKnown : leftJumpsKnown;
+		int[] jumps = (direction == 1) ? rightJumps : leftJumps;
+		expansions++;
+		if (!budget.spend()) {
+			return NO_JUMP_POINT;
+		}
+		if (jumpsKnown.isVisited(startCell)) {
+			return jumps[startCell];
+		}
+		
+		// Find the first cell in the row that blocks the jump, has a forced turn
+		// (the cell to the side is clear, but the one behind it is blocked) or is the goal.
+		int blockCell = startCell + direction;
+		long stops = 0;
+		while (stops == 0) {
+			long forcedUp = ~getBlockedCells(blockCell - levelWidth, direction)
+					& getBlockedCells(blockCell - levelWidth - direction, direction);
+			long forcedDown = ~getBlockedCells(blockCell + levelWidth, direction)
+					& getBlockedCells(blockCell + levelWidth - direction, direction);
+			stops = getBlockedCells(blockCell, direction) | forcedUp | forcedDown;
+			int goalSteps = (goalCell - blockCell) * direction;
+			if (goalSteps >= 0 && goalSteps < BLOCK_SIZE) {
+				stops = stops | (1L << goalSteps);
+			}
+			
+			// Pay for the cells of the block up to (and including) the first stop.
+			int numScanned = (stops == 0) ? BLOCK_SIZE : Long.numberOfTrailingZeros(stops) + 1;
+			expansions = expansions + numScanned;
+			if (!budget.spend(numScanned)) {
+				return NO_JUMP_POINT;
+			}
+			if (stops == 0) {
+				blockCell = blockCell + (BLOCK_SIZE * direction);
+			}
+		}
+		int stopSteps = Long.numberOfTrailingZeros(stops);
+		int cell = blockCell + (stopSteps * direction);
+		int jumpCell = isBlocked(cell) ? NO_JUMP_POINT : cell;
+		
+		jumpsKnown.markVisited(startCell);
+		jumps[startCell] = jumpCell;
+		return jumpCell;
+	}
+	
+	/**
+	 * Gets which of the next 64 cells along a row block the enemy.
+	 * @param cell The cell id of the first cell.
+	 * @param direction The direction along the row (1 or -1).
+	 * @return The cells as bits, where bit i is set if the cell i steps away is blocked.
+	 */
+	private long getBlockedCells(int cell, int direction) {
+		if (direction == 1) {
+			return levelElements.getCells(blockedLayer, cell);
+		}
+		return Long.reverse(levelElements.getCells(blockedLayer, cell - (BLOCK_SIZE - 1)));
+	}
+	
+	/**
+	 * Checks if a horizontal move has to turn vertically at a cell, i.e. the cell to
+	 * the side is clear, but the cell to the side of the previous cell is blocked.
+	 * @param cell The cell id reached by the horizontal move.
+	 * @param horizontalDirection The direction of the horizontal move.
+	 * @param verticalDirection The vertical direction to check.
+	 * @return True if the turn is forced, otherwise false.
+	 */
+	private boolean isForced(int cell, int horizontalDirection, int verticalDirection) {
+		return !isBlocked(cell + verticalDirection)
+				&& isBlocked(cell - horizontalDirection + verticalDirection);
+	}
+	
+	/**
+	 * Walks back along the path from the goal to find the first step from the start.
+	 * @param startCell The cell id of the start.
+	 * @return The cell id next to the start on the path.
+	 */
+	private int getFirstStep(int startCell) {
+		int jumpCell = goalCell;
+		while (ancestors[jumpCell] != startCell) {
+			jumpCell = ancestors[jumpCell];
+		}
+		
+		// Step one cell towards the first jump point.
+		if ((jumpCell % levelWidth) == (startCell % levelWidth)) {
+			return (jumpCell > startCell) ? startCell + levelWidth : startCell - levelWidth;
+		}
+		return (jumpCell > startCell) ? startCell + 1 : startCell - 1;
+	}
+	
+	/**
+	 * Gets the number of moves between two cells in the same row or column.
+	 * @param firstCell The first cell id.
+	 * @param secondCell The second cell id.
+	 * @return The distance as an integer.
+	 */
+	private int getDistance(int firstCell, int secondCell) {
+		int xDiff = Math.abs((firstCell % levelWidth) - (secondCell % levelWidth));
+		int yDiff = Math.abs((firstCell / levelWidth) - (secondCell / levelWidth));
+		return xDiff + yDiff;
+	}
+	
+	/**
+	 * Checks if a cell blocks the enemy.
+	 * @param cell The cell id to be checked.
+	 * @return True if the cell blocks the enemy, otherwise false.
+	 */
+	private boolean isBlocked(int cell) {
+		return mover.isBlocked(levelElements, cell);
+	}
+}
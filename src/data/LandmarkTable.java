@@ -0,0 +1,194 @@
+package data;
+
+/**
+ * Holds the distance from a few landmark cells to every cell in the level, used
+ * to guide the smart enemy's search (the ALT heuristic). By the triangle rule, a
+ * path between two cells can't be shorter than the difference between their
+ * distances to any landmark, which follows the walls far better than a straight
+ * line does in a maze.
+ * The distances are worked out with only walls, goals, hazards and portals
+ * blocking, as they never change. Anything else (doors, items, tokens, apparel
+ * and enemies) can be cleared during play, and the table must never overestimate.
+ * So the same table can be used for any state of the level.
+ * In open levels, the landmarks (picked in the corners) give about the same bound
+ * as the Manhattan distance, so they only help where walls get in the way.
+ * @author William King
+ */
+public class LandmarkTable {
+	/** The number of landmarks picked in each level. */
+	public final static int NUM_LANDMARKS = 4;
+	/** The distance to a cell that a landmark can't reach. */
+	private final static int UNREACHABLE = -1;
+	
+	/** The width of the level in cells. */
+	private int levelWidth;
+	
+	/** The number of landmarks actually picked (fewer if the level is tiny). */
+	private int numLandmarks;
+	
+	/** The cell id of each landmark. */
+	private int[] landmarkCells;
+	
+	/** The distance from each landmark to each cell. The distances of a cell
+	 * are next to each other: accessed by (cell id * NUM_LANDMARKS) + landmark. */
+	private int[] distances;
+	
+	/**
+	 * Constructor for the LandmarkTable class. Picks the landmarks, spread out as far
+	 * from each other as possible, and works out their distances.
+	 * @param levelElements An array holding all the elements in the level.
+	 */
+	public LandmarkTable(TileGrid levelElements) {
+		int levelHeight = levelElements.getHeight();
+		levelWidth = levelElements.getWidth();
+		int numCells = levelWidth * levelHeight;
+		
+		boolean[] isBlocked = new boolean[numCells];
+		int firstClearCell = UNREACHABLE;
+		for (int row = 0; row < levelHeight; row++) {
+			for (int col = 0; col < levelWidth; col++) {
+				int cell = (row * levelWidth) + col;
+				isBlocked[cell] = isPermanentObject(levelElements.get(col, row));
+				if (!isBlocked[cell] && firstClearCell == UNREACHABLE) {
+					firstClearCell = cell;
+				}
+			}
+		}
+		
+		landmarkCells = new int[NUM_LANDMARKS];
+		distances = new int[numCells * NUM_LANDMARKS];
+		numLandmarks = 0;
+		if (firstClearCell == UNREACHABLE) {
+			return;
+		}
+		
+		// The distance from each cell to its closest landmark. Starts as the distance
+		// from the first clear cell, so the first landmark is the cell furthest from it.
+		int[] landmarkDistances = new int[numCells];
+		int[] searchDistances = new int[numCells];
+		search(firstClearCell, isBlocked, landmarkDistances);
+		
+		while (numLandmarks < NUM_LANDMARKS) {
+			// Pick the cell furthest from the landmarks so far.
+			int nextLandmark = UNREACHABLE;
+			int furthest = 0;
+			for (int cell = 0; cell < numCells; cell++) {
+				if (landmarkDistances[cell] > furthest) {
+					nextLandmark = cell;
+					furthest = landmarkDistances[cell];
+				}
+			}
+			if (nextLandmark == UNREACHABLE) {
+				break;
+			}
+			
+			search(nextLandmark, isBlocked, searchDistances);
+			for (int cell = 0; cell < numCells; cell++) {
+				distances[(cell * NUM_LANDMARKS) + numLandmarks] = searchDistances[cell];
+				// The first search (from an ordinary cell) doesn't count as a landmark.
+				if (numLandmarks == 0 || searchDistances[cell] < landmarkDistances[cell]) {
+					landmarkDistances[cell] = searchDistances[cell];
+				}
+			}
+			landmarkCells[numLandmarks] = nextLandmark;
+			numLandmarks++;
+		}
+	}
+	
+	/**
+	 * Gets the lower bound on the distance between a cell and the goal.
+	 * @param cell The cell id.
+	 * @param goalCell The cell id of the goal.
+	 * @return The largest difference in landmark distances between the two cells.
+	 */
+	public int getHeuristic(int cell, int goalCell) {
+		int cellIndex = cell * NUM_LANDMARKS;
+		int goalIndex = goalCell * NUM_LANDMARKS;
+		int heuristic = 0;
+		for (int i = 0; i < numLandmarks; i++) {
+			int cellDistance = distances[cellIndex + i];
+			int goalDistance = distances[goalIndex + i];
+			if (cellDistance != UNREACHABLE && goalDistance != UNREACHABLE) {
+				heuristic = Math.max(heuristic, Math.abs(cellDistance - goalDistance));
+			}
+		}
+		return heuristic;
+	}
+	
+	/**
+	 * Gets the width of the level that this table was made for.
+	 * @return The width of the level in cells.
+	 */
+	public int getLevelWidth() {
+		return levelWidth;
+	}
+	
+	/**
+	 * Gets the number of landmarks in the table.
+	 * @return The number of landmarks.
+	 */
+	public int getNumLandmarks() {
+		return numLandmarks;
+	}
+	
+	/**
+	 * Gets the cell id of a landmark.
+	 * @param landmark The landmark's number.
+	 * @return The cell id of the landmark.
+	 */
+	public int getLandmarkCell(int landmark) {
+		return landmarkCells[landmark];
+	}
+	
+	/**
+	 * Searches outwards from a cell and records the distance to every cell.
+	 * @param fromCell The cell id to search from.
+	 * @param isBlocked Which cells block the search.
+	 * @param searchDistances Filled in with the distances, or UNREACHABLE.
+	 */
+	private void search(int fromCell, boolean[] isBlocked, int[] searchDistances) {
+		for (int i = 0; i < searchDistances.length; i++) {
+			searchDistances[i] = UNREACHABLE;
+		}
+		int[] queue = new int[searchDistances.length];
+		searchDistances[fromCell] = 0;
+		queue[0] = fromCell;
+		int head = 0;
+		int tail = 1;
+		
+		// Offsets of the right, left, front and back cells.
+		int[] neighbourOffsets = {1, -1, -levelWidth, levelWidth};
+		
+		while (head < tail) {
+			int currentCell = queue[head];
+			head++;
+			for (int offset : neighbourOffsets) {
+				int neighbourCell = currentCell + offset;
+				if (neighbourCell < 0 || neighbourCell >= searchDistances.length
+						|| isBlocked[neighbourCell] || searchDistances[neighbourCell] != UNREACHABLE) {
+					continue;
+				}
+				searchDistances[neighbourCell] = searchDistances[currentCell] + 1;
+				queue[tail] = neighbourCell;
+				tail++;
+			}
+		}
+	}
+	
+	/**
+	 * Checks if an object blocks the way for the whole level.
+	 * @param object The object (level element) to be checked.
+	 * @return True if the object never goes away, otherwise false.
+	 */
+	private boolean isPermanentObject(TileType object) {
+		switch (object) {
+			case WALL:
+			case GOAL:
+			case HAZARD:
+			case PORTAL:
+				return true;
+			default:
+				return false;
+		}
+	}
+}
@@ -1,13 +1,15 @@
 package data;
 
+import java.util.ArrayList;
+
 /**
  * This class models a single level in the game.
  * @author William King
  */
 public class Level {
-	/** Holds each cell element of the level in their corresponding 
+	/** Holds each cell element of the level in their corresponding
 	 * positions in the list.  */
-	private String[][] levelElements;
+	private TileGrid levelElements;
 	
 	/** The height of the level in cells. */
 	private int levelHeight;
@@ -22,26 +24,68 @@ public class Level {
 	private Player player;
 	
 	/** A list of doors. Accessed by their location on the level. */
-	private Door[][] doors;
+	private CellMap<Door> doors;
 	
 	/** A list of apparels. Accessed by their location on the level. */
-	private Apparel[][] apparels;
+	private CellMap<Apparel> apparels;
 	
 	/** A list of items. Accessed by their location on the level. */
-	private Item[][] items;
+	private CellMap<Item> items;
 	
 	/** A list of hazards. Accessed by their location on the level. */
-	private Hazard[][] hazards;
+	private CellMap<Hazard> hazards;
 	
 	/** A list of portals. Accessed by their location on the level. */
-	private Portal[][] portals;
+	private CellMap<Portal> portals;
+	
+	/** A table of the enemies. */
+	private EnemyTable enemies;
+	
+	/** Finds the enemy standing on a cell. Kept up to date as the enemies move. */
+	private EnemyIndex enemyIndex;
+	
+	/** Moves the enemies each turn. */
+	private EnemyMover enemyMover;
+	
+	/** The distance from each cell to the player. Shared by the smart enemies. */
+	private DistanceField distanceField;
+	
+	/** Keeps track of the cells reached by each path finding search in this level. */
+	private VisitedGrid visitedGrid;
+	
+	/** Finds the shortest path for the smart enemies. Reused for every search. */
+	private Pathfinder pathfinder;
+	
+	/** Finds the shortest path for the smart enemies using Jump Point Search. */
+	private JumpPointPathfinder jumpPointPathfinder;
+	
+	/** Keeps the search to the player between turns. Shared by the smart enemies and only built if needed. */
+	private IncrementalPathfinder incrementalPathfinder;
+	
+	/** Finds the path for the smart enemies over clusters of the level. Only built if needed. */
+	private HierarchicalPathfinder hierarchicalPathfinder;
+	
+	/** How the smart enemies in this level search for the player (unless set per enemy). */
+	private SearchMode searchMode;
+	
+	/** The landmark distances used to guide the smart enemies' searches. */
+	private LandmarkTable landmarkTable;
+	
+	/** Limits how much path finding the smart enemies can do each turn. */
+	private SearchBudget searchBudget;
+	
+	/** The cells (as ids: y * width + x) that have changed since the level was loaded. */
+	private ArrayList<Integer> changedCells;
+	
+	/** The compiled paths of the straight and wall enemies, or null if they're moved a turn at a time. */
+	private EnemyTrajectories enemyTrajectories;
 	
-	/** A list of enemies. */
-	private Enemy[] enemies;
+	/** The number of turns the enemies have moved since the level was loaded. */
+	private long enemyTurn;
 	
 	/**
 	 * Constructor for the Level class.
-	 * @param levelElements Array holding each element needed to draw the level.
+	 * @param levelElements Grid holding each element needed to draw the level.
 	 * @param levelNumber The number of the level being constructed.
 	 * @param player The player in the level.
 	 * @param doors A list of all doors in the level.
@@ -50,9 +94,9 @@ public class Level {
 	 * @param hazards A list of all hazards in the level.
 	 * @param enemies A list of all enemies in the level.
 	 */
-	public Level(String[][] levelElements, int levelNumber, Player player, 
-			Door[][] doors, Apparel[][] apparels, Item[][] items, Hazard[][] hazards, 
-			Portal[][] portals, Enemy[] enemies) {
+	public Level(TileGrid levelElements, int levelNumber, Player player,
+			CellMap<Door> doors, CellMap<Apparel> apparels, CellMap<Item> items,
+			CellMap<Hazard> hazards, CellMap<Portal> portals, EnemyTable enemies) {
 		this.levelElements = levelElements;
 		this.levelNumber = levelNumber;
 		this.player = player;
@@ -64,8 +108,17 @@ public class Level {
 		this.enemies = enemies;
 		
 		// Height and width will be fixed, so this is fine.
-		levelHeight = levelElements.length;
-		levelWidth = levelElements[0].length; 
+		levelHeight = levelElements.getHeight();
+		levelWidth = levelElements.getWidth();
+		enemyIndex = new EnemyIndex(enemies, levelWidth);
+		enemyMover = new EnemyMover(levelWidth, levelHeight);
+		distanceField = new DistanceField(levelWidth, levelHeight);
+		visitedGrid = new VisitedGrid(levelWidth * levelHeight);
+		pathfinder = new Pathfinder(levelWidth, levelHeight, visitedGrid);
+		jumpPointPathfinder = new JumpPointPathfinder(levelWidth, levelHeight, visitedGrid);
+		searchMode = SearchMode.DISTANCE_FIELD;
+		changedCells = new ArrayList<Integer>();
+		setSearchBudget(new SearchBudget());
 	}
 	
 	/**
@@ -76,73 +129,73 @@ public class Level {
 		String strLevel = levelNumber + "," + player.toStringDetail();
 		
 		// Convert doors to a string, then concatenate them to strLevel.
-		for (int i = 0; i < doors.length; i++) {
-			for (int j = 0; j < doors[0].length; j++) {
-				if (doors[i][j] != null && levelElements[i][j].equals("D")) {
-					strLevel = strLevel + doors[i][j].toStringDetail();
-				}
+		// Ones that have been picked up or opened are no longer on the level.
+		for (int i = 0; i < doors.size(); i++) {
+			if (levelElements.get(doors.getCell(i)) == TileType.DOOR) {
+				strLevel = strLevel + doors.getValue(i).toStringDetail();
 			}
 		}
 		
 		// Convert apparels to a string, then concatenate them to strLevel.
-		for (int i = 0; i < apparels.length; i++) {
-			for (int j = 0; j < apparels[0].length; j++) {
-				if (apparels[i][j] != null && levelElements[i][j].equals("A")) {
-					strLevel = strLevel + apparels[i][j].toStringDetail();
-				}
+		// Ones that have been picked up or opened are no longer on the level.
+		for (int i = 0; i < apparels.size(); i++) {
+			if (levelElements.get(apparels.getCell(i)) == TileType.APPAREL) {
+				strLevel = strLevel + apparels.getValue(i).toStringDetail();
 			}
 		}
 		
 		// Convert items to a string, then concatenate them to strLevel.
-		for (int i = 0; i < items.length; i++) {
-			for (int j = 0; j < items[0].length; j++) {
-				if (items[i][j] != null && levelElements[i][j].equals("I")) {
-					strLevel = strLevel + items[i][j].toStringDetail();
-				}
+		// Ones that have been picked up or opened are no longer on the level.
+		for (int i = 0; i < items.size(); i++) {
+			if (levelElements.get(items.getCell(i)) == TileType.ITEM) {
+				strLevel = strLevel + items.getValue(i).toStringDetail();
 			}
 		}
 		
 		// Convert tokens to a string, then concatenate them to strLevel.
-		for (int i = 0; i < levelElements.length; i++) {
-			for (int j = 0; j < levelElements[0].length; j++) {
-				if (levelElements[i][j].equals("T")) {
-					String strToken = "TOKEN," + j + "," + i + ",";
-					strLevel = strLevel + strToken;
-				}
-			}
+		// Only the words of the token layer holding a token are looked at.
+		int tokenCell = levelElements.nextSetCell(OccupancyLayer.TOKENS, 0);
+		while (tokenCell != TileGrid.NO_CELL) {
+			String strToken = "TOKEN," + (tokenCell % levelWidth) + "," + (tokenCell / levelWidth) + ",";
+			strLevel = strLevel + strToken;
+			tokenCell = levelElements.nextSetCell(OccupancyLayer.TOKENS, tokenCell + 1);
 		}
 		
 		// Convert hazards to a string, then concatenate them to strLevel.
-		for (int i = 0; i < hazards.length; i++) {
-			for (int j = 0; j < hazards[0].length; j++) {
-				if (hazards[i][j] != null && levelElements[i][j].equals("H")) {
-					strLevel = strLevel + hazards[i][j].toStringDetail();
-				}
+		for (int i = 0; i < hazards.size(); i++) {
+			if (levelElements.get(hazards.getCell(i)) == TileType.HAZARD) {
+				strLevel = strLevel + hazards.getValue(i).toStringDetail();
 			}
 		}
 		
 		// Convert portals to a string, then concatenate them to strLevel.
-		for (int i = 0; i < portals.length; i++) {
-			for (int j = 0; j < portals[0].length; j++) {
-				if (portals[i][j] != null && levelElements[i][j].equals("P")) {
-					strLevel = strLevel + portals[i][j].toStringDetail();
-				}
+		for (int i = 0; i < portals.size(); i++) {
+			if (levelElements.get(portals.getCell(i)) == TileType.PORTAL) {
+				strLevel = strLevel + portals.getValue(i).toStringDetail();
 			}
 		}
 		
 		// Convert enemies to a string, then concatenate them to strLevel.
-		for (Enemy elem : enemies) {
-			strLevel = strLevel + elem.toStringDetail();
+		for (int i = 0; i < enemies.size(); i++) {
+			strLevel = strLevel + enemies.toStringDetail(i);
+		}
+		
+		// Only save the search mode if it's been changed from the default.
+		if (searchMode != SearchMode.DISTANCE_FIELD) {
+			strLevel = strLevel + "SEARCH," + searchMode + ",";
+		}
+		if (!searchBudget.isUnlimited()) {
+			strLevel = strLevel + searchBudget.toStringDetail();
 		}
 		
 		return strLevel;
 	}
 	
 	/**
-	 * Gets the elements (and their position) used for the level. 
-	 * @return An array of elements for the level.
+	 * Gets the elements (and their position) used for the level.
+	 * @return The grid of tiles for the level.
 	 */
-	public String[][] getLevelElements() {
+	public TileGrid getLevelElements() {
 		return levelElements;
 	}
 	
@@ -169,15 +222,15 @@ public class Level {
 	public int getLevelNumber() {
 		return levelNumber;
 	}
-
+	
 	/**
 	 * Gets the player in the level.
-	 * @return the player 
+	 * @return the player
 	 */
 	public Player getPlayer() {
 		return player;
 	}
-
+	
 	/**
 	 * Sets the player after adjusting their status.
 	 * @param player The player to be set.
@@ -185,52 +238,265 @@ public class Level {
 	public void setPlayer(Player player) {
 		this.player = player;
 	}
-
+	
 	/**
 	 * Gets a list of all the doors in the level.
-	 * @return All of the doors as an array.
+	 * @return All of the doors, accessed by their location.
 	 */
-	public Door[][] getDoors() {
+	public CellMap<Door> getDoors() {
 		return doors;
 	}
 	
 	/**
 	 * Gets a list of all the apparels in the level.
-	 * @return All of the apparels as an array.
+	 * @return All of the apparels, accessed by their location.
 	 */
-	public Apparel[][] getApparels() {
+	public CellMap<Apparel> getApparels() {
 		return apparels;
 	}
 	
 	/**
 	 * Gets a list of all the items in the level.
-	 * @return All of the items as an array.
+	 * @return All of the items, accessed by their location.
 	 */
-	public Item[][] getItems() {
+	public CellMap<Item> getItems() {
 		return items;
 	}
 	
 	/**
 	 * Gets a list of all the hazards in the level.
-	 * @return All of the hazards as an array.
+	 * @return All of the hazards, accessed by their location.
 	 */
-	public Hazard[][] getHazards() {
+	public CellMap<Hazard> getHazards() {
 		return hazards;
 	}
 	
 	/**
 	 * Gets a list of all the portals in the level.
-	 * @return All of the portals as an array.
+	 * @return All of the portals, accessed by their location.
 	 */
-	public Portal[][] getPortals() {
+	public CellMap<Portal> getPortals() {
 		return portals;
 	}
 	
 	/**
 	 * Gets a list of all the enemies in the level.
-	 * @return All of the enemies as an array.
+	 * @return All of the enemies as a table.
 	 */
-	public Enemy[] getEnemies() {
+	public EnemyTable getEnemies() {
 		return enemies;
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Gets the index that finds the enemy standing on a cell.
+	 * @return The enemy index of the level.
+	 */
+	public EnemyIndex getEnemyIndex() {
+		return enemyIndex;
+	}
+	
+	/**
+	 * Gets the enemy standing on a cell.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 * @return The index of the enemy in the enemy table, or EnemyIndex.NO_ENEMY.
+	 */
+	public int getEnemyAt(int x, int y) {
+		return enemyIndex.get(x, y);
+	}
+	
+	/**
+	 * Gets the distance from each cell to the player. Shared by all the smart enemies.
+	 * @return The distance field of the level.
+	 */
+	public DistanceField getDistanceField() {
+		return distanceField;
+	}
+	
+	/**
+	 * Gets the path finder used by the smart enemies in this level.
+	 * @return The path finder of the level.
+	 */
+	public Pathfinder getPathfinder() {
+		return pathfinder;
+	}
+	
+	/**
+	 * Gets the Jump Point Search path finder used by the smart enemies in this level.
+	 * @return The jump point path finder of the level.
+	 */
+	public JumpPointPathfinder getJumpPointPathfinder() {
+		return jumpPointPathfinder;
+	}
+	
+	/**
+	 * Gets the incremental path finder shared by the smart enemies, building it
+	 * the first time it's needed.
+	 * @return The incremental path finder of the level.
+	 */
+	public IncrementalPathfinder getIncrementalPathfinder() {
+		if (incrementalPathfinder == null) {
+			incrementalPathfinder = new IncrementalPathfinder(levelWidth, levelHeight);
+			incrementalPathfinder.setSearchBudget(searchBudget);
+		}
+		return incrementalPathfinder;
+	}
+	
+	/**
+	 * Gets the hierarchical path finder of the level.
+	 * @return The hierarchical path finder, or null if it hasn't been built.
+	 */
+	public HierarchicalPathfinder getHierarchicalPathfinder() {
+		return hierarchicalPathfinder;
+	}
+	
+	/**
+	 * Builds the clusters used by the hierarchical path finder.
+	 * @param mover An enemy whose blocking rules decide which cells are clear.
+	 */
+	public void buildHierarchicalPathfinder(Enemy mover) {
+		hierarchicalPathfinder = new HierarchicalPathfinder(mover, levelElements,
+				changedCells, visitedGrid);
+		hierarchicalPathfinder.setSearchBudget(searchBudget);
+		hierarchicalPathfinder.setLandmarks(landmarkTable);
+	}
+	
+	/**
+	 * Gives the level its own copy of a hierarchical path finder built for another play
+	 * of the same level (normally the level's template). The clusters are shared until
+	 * a cell of this level changes.
+	 * @param original The hierarchical path finder to be copied.
+	 */
+	public void setHierarchicalPathfinder(HierarchicalPathfinder original) {
+		hierarchicalPathfinder = original.copy(levelElements, changedCells, visitedGrid);
+		hierarchicalPathfinder.setSearchBudget(searchBudget);
+		hierarchicalPathfinder.setLandmarks(landmarkTable);
+	}
+	
+	/**
+	 * Gets how the smart enemies in this level search for the player.
+	 * @return The search mode of the level.
+	 */
+	public SearchMode getSearchMode() {
+		return searchMode;
+	}
+	
+	/**
+	 * Sets how the smart enemies in this level search for the player.
+	 * @param searchMode The search mode to be set.
+	 */
+	public void setSearchMode(SearchMode searchMode) {
+		this.searchMode = searchMode;
+	}
+	
+	/**
+	 * Gets the enemy mover of the level.
+	 * @return The object that moves the enemies each turn.
+	 */
+	public EnemyMover getEnemyMover() {
+		return enemyMover;
+	}
+	
+	/**
+	 * Gets the landmark distances used to guide the smart enemies' searches.
+	 * @return The landmark table, or null if the level doesn't have one.
+	 */
+	public LandmarkTable getLandmarkTable() {
+		return landmarkTable;
+	}
+	
+	/**
+	 * Sets the landmark distances used to guide the smart enemies' searches.
+	 * @param landmarkTable The landmark table to be set.
+	 */
+	public void setLandmarkTable(LandmarkTable landmarkTable) {
+		this.landmarkTable = landmarkTable;
+		pathfinder.setLandmarks(landmarkTable);
+		jumpPointPathfinder.setLandmarks(landmarkTable);
+		if (hierarchicalPathfinder != null) {
+			hierarchicalPathfinder.setLandmarks(landmarkTable);
+		}
+	}
+	
+	/**
+	 * Gets the budget that limits how much path finding the smart enemies can do each turn.
+	 * @return The search budget of the level.
+	 */
+	public SearchBudget getSearchBudget() {
+		return searchBudget;
+	}
+	
+	/**
+	 * Sets the budget that limits how much path finding the smart enemies can do each turn.
+	 * It's shared by every search in the level.
+	 * @param searchBudget The search budget to be set.
+	 */
+	public void setSearchBudget(SearchBudget searchBudget) {
+		this.searchBudget = searchBudget;
+		distanceField.setSearchBudget(searchBudget);
+		pathfinder.setSearchBudget(searchBudget);
+		jumpPointPathfinder.setSearchBudget(searchBudget);
+		if (incrementalPathfinder != null) {
+			incrementalPathfinder.setSearchBudget(searchBudget);
+		}
+		if (hierarchicalPathfinder != null) {
+			hierarchicalPathfinder.setSearchBudget(searchBudget);
+		}
+	}
+	
+	/**
+	 * Records that a cell has changed, e.g. an item was picked up or a door was opened.
+	 * Used by the smart enemies to repair their searches. The cell must already be cleared.
+	 * @param cellX The x-coordinate of the changed cell.
+	 * @param cellY The y-coordinate of the changed cell.
+	 */
+	public void markChanged(int cellX, int cellY) {
+		changedCells.add((cellY * levelWidth) + cellX);
+		// The enemies' paths were worked out for the level as it was loaded,
+		// so drop the ones the change could get in the way of.
+		if (enemyTrajectories != null) {
+			enemyTrajectories = enemyTrajectories.clearCell(levelElements, cellX, cellY);
+		}
+	}
+	
+	/**
+	 * Gets the cells that have changed since the level was loaded.
+	 * @return The changed cells as ids (y * width + x).
+	 */
+	public ArrayList<Integer> getChangedCells() {
+		return changedCells;
+	}
+	
+	/**
+	 * Gets the compiled paths of the straight and wall enemies.
+	 * @return The enemy trajectories, or null if the enemies are moved a turn at a time.
+	 */
+	public EnemyTrajectories getEnemyTrajectories() {
+		return enemyTrajectories;
+	}
+	
+	/**
+	 * Sets the compiled paths of the straight and wall enemies. Only valid for a level
+	 * as it is loaded (with the enemies where they start).
+	 * @param enemyTrajectories The enemy trajectories to be set, or null.
+	 */
+	public void setEnemyTrajectories(EnemyTrajectories enemyTrajectories) {
+		this.enemyTrajectories = enemyTrajectories;
+	}
+	
+	/**
+	 * Gets the number of turns the enemies have moved since the level was loaded.
+	 * @return The number of turns.
+	 */
+	public long getEnemyTurn() {
+		return enemyTurn;
+	}
+	
+	/**
+	 * Sets the number of turns the enemies have moved since the level was loaded.
+	 * @param enemyTurn The number of turns.
+	 */
+	public void setEnemyTurn(long enemyTurn) {
+		this.enemyTurn = enemyTurn;
+	}
+}
@@ -0,0 +1,705 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds the fewest moves needed to complete a level (or that it can't be completed), by
+ * trying every move from every state the game can get into, one depth at a time
+ * (breadth first search). A state is everything that decides what happens next: where
+ * the player is, the items they hold and their tokens, which pickups and doors are gone,
+ * and where the enemies are (with their directions and the wall enemies' random seeds).
+ * Each state is packed into a few longs and given a Zobrist hash, so a state reached
+ * again is skipped. The states of each depth are split between threads, which play the
+ * moves on their own copies of the level; the new states are then added in order, so
+ * the result is the same however many threads there are.
+ * Equipping doesn't take a turn, so the solver equips an item just before it's needed
+ * (walking into water, fire or a coloured door) and what's equipped isn't part of a state.
+ * @author William King
+ */
+public class LevelSolver {
+	/** Returned if the level can't be completed (or the search gave up). */
+	public final static int NOT_SOLVED = -1;
+	/** The number of levels in the game i.e. the highest level in the game. */
+	private final static int MAX_LEVEL = 5;
+	/** The most states held before the search gives up, if not given. */
+	private final static int DEFAULT_MAX_STATES = 2000000;
+	/** The number of states expanded by each parallel task. */
+	private final static int CHUNK_SIZE = 256;
+	/** The seed of the Zobrist keys, so the hashes are the same every run. */
+	private final static long ZOBRIST_SEED = 977;
+	/** The items the player can hold, in the order their counts are packed. */
+	private final static String[] ITEMS = {"Flippers", "Fire Boots", "Yellow Key",
+			"Orange Key", "Purple Key"};
+	/** The number of bits holding the player's cell. */
+	private final static int CELL_BITS = 24;
+	/** The number of bits holding the player's tokens. */
+	private final static int TOKEN_BITS = 12;
+	/** The number of bits holding the number of each item the player holds. */
+	private final static int COUNT_BITS = 4;
+	/** The number of enemy directions (including Direction.NONE). */
+	private final static int NUM_DIRECTIONS = 5;
+	/** Every move the player can make. */
+	private final static Action[] ACTIONS = Action.values();
+	
+	/** The number of the level being solved. */
+	private int levelNum;
+	
+	/** The level being solved, as it is at the start. */
+	private LevelTemplate template;
+	
+	/** The width of the level in cells. */
+	private int levelWidth;
+	
+	/** The number of cells in the level. */
+	private int numCells;
+	
+	/** The cell of each pickup and door in the level. */
+	private int[] objectCells;
+	
+	/** The tile of each pickup and door, before it's picked up or opened. */
+	private TileType[] objectTypes;
+	
+	/** The number of enemies in the level. */
+	private int numEnemies;
+	
+	/** True for each enemy that's a wall enemy (the only ones with a random seed). */
+	private boolean[] isWallEnemy;
+	
+	/** The number of longs holding the pickups and doors that are gone (a bit each). */
+	private int objectWords;
+	
+	/** The number of longs each state is packed into. */
+	private int stateSize;
+	
+	/** The Zobrist key of each cell the player can be on. */
+	private long[] playerKeys;
+	
+	/** The Zobrist key of each number of tokens. */
+	private long[] tokenKeys;
+	
+	/** The Zobrist key of each number of each item held. */
+	private long[] inventoryKeys;
+	
+	/** The Zobrist key of each pickup or door being gone. */
+	private long[] objectKeys;
+	
+	/** The Zobrist key of each enemy on each cell. */
+	private long[] enemyKeys;
+	
+	/** The Zobrist key of each enemy going in each direction. */
+	private long[] directionKeys;
+	
+	/** Mixed with each wall enemy's random seed. */
+	private long[] seedKeys;
+	
+	/** Every state reached by the last search. */
+	private StateSet states;
+	
+	/** The moves of the shortest solution found by the last search, or null. */
+	private ArrayList<Action> solution;
+	
+	/** The number of states expanded (tried every move from) by the last search. */
+	private long numExpanded;
+	
+	/** True if the last search tried every state it could reach. */
+	private boolean isExhausted;
+	
+	/**
+	 * Constructor for the LevelSolver class. Finds the pickups, doors and enemies of the level.
+	 * @param levelNum The number of the level to be solved.
+	 */
+	public LevelSolver(int levelNum) {
+		this.levelNum = levelNum;
+		template = FileHandling.getLevelTemplate(levelNum);
+		Level startLevel = template.createLevel();
+		TileGrid levelElements = startLevel.getLevelElements();
+		levelWidth = startLevel.getLevelWidth();
+		numCells = levelWidth * startLevel.getLevelHeight();
+		
+		// Find the pickups and doors, which can be taken off the level.
+		ArrayList<Integer> cells = new ArrayList<Integer>();
+		for (int cell = 0; cell < numCells; cell++) {
+			switch (levelElements.get(cell)) {
+				case APPAREL:
+				case ITEM:
+				case TOKEN:
+				case DOOR:
+					cells.add(cell);
+					break;
+				default:
+					break;
+			}
+		}
+		objectCells = new int[cells.size()];
+		objectTypes = new TileType[cells.size()];
+		for (int i = 0; i < objectCells.length; i++) {
+			objectCells[i] = cells.get(i);
+			objectTypes[i] = levelElements.get(objectCells[i]);
+		}
+		
+		EnemyTable enemies = startLevel.getEnemies();
+		numEnemies = enemies.size();
+		isWallEnemy = new boolean[numEnemies];
+		int numSeeds = 0;
+		for (int i = 0; i < numEnemies; i++) {
+			isWallEnemy[i] = enemies.getType(i) == EnemyType.WALL;
+			if (isWallEnemy[i]) {
+				numSeeds++;
+			}
+		}
+		
+		// The player, then the pickups and doors gone, then each enemy (and wall enemy seed).
+		objectWords = (objectCells.length + 63) / 64;
+		stateSize = 1 + objectWords + numEnemies + numSeeds;
+		makeZobristKeys();
+	}
+	
+	/**
+	 * Searches for the fewest moves needed to complete the level.
+	 * @param maxStates The most states held before the search gives up.
+	 * @return The number of moves in the shortest solution, or NOT_SOLVED.
+	 */
+	public int solve(int maxStates) {
+		states = new StateSet(stateSize);
+		solution = null;
+		numExpanded = 0;
+		isExhausted = false;
+		
+		long[] startState = new long[stateSize];
+		long startHash = pack(template.createLevel(), startState, 0);
+		states.add(startState, 0, startHash, -1, 0);
+		
+		int depth = 0;
+		int depthStart = 0;
+		int depthEnd = states.size();
+		while (solution == null && depthStart < depthEnd && states.size() < maxStates) {
+			// Expand every state of this depth in parallel.
+			int numChunks = (depthEnd - depthStart + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			Expansion[] expansions = new Expansion[numChunks];
+			ForkJoinPool.commonPool().invoke(new ExpandTask(expansions, depth, depthStart,
+					depthEnd, 0, numChunks));
+			numExpanded = numExpanded + (depthEnd - depthStart);
+			
+			// Add the new states in order, stopping at the first solution.
+			for (Expansion expansion : expansions) {
+				if (expansion.goalParent != NOT_SOLVED) {
+					makeSolution(expansion.goalParent, expansion.goalAction);
+					break;
+				}
+				for (int i = 0; i < expansion.size; i++) {
+					states.add(expansion.states, i * stateSize, expansion.hashes[i],
+							expansion.parents[i], expansion.actions[i]);
+				}
+			}
+			depth++;
+			depthStart = depthEnd;
+			depthEnd = states.size();
+		}
+		isExhausted = solution == null && depthStart == depthEnd;
+		
+		if (solution == null) {
+			return NOT_SOLVED;
+		}
+		return solution.size();
+	}
+	
+	/**
+	 * Gets the moves of the shortest solution found by the last search.
+	 * @return The moves in order, or null if no solution was found.
+	 */
+	public ArrayList<Action> getSolution() {
+		return solution;
+	}
+	
+	/**
+	 * Gets the number of different states reached by the last search.
+	 * @return The number of states.
+	 */
+	public int getNumStates() {
+		return states.size();
+	}
+	
+	/**
+	 * Gets the number of states expanded (tried every move from) by the last search.
+	 * @return The number of states expanded.
+	 */
+	public long getNumExpanded() {
+		return numExpanded;
+	}
+	
+	/**
+	 * Checks if the last search tried every state it could reach, i.e. if no solution
+	 * was found, the level can't be completed.
+	 * @return True if every reachable state was tried, otherwise false.
+	 */
+	public boolean isExhausted() {
+		return isExhausted;
+	}
+	
+	/**
+	 * Makes a recording of the shortest solution, equipping items as they're needed,
+	 * which can be played again by the replay engine.
+	 * @return The recording, or null if no solution was found.
+	 */
+	public InputRecording getSolutionRecording() {
+		if (solution == null) {
+			return null;
+		}
+		GameEngine gameEngine = new GameEngine(FileHandling.getLevel(levelNum));
+		InputRecording recording = new InputRecording(levelNum, gameEngine.getRandomSeed());
+		for (Action action : solution) {
+			String item = getItemNeeded(gameEngine.getLevel(), action);
+			if (item != null && !isEquipped(gameEngine.getPlayer(), item)) {
+				gameEngine.getPlayer().addEquipped(item);
+				recording.add(RecordedInput.fromItem(item));
+			}
+			recording.add(RecordedInput.fromAction(action));
+			gameEngine.step(action);
+		}
+		// The game goes on to the next level, so the recording ends there.
+		if (gameEngine.isLevelComplete() && levelNum < MAX_LEVEL) {
+			gameEngine.loadLevel(FileHandling.getLevel(levelNum + 1));
+		}
+		recording.setFinalStateHash(gameEngine.getStateHash());
+		return recording;
+	}
+	
+	/**
+	 * Works out the moves of the solution, from the state the goal was reached from.
+	 * @param goalParent The index of the state the goal was reached from.
+	 * @param goalAction The ordinal of the move onto the goal.
+	 */
+	private void makeSolution(int goalParent, int goalAction) {
+		solution = new ArrayList<Action>();
+		solution.add(ACTIONS[goalAction]);
+		int index = goalParent;
+		while (states.getParent(index) != -1) {
+			solution.add(ACTIONS[states.getAction(index)]);
+			index = states.getParent(index);
+		}
+		Collections.reverse(solution);
+	}
+	
+	/**
+	 * Packs the state of a level into longs.
+	 * @param level The level being played.
+	 * @param state Where the state is packed.
+	 * @param offset Where the state starts in the array.
+	 * @return The Zobrist hash of the state.
+	 */
+	private long pack(Level level, long[] state, int offset) {
+		Player player = level.getPlayer();
+		int playerCell = (player.getY() * levelWidth) + player.getX();
+		int numTokens = player.getNumTokens();
+		long playerWord = playerCell | ((long) numTokens << CELL_BITS);
+		long hash = playerKeys[playerCell] ^ tokenKeys[numTokens];
+		
+		// Count each item held. The order they're held in doesn't matter.
+		int[] counts = new int[ITEMS.length];
+		for (String item : player.getInventory()) {
+			counts[getItemIndex(item)]++;
+		}
+		for (int i = 0; i < ITEMS.length; i++) {
+			playerWord = playerWord | ((long) counts[i] << (CELL_BITS + TOKEN_BITS + (i * COUNT_BITS)));
+			hash = hash ^ inventoryKeys[(i << COUNT_BITS) + counts[i]];
+		}
+		state[offset] = playerWord;
+		
+		// A pickup or door is gone if its cell now holds something else.
+		TileGrid levelElements = level.getLevelElements();
+		for (int i = 0; i < objectWords; i++) {
+			state[offset + 1 + i] = 0;
+		}
+		for (int i = 0; i < objectCells.length; i++) {
+			if (levelElements.get(objectCells[i]) != objectTypes[i]) {
+				state[offset + 1 + (i / 64)] |= 1L << (i % 64);
+				hash = hash ^ objectKeys[i];
+			}
+		}
+		
+		EnemyTable enemies = level.getEnemies();
+		int position = offset + 1 + objectWords;
+		for (int i = 0; i < numEnemies; i++) {
+			int enemyCell = (enemies.getY(i) * levelWidth) + enemies.getX(i);
+			int direction = enemies.getDirection(i) + 1;
+			state[position] = enemyCell | ((long) direction << 32);
+			hash = hash ^ enemyKeys[(i * numCells) + enemyCell] ^ directionKeys[(i * NUM_DIRECTIONS) + direction];
+			position++;
+			if (isWallEnemy[i]) {
+				long randomSeed = enemies.getRandomSeed(i);
+				state[position] = randomSeed;
+				hash = hash ^ mix(randomSeed ^ seedKeys[i]);
+				position++;
+			}
+		}
+		return hash;
+	}
+	
+	/**
+	 * Sets up a new copy of the level in a packed state.
+	 * @param state The array holding the packed state.
+	 * @param offset Where the state starts in the array.
+	 * @param depth The number of moves made to reach the state.
+	 * @param level A new copy of the level (as it is at the start).
+	 */
+	private void unpack(long[] state, int offset, int depth, Level level) {
+		Player player = level.getPlayer();
+		long playerWord = state[offset];
+		int playerCell = (int) (playerWord & ((1L << CELL_BITS) - 1));
+		player.setX(playerCell % levelWidth);
+		player.setY(playerCell / levelWidth);
+		player.setNumTokens((int) ((playerWord >>> CELL_BITS) & ((1L << TOKEN_BITS) - 1)));
+		
+		ArrayList<String> inventory = new ArrayList<String>();
+		for (int i = 0; i < ITEMS.length; i++) {
+			long count = (playerWord >>> (CELL_BITS + TOKEN_BITS + (i * COUNT_BITS))) & ((1L << COUNT_BITS) - 1);
+			for (int j = 0; j < count; j++) {
+				inventory.add(ITEMS[i]);
+			}
+		}
+		player.setInventory(inventory.toArray(new String[inventory.size()]));
+		
+		// Take the pickups and doors that are gone off the level.
+		TileGrid levelElements = level.getLevelElements();
+		for (int i = 0; i < objectCells.length; i++) {
+			if ((state[offset + 1 + (i / 64)] & (1L << (i % 64))) != 0) {
+				int cellX = objectCells[i] % levelWidth;
+				int cellY = objectCells[i] / levelWidth;
+				levelElements.set(cellX, cellY, TileType.FLOOR);
+				level.markChanged(cellX, cellY);
+			}
+		}
+		
+		// Move the enemies from where they start to where they are.
+		EnemyTable enemies = level.getEnemies();
+		for (int i = 0; i < numEnemies; i++) {
+			levelElements.set(enemies.getX(i), enemies.getY(i), TileType.FLOOR);
+		}
+		int position = offset + 1 + objectWords;
+		for (int i = 0; i < numEnemies; i++) {
+			int enemyCell = (int) state[position];
+			enemies.setLocation(i, enemyCell % levelWidth, enemyCell / levelWidth);
+			enemies.setDirection(i, (int) (state[position] >>> 32) - 1);
+			position++;
+			if (isWallEnemy[i]) {
+				enemies.setRandomSeed(i, state[position]);
+				position++;
+			}
+			levelElements.set(enemyCell % levelWidth, enemyCell / levelWidth, TileType.ENEMY);
+		}
+		level.getEnemyIndex().reset(enemies);
+		// Each move of a state's path moved the enemies, so their compiled paths still hold.
+		level.setEnemyTurn(depth);
+	}
+	
+	/**
+	 * Gets the item the player needs equipped to make a move: flippers or fire boots to
+	 * walk into water or fire, or the key of a coloured door.
+	 * @param level The level being played.
+	 * @param action The move the player makes.
+	 * @return The item needed (if the player holds it), or null.
+	 */
+	private static String getItemNeeded(Level level, Action action) {
+		Player player = level.getPlayer();
+		int newX = player.getX() + action.getXChange();
+		int newY = player.getY() + action.getYChange();
+		String item = null;
+		switch (level.getLevelElements().get(newX, newY)) {
+			case HAZARD:
+				if (level.getHazards().get(newX, newY).getType() == HazardType.WATER) {
+					item = "Flippers";
+				} else {
+					item = "Fire Boots";
+				}
+				break;
+			case DOOR:
+				switch (level.getDoors().get(newX, newY).getType()) {
+					case YELLOW:
+						item = "Yellow Key";
+						break;
+					case ORANGE:
+						item = "Orange Key";
+						break;
+					case PURPLE:
+						item = "Purple Key";
+						break;
+					default:
+						break;
+				}
+				break;
+			default:
+				break;
+		}
+		
+		if (item == null || getItemIndex(player.getInventory(), item) < 0) {
+			return null;
+		}
+		return item;
+	}
+	
+	/**
+	 * Checks if the player has an item equipped.
+	 * @param player The player.
+	 * @param item The name of the item.
+	 * @return True if the item is equipped, otherwise false.
+	 */
+	private static boolean isEquipped(Player player, String item) {
+		String[] equippedItems = player.getEquippedItems();
+		return equippedItems[0].equals(item) || equippedItems[1].equals(item);
+	}
+	
+	/**
+	 * Gets where an item is in a list of items.
+	 * @param items The list of items.
+	 * @param item The name of the item.
+	 * @return The index of the item, or -1 if it isn't in the list.
+	 */
+	private static int getItemIndex(String[] items, String item) {
+		for (int i = 0; i < items.length; i++) {
+			if (items[i].equals(item)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Gets where an item's count is packed.
+	 * @param item The name of the item.
+	 * @return The index of the item in ITEMS.
+	 */
+	private static int getItemIndex(String item) {
+		return getItemIndex(ITEMS, item);
+	}
+	
+	/**
+	 * Makes a random Zobrist key for every part of a state.
+	 */
+	private void makeZobristKeys() {
+		Random rand = new Random(ZOBRIST_SEED);
+		playerKeys = makeKeys(rand, numCells);
+		tokenKeys = makeKeys(rand, 1 << TOKEN_BITS);
+		inventoryKeys = makeKeys(rand, ITEMS.length << COUNT_BITS);
+		objectKeys = makeKeys(rand, objectCells.length);
+		enemyKeys = makeKeys(rand, numEnemies * numCells);
+		directionKeys = makeKeys(rand, numEnemies * NUM_DIRECTIONS);
+		seedKeys = makeKeys(rand, numEnemies);
+	}
+	
+	/**
+	 * Makes an array of random Zobrist keys.
+	 * @param rand Generates the keys.
+	 * @param numKeys The number of keys.
+	 * @return The keys.
+	 */
+	private static long[] makeKeys(Random rand, int numKeys) {
+		long[] keys = new long[numKeys];
+		for (int i = 0; i < numKeys; i++) {
+			keys[i] = rand.nextLong();
+		}
+		return keys;
+	}
+	
+	/**
+	 * Mixes the bits of a number, so a wall enemy's random seed can be hashed.
+	 * @param value The number to be mixed.
+	 * @return The mixed number.
+	 */
+	private static long mix(long value) {
+		value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+		value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return value ^ (value >>> 33);
+	}
+	
+	/**
+	 * Solves levels of the game and reports how long it took.
+	 * @param args The level to solve (all of them if not given), then (optionally)
+	 * the most states held before giving up.
+	 */
+	public static void main(String[] args) {
+		int firstLevel = 1;
+		int lastLevel = MAX_LEVEL;
+		if (args.length > 0) {
+			firstLevel = Integer.parseInt(args[0]);
+			lastLevel = firstLevel;
+		}
+		int maxStates = DEFAULT_MAX_STATES;
+		if (args.length > 1) {
+			maxStates = Integer.parseInt(args[1]);
+		}
+		
+		System.out.printf("%d cores, at most %d states%n",
+				Runtime.getRuntime().availableProcessors(), maxStates);
+		for (int levelNum = firstLevel; levelNum <= lastLevel; levelNum++) {
+			LevelSolver solver = new LevelSolver(levelNum);
+			long startTime = System.nanoTime();
+			int numMoves = solver.solve(maxStates);
+			long solveTime = System.nanoTime() - startTime;
+			
+			System.out.printf("Level %d: ", levelNum);
+			if (numMoves != NOT_SOLVED) {
+				String strMoves = "";
+				for (Action action : solver.getSolution()) {
+					strMoves = strMoves + action.name().charAt(0);
+				}
+				System.out.println("solved in " + numMoves + " moves: " + strMoves);
+			} else if (solver.isExhausted()) {
+				System.out.println("can't be completed");
+			} else {
+				System.out.println("gave up (too many states)");
+			}
+			System.out.printf("  %d states, %d expanded in %.0f ms (%.0f states per second)%n",
+					solver.getNumStates(), solver.getNumExpanded(), solveTime / 1e6,
+					solver.getNumExpanded() / (solveTime / 1e9));
+		}
+	}
+	
+	/**
+	 * The new states found by expanding a chunk of the states of a depth.
+	 */
+	private static class Expansion {
+		/** The new states, packed one after another. */
+		private long[] states;
+		
+		/** The hash of each new state. */
+		private long[] hashes;
+		
+		/** The index of the state each new state was reached from. */
+		private int[] parents;
+		
+		/** The ordinal of the move made to reach each new state. */
+		private byte[] actions;
+		
+		/** The number of new states. */
+		private int size;
+		
+		/** The index of the state the goal was reached from, or NOT_SOLVED. */
+		private int goalParent;
+		
+		/** The ordinal of the move onto the goal. */
+		private int goalAction;
+		
+		/**
+		 * Constructor for the Expansion class.
+		 * @param capacity The most new states (every move from every state in the chunk).
+		 * @param stateSize The number of longs each state is packed into.
+		 */
+		private Expansion(int capacity, int stateSize) {
+			states = new long[capacity * stateSize];
+			hashes = new long[capacity];
+			parents = new int[capacity];
+			actions = new byte[capacity];
+			size = 0;
+			goalParent = NOT_SOLVED;
+		}
+	}
+	
+	/**
+	 * Expands a range of chunks of the states of a depth, splitting the range between threads.
+	 */
+	private class ExpandTask extends RecursiveAction {
+		/** Used for serialisation. */
+		private static final long serialVersionUID = 1L;
+		
+		/** Filled in with the new states found from each chunk. */
+		private Expansion[] expansions;
+		
+		/** The number of moves made to reach the states of the depth. */
+		private int depth;
+		
+		/** The index of the first state of the depth. */
+		private int depthStart;
+		
+		/** The index after the last state of the depth. */
+		private int depthEnd;
+		
+		/** The first chunk in the range. */
+		private int start;
+		
+		/** The chunk after the last one in the range. */
+		private int end;
+		
+		/**
+		 * Constructor for the ExpandTask class.
+		 * @param expansions Filled in with the new states found from each chunk.
+		 * @param depth The number of moves made to reach the states of the depth.
+		 * @param depthStart The index of the first state of the depth.
+		 * @param depthEnd The index after the last state of the depth.
+		 * @param start The first chunk in the range.
+		 * @param end The chunk after the last one in the range.
+		 */
+		private ExpandTask(Expansion[] expansions, int depth, int depthStart, int depthEnd,
+				int start, int end) {
+			this.expansions = expansions;
+			this.depth = depth;
+			this.depthStart = depthStart;
+			this.depthEnd = depthEnd;
+			this.start = start;
+			this.end = end;
+		}
+		
+		/**
+		 * Expands the chunk, or splits the range in two if it has more than one chunk.
+		 */
+		@Override
+		protected void compute() {
+			if (end - start == 1) {
+				expandChunk();
+			} else {
+				int middle = (start + end) / 2;
+				invokeAll(new ExpandTask(expansions, depth, depthStart, depthEnd, start, middle),
+						new ExpandTask(expansions, depth, depthStart, depthEnd, middle, end));
+			}
+		}
+		
+		/**
+		 * Tries every move from every state in the chunk, on a new copy of the level each time.
+		 */
+		private void expandChunk() {
+			int first = depthStart + (start * CHUNK_SIZE);
+			int last = Math.min(first + CHUNK_SIZE, depthEnd);
+			Expansion expansion = new Expansion((last - first) * ACTIONS.length, stateSize);
+			long[] parentStates = states.getStates();
+			GameEngine gameEngine = null;
+			
+			for (int parent = first; parent < last && expansion.goalParent == NOT_SOLVED; parent++) {
+				for (Action action : ACTIONS) {
+					Level level = template.createLevel();
+					if (gameEngine == null) {
+						gameEngine = new GameEngine(level);
+					} else {
+						gameEngine.loadLevel(level);
+					}
+					unpack(parentStates, parent * stateSize, depth, level);
+					String item = getItemNeeded(level, action);
+					if (item != null) {
+						level.getPlayer().addEquipped(item);
+					}
+					
+					ArrayList<GameEvent> events = gameEngine.step(action);
+					if (gameEngine.isLevelComplete()) {
+						expansion.goalParent = parent;
+						expansion.goalAction = action.ordinal();
+						break;
+					}
+					// A move that kills the player only leads back to the start.
+					if (!events.isEmpty() && events.get(events.size() - 1).getType()
+							== GameEventType.LEVEL_RESTARTED) {
+						continue;
+					}
+					
+					long hash = pack(level, expansion.states, expansion.size * stateSize);
+					expansion.hashes[expansion.size] = hash;
+					expansion.parents[expansion.size] = parent;
+					expansion.actions[expansion.size] = (byte) action.ordinal();
+					expansion.size++;
+				}
+			}
+			expansions[start] = expansion;
+		}
+	}
+}
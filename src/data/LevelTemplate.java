@@ -0,0 +1,216 @@
+package data;
+
+import java.util.ArrayList;
+
+/**
+ * Holds a level as it is read from its file, before it is played. The template is
+ * read once and never changed, so every play of the level (including restarts and
+ * saved games) shares its tiles, objects, landmark distances and clusters. Each play gets its
+ * own level, which only copies the tiles once they change, and its own player and enemies.
+ * @author William King
+ */
+public class LevelTemplate {
+	/** Specifies which level this is e.g. level 1, 2,... */
+	private int levelNumber;
+	
+	/** The tiles of the level at the start. Never changed. */
+	private TileGrid levelElements;
+	
+	/** The walls and goal of the level (the level base), used to rebuild saved games. Never changed. */
+	private TileGrid baseElements;
+	
+	/** The x-coordinate the player starts at. */
+	private int startX;
+	
+	/** The y-coordinate the player starts at. */
+	private int startY;
+	
+	/** The doors. Accessed by their location on the level. */
+	private CellMap<Door> doors;
+	
+	/** The apparels. Accessed by their location on the level. */
+	private CellMap<Apparel> apparels;
+	
+	/** The items. Accessed by their location on the level. */
+	private CellMap<Item> items;
+	
+	/** The hazards. Accessed by their location on the level. */
+	private CellMap<Hazard> hazards;
+	
+	/** The portals. Accessed by their location on the level. */
+	private CellMap<Portal> portals;
+	
+	/** The enemies at the start. Copied for each play, as they move. */
+	private EnemyTable enemies;
+	
+	/** How the smart enemies in the level search for the player. */
+	private SearchMode searchMode;
+	
+	/** How much path finding the smart enemies can do each turn. Copied for each play. */
+	private SearchBudget searchBudget;
+	
+	/** The landmark distances of the level. */
+	private LandmarkTable landmarkTable;
+	
+	/** The compiled paths of the straight and wall enemies. */
+	private EnemyTrajectories enemyTrajectories;
+	
+	/** The clusters of the level, built the first time a play needs them. Each play gets a copy. */
+	private HierarchicalPathfinder hierarchicalPathfinder;
+	
+	/** When the level file was last changed, at the time it was read. */
+	private long levelFileTime;
+	
+	/** When the level base file was last changed, at the time it was read. */
+	private long baseFileTime;
+	
+	/**
+	 * Constructor for the LevelTemplate class. Works out the landmark distances of the level
+	 * and the paths of its straight and wall enemies.
+	 * @param levelElements The tiles of the level at the start.
+	 * @param baseElements The walls and goal of the level.
+	 * @param levelNumber The number of the level.
+	 * @param startX The x-coordinate the player starts at.
+	 * @param startY The y-coordinate the player starts at.
+	 * @param doors All the doors in the level.
+	 * @param apparels All the apparels in the level.
+	 * @param items All the items in the level.
+	 * @param hazards All the hazards in the level.
+	 * @param portals All the portals in the level.
+	 * @param enemies All the enemies in the level.
+	 * @param searchMode How the smart enemies search for the player.
+	 * @param searchBudget How much path finding the smart enemies can do each turn.
+	 */
+	public LevelTemplate(TileGrid levelElements, TileGrid baseElements, int levelNumber,
+			int startX, int startY, CellMap<Door> doors, CellMap<Apparel> apparels,
+			CellMap<Item> items, CellMap<Hazard> hazards, CellMap<Portal> portals,
+			EnemyTable enemies, SearchMode searchMode, SearchBudget searchBudget) {
+		this.levelElements = levelElements;
+		this.baseElements = baseElements;
+		this.levelNumber = levelNumber;
+		this.startX = startX;
+		this.startY = startY;
+		this.doors = doors;
+		this.apparels = apparels;
+		this.items = items;
+		this.hazards = hazards;
+		this.portals = portals;
+		this.enemies = enemies;
+		this.searchMode = searchMode;
+		this.searchBudget = searchBudget;
+		landmarkTable = new LandmarkTable(levelElements);
+		enemyTrajectories = new EnemyTrajectories(levelElements, enemies);
+	}
+	
+	/**
+	 * Makes a new play of the level, as it is at the start.
+	 * @return The level, ready to be played.
+	 */
+	public Level createLevel() {
+		Level newLevel = new Level(levelElements.copy(), levelNumber, new Player(startX, startY),
+				doors, apparels, items, hazards, portals, enemies.copy());
+		newLevel.setSearchMode(searchMode);
+		newLevel.setSearchBudget(copySearchBudget());
+		// Only a new play has its enemies where they start, so a saved game doesn't get them.
+		newLevel.setEnemyTrajectories(enemyTrajectories);
+		prepareSearch(newLevel);
+		return newLevel;
+	}
+	
+	/**
+	 * Gives a level of this template its landmark distances, and its hierarchical path
+	 * finder if any of its smart enemies use it. The clusters are worked out once, while
+	 * the first play is loaded (rather than on its first move), and copied for the others.
+	 * @param level A level made from this template (new or from a saved game).
+	 */
+	public void prepareSearch(Level level) {
+		level.setLandmarkTable(landmarkTable);
+		
+		EnemyTable levelEnemies = level.getEnemies();
+		for (int i = 0; i < levelEnemies.size(); i++) {
+			SmartEnemy smartEnemy = levelEnemies.getSmartEnemy(i);
+			if (smartEnemy != null) {
+				SearchMode mode = smartEnemy.getSearchMode();
+				if (mode == null) {
+					mode = level.getSearchMode();
+				}
+				if (mode == SearchMode.HIERARCHICAL) {
+					if (hierarchicalPathfinder == null) {
+						hierarchicalPathfinder = new HierarchicalPathfinder(smartEnemy, levelElements,
+								new ArrayList<Integer>(), new VisitedGrid(levelElements.getWidth()
+								* levelElements.getHeight()));
+					}
+					level.setHierarchicalPathfinder(hierarchicalPathfinder);
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Gets a copy of the walls and goal of the level, to place a saved game's objects on.
+	 * @return The level base, only copied once it changes.
+	 */
+	public TileGrid copyBaseElements() {
+		return baseElements.copy();
+	}
+	
+	/**
+	 * Gets the number of the level.
+	 * @return The level number.
+	 */
+	public int getLevelNumber() {
+		return levelNumber;
+	}
+	
+	/**
+	 * Gets when the level file was last changed, at the time it was read.
+	 * @return The time in milliseconds (since the epoch).
+	 */
+	public long getLevelFileTime() {
+		return levelFileTime;
+	}
+	
+	/**
+	 * Gets when the level base file was last changed, at the time it was read.
+	 * @return The time in milliseconds (since the epoch).
+	 */
+	public long getBaseFileTime() {
+		return baseFileTime;
+	}
+	
+	/**
+	 * Sets when the level's files were last changed, at the time they were read.
+	 * Used to tell if the template is out of date.
+	 * @param levelFileTime When the level file was last changed.
+	 * @param baseFileTime When the level base file was last changed.
+	 */
+	public void setFileTimes(long levelFileTime, long baseFileTime) {
+		this.levelFileTime = levelFileTime;
+		this.baseFileTime = baseFileTime;
+	}
+	
+	/**
+	 * Gets the landmark distances of the level.
+	 * @return The landmark table.
+	 */
+	public LandmarkTable getLandmarkTable() {
+		return landmarkTable;
+	}
+	
+	/**
+	 * Gets the compiled paths of the straight and wall enemies.
+	 * @return The enemy trajectories.
+	 */
+	public EnemyTrajectories getEnemyTrajectories() {
+		return enemyTrajectories;
+	}
+	
+	/**
+	 * Makes a new search budget with the same limit, as each play spends its own.
+	 * @return The copy of the search budget.
+	 */
+	private SearchBudget copySearchBudget() {
+		return new SearchBudget(searchBudget.getUnit(), searchBudget.getLimit());
+	}
+}
@@ -5,6 +5,7 @@ import javafx.stage.Stage;
 import javafx.scene.Scene;
 import javafx.scene.layout.BorderPane;
 import javafx.fxml.FXMLLoader;
+import controllers.SpriteRegistry;
 
 /**
  * The main class starts the program and executes the 
@@ -37,6 +38,9 @@ public class Main extends Application {
 	@Override 
 	public void start(Stage primaryStage) {
 		try {
+			// Load every sprite once, so opening a game window doesn't read any images.
+			SpriteRegistry.loadAll();
+			
 			// Load the main scene.
 			BorderPane root = (BorderPane) FXMLLoader.load(getClass().getResource(FXML_FILE_PATH + "Login.fxml"));
 			Scene scene = new Scene(root, STAGE_WIDTH, STAGE_HEIGHT);
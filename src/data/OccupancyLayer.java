@@ -0,0 +1,58 @@
+package data;
+
+/**
+ * An enum that holds the layers of cells kept by a tile grid. Each layer is a bitset
+ * (one bit per cell) of the cells holding one of the layer's tile types, so checking
+ * if a cell blocks a mover is a single bit test instead of a switch on the tile.
+ * @author William King
+ */
+public enum OccupancyLayer {
+	/** The walls. */
+	WALLS(TileType.WALL),
+	
+	/** The water and fire hazards. */
+	HAZARDS(TileType.HAZARD),
+	
+	/** The apparel, items and tokens that can be picked up by the player. */
+	PICKUPS(TileType.APPAREL, TileType.ITEM, TileType.TOKEN),
+	
+	/** The tokens. */
+	TOKENS(TileType.TOKEN),
+	
+	/** The doors. */
+	DOORS(TileType.DOOR),
+	
+	/** The enemies. */
+	ENEMIES(TileType.ENEMY),
+	
+	/** The cells that block an enemy's move (everything apart from the floor). */
+	ENEMY_BLOCKED(TileType.WALL, TileType.GOAL, TileType.APPAREL, TileType.ITEM, TileType.DOOR,
+			TileType.TOKEN, TileType.PORTAL, TileType.HAZARD, TileType.ENEMY),
+	
+	/** The cells that the player can't be moved onto when leaving a portal. */
+	PORTAL_BLOCKED(TileType.WALL, TileType.HAZARD);
+	
+	/** The tile types in the layer, as bits set by the tile type's ordinal. */
+	private final int tileMask;
+	
+	/**
+	 * Constructor for the OccupancyLayer enum.
+	 * @param tileTypes The tile types in the layer.
+	 */
+	private OccupancyLayer(TileType... tileTypes) {
+		int mask = 0;
+		for (TileType tileType : tileTypes) {
+			mask |= 1 << tileType.ordinal();
+		}
+		tileMask = mask;
+	}
+	
+	/**
+	 * Checks if a tile type is in the layer.
+	 * @param tileType The tile type to be checked.
+	 * @return True if the tile type is in the layer, otherwise false.
+	 */
+	public boolean contains(TileType tileType) {
+		return (tileMask & (1 << tileType.ordinal())) != 0;
+	}
+}
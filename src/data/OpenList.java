@@ -0,0 +1,215 @@
+package data;
+
+/**
+ * An indexed binary min-heap of cells, used as the open list for the smart
+ * enemy path finding. Cells are stored as packed integer ids (y * width + x)
+ * and each cell keeps track of its own position in the heap, so its priority
+ * can be lowered in place instead of being added a second time.
+ * @author William King
+ */
+public class OpenList {
+	/** Marks a cell that is not currently in the heap. */
+	private final static int NOT_IN_HEAP = -1;
+	
+	/** The cell ids in heap order. */
+	private int[] heap;
+	
+	/** The priority (score) of each cell. Accessed by the cell id. */
+	private long[] priorities;
+	
+	/** The index of each cell within the heap. Accessed by the cell id. */
+	private int[] positions;
+	
+	/** The number of cells currently in the heap. */
+	private int size;
+	
+	/**
+	 * Constructor for the OpenList class.
+	 * @param numCells The number of cells in the level (height * width).
+	 */
+	public OpenList(int numCells) {
+		heap = new int[numCells];
+		priorities = new long[numCells];
+		positions = new int[numCells];
+		for (int i = 0; i < numCells; i++) {
+			positions[i] = NOT_IN_HEAP;
+		}
+		size = 0;
+	}
+	
+	/**
+	 * Empties the heap. Only the cells that are left in the heap are reset.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			positions[heap[i]] = NOT_IN_HEAP;
+		}
+		size = 0;
+	}
+	
+	/**
+	 * Checks if there are no cells left in the heap.
+	 * @return True if the heap is empty, otherwise false.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * Adds a cell to the heap, or lowers its priority if it's already in it.
+	 * @param cell The cell id to be added.
+	 * @param priority The priority of the cell (lower comes out first).
+	 */
+	public void addOrDecrease(int cell, long priority) {
+		int index = positions[cell];
+		if (index == NOT_IN_HEAP) {
+			index = size;
+			size++;
+			heap[index] = cell;
+			positions[cell] = index;
+		} else if (priority >= priorities[cell]) {
+			// The cell already has a better (or the same) priority.
+			return;
+		}
+		priorities[cell] = priority;
+		siftUp(index);
+	}
+	
+	/**
+	 * Adds a cell to the heap, or changes its priority (higher or lower) if it's already in it.
+	 * @param cell The cell id to be added.
+	 * @param priority The new priority of the cell.
+	 */
+	public void update(int cell, long priority) {
+		int index = positions[cell];
+		if (index == NOT_IN_HEAP) {
+			addOrDecrease(cell, priority);
+			return;
+		}
+		long oldPriority = priorities[cell];
+		priorities[cell] = priority;
+		if (priority < oldPriority) {
+			siftUp(index);
+		} else {
+			siftDown(index);
+		}
+	}
+	
+	/**
+	 * Removes a cell from the heap (if it's in it).
+	 * @param cell The cell id to be removed.
+	 */
+	public void remove(int cell) {
+		int index = positions[cell];
+		if (index == NOT_IN_HEAP) {
+			return;
+		}
+		positions[cell] = NOT_IN_HEAP;
+		size--;
+		
+		// Fill the gap with the last cell, then move it to its place.
+		if (index < size) {
+			int lastCell = heap[size];
+			heap[index] = lastCell;
+			positions[lastCell] = index;
+			if (priorities[lastCell] < priorities[cell]) {
+				siftUp(index);
+			} else {
+				siftDown(index);
+			}
+		}
+	}
+	
+	/**
+	 * Checks if a cell is currently in the heap.
+	 * @param cell The cell id to be checked.
+	 * @return True if the cell is in the heap, otherwise false.
+	 */
+	public boolean contains(int cell) {
+		return positions[cell] != NOT_IN_HEAP;
+	}
+	
+	/**
+	 * Gets the cell with the lowest priority, without removing it.
+	 * @return The cell id with the lowest priority.
+	 */
+	public int peekMin() {
+		return heap[0];
+	}
+	
+	/**
+	 * Gets the lowest priority in the heap.
+	 * @return The priority of the top cell.
+	 */
+	public long getMinPriority() {
+		return priorities[heap[0]];
+	}
+	
+	/**
+	 * Removes the cell with the lowest priority from the heap.
+	 * @return The cell id with the lowest priority.
+	 */
+	public int removeMin() {
+		int minCell = heap[0];
+		positions[minCell] = NOT_IN_HEAP;
+		size--;
+		
+		// Move the last cell to the top, then let it sink to its place.
+		if (size > 0) {
+			int lastCell = heap[size];
+			heap[0] = lastCell;
+			positions[lastCell] = 0;
+			siftDown(0);
+		}
+		return minCell;
+	}
+	
+	/**
+	 * Moves a cell up the heap until its parent has a lower (or equal) priority.
+	 * @param index The index of the cell in the heap.
+	 */
+	private void siftUp(int index) {
+		int cell = heap[index];
+		long priority = priorities[cell];
+		while (index > 0) {
+			int parentIndex = (index - 1) / 2;
+			int parentCell = heap[parentIndex];
+			if (priorities[parentCell] <= priority) {
+				break;
+			}
+			heap[index] = parentCell;
+			positions[parentCell] = index;
+			index = parentIndex;
+		}
+		heap[index] = cell;
+		positions[cell] = index;
+	}
+	
+	/**
+	 * Moves a cell down the heap until both children have a higher (or equal) priority.
+	 * @param index The index of the cell in the heap.
+	 */
+	private void siftDown(int index) {
+		int cell = heap[index];
+		long priority = priorities[cell];
+		int half = size / 2;
+		while (index < half) {
+			// Pick the child with the lower priority.
+			int childIndex = (2 * index) + 1;
+			int childCell = heap[childIndex];
+			int rightIndex = childIndex + 1;
+			if (rightIndex < size && priorities[heap[rightIndex]] < priorities[childCell]) {
+				childIndex = rightIndex;
+				childCell = heap[rightIndex];
+			}
+			if (priority <= priorities[childCell]) {
+				break;
+			}
+			heap[index] = childCell;
+			positions[childCell] = index;
+			index = childIndex;
+		}
+		heap[index] = cell;
+		positions[cell] = index;
+	}
+}
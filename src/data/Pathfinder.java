@@ -0,0 +1,208 @@
+package data;
+
+/**
+ * Finds the shortest path between two cells of a level using A* Search.
+ * Used by the smart enemy to move towards the player.
+ * Each cell is referred to by a packed id (y * width + x), and the cost and
+ * ancestor of every cell are held in flat arrays (accessed by the cell id).
+ * @author William King
+ */
+public class Pathfinder {
+	/** Returned if there is no path between the two cells. */
+	public final static int NO_PATH = -1;
+	
+	/** Marks a cell that has no ancestor. */
+	protected final static int UNSET = -1;
+	
+	/** The width of the level in cells. */
+	protected int levelWidth;
+	
+	/** The height of the level in cells. */
+	protected int levelHeight;
+	
+	/** The cost of reaching each cell from the start. Accessed by the cell id. 
+	 * Only valid for cells that have been visited by the current search.
+	 * The cell arrays are only made when the first search starts. */
+	protected int[] costs;
+	
+	/** The ancestor of each cell on its path. Accessed by the cell id. */
+	protected int[] ancestors;
+	
+	/** The cells waiting to be expanded, ordered by their score. */
+	protected OpenList openList;
+	
+	/** The cells that have been reached by the current search. */
+	protected VisitedGrid visitedGrid;
+	
+	/** The number of cells expanded by the last search. */
+	protected int expansions;
+	
+	/** Limits how many cells can be expanded each turn. A search that runs out gives up. */
+	protected SearchBudget budget;
+	
+	/** The landmark distances used to guide the search. If null, only the Manhattan distance is used. */
+	protected LandmarkTable landmarks;
+	
+	/**
+	 * Constructor for the Pathfinder class.
+	 * @param levelWidth The width of the level in cells.
+	 * @param levelHeight The height of the level in cells.
+	 */
+	public Pathfinder(int levelWidth, int levelHeight) {
+		this(levelWidth, levelHeight, new VisitedGrid(levelWidth * levelHeight));
+	}
+	
+	/**
+	 * Constructor for the Pathfinder class, using a visited grid owned by the level.
+	 * @param levelWidth The width of the level in cells.
+	 * @param levelHeight The height of the level in cells.
+	 * @param visitedGrid Keeps track of the cells reached by each search.
+	 */
+	public Pathfinder(int levelWidth, int levelHeight, VisitedGrid visitedGrid) {
+		this.levelWidth = levelWidth;
+		this.levelHeight = levelHeight;
+		this.visitedGrid = visitedGrid;
+		budget = new SearchBudget();
+	}
+	
+	/**
+	 * Finds the first step of the shortest path from the start to the goal.
+	 * @param mover The enemy that the path is for (decides which cells block it).
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param startX The x-coordinate of the start cell.
+	 * @param startY The y-coordinate of the start cell.
+	 * @param goalX The x-coordinate of the goal cell.
+	 * @param goalY The y-coordinate of the goal cell.
+	 * @return The cell id of the next move, or NO_PATH if the goal is unreachable
+	 * (or the budget ran out first).
+	 */
+	public int findNextStep(Enemy mover, TileGrid levelElements,
+			int startX, int startY, int goalX, int goalY) {
+		int startCell = (startY * levelWidth) + startX;
+		int goalCell = (goalY * levelWidth) + goalX;
+		if (startCell == goalCell) {
+			return NO_PATH;
+		}
+		
+		// Start a new search (the costs from the previous search are now ignored).
+		startSearch();
+		expansions = 0;
+		
+		visitedGrid.markVisited(startCell);
+		costs[startCell] = 0;
+		ancestors[startCell] = UNSET;
+		openList.addOrDecrease(startCell, getHeuristic(startCell, goalCell));
+		
+		// Offsets of the right, left, front and back cells.
+		int[] neighbourOffsets = {1, -1, -levelWidth, levelWidth};
+		
+		while (!openList.isEmpty() && budget.spend()) {
+			int currentCell = openList.removeMin();
+			expansions++;
+			
+			// Walk back along the path to find the first step.
+			if (currentCell == goalCell) {
+				int nextCell = currentCell;
+				while (ancestors[nextCell] != startCell) {
+					nextCell = ancestors[nextCell];
+				}
+				return nextCell;
+			}
+			
+			int newCost = costs[currentCell] + 1;
+			for (int offset : neighbourOffsets) {
+				int neighbourCell = currentCell + offset;
+				
+				// Skip cells that block the enemy or already have a cheaper path.
+				if (mover.isBlocked(levelElements, neighbourCell)) {
+					continue;
+				}
+				if (visitedGrid.isVisited(neighbourCell) && costs[neighbourCell] <= newCost) {
+					continue;
+				}
+				
+				visitedGrid.markVisited(neighbourCell);
+				costs[neighbourCell] = newCost;
+				ancestors[neighbourCell] = currentCell;
+				int score = newCost + getHeuristic(neighbourCell, goalCell);
+				openList.addOrDecrease(neighbourCell, score);
+			}
+		}
+		return NO_PATH;
+	}
+	
+	/**
+	 * Sets the budget that limits how many cells can be expanded each turn.
+	 * @param budget The search budget to be set.
+	 */
+	public void setSearchBudget(SearchBudget budget) {
+		this.budget = budget;
+	}
+	
+	/**
+	 * Sets the landmark distances used to guide the search.
+	 * @param landmarks The landmark table to be set.
+	 */
+	public void setLandmarks(LandmarkTable landmarks) {
+		this.landmarks = landmarks;
+	}
+	
+	/**
+	 * Gets the number of cells expanded by the last search.
+	 * @return The number of expansions.
+	 */
+	public int getExpansions() {
+		return expansions;
+	}
+	
+	/**
+	 * Gets the width of the level that this path finder was made for.
+	 * @return The width of the level in cells.
+	 */
+	public int getLevelWidth() {
+		return levelWidth;
+	}
+	
+	/**
+	 * Gets the height of the level that this path finder was made for.
+	 * @return The height of the level in cells.
+	 */
+	public int getLevelHeight() {
+		return levelHeight;
+	}
+	
+	/**
+	 * Starts a new search, so the costs from the previous search are ignored.
+	 * The cell arrays are made the first time, so a level that is restarted
+	 * (but never searched) doesn't pay for them.
+	 */
+	protected void startSearch() {
+		if (costs == null) {
+			int numCells = levelWidth * levelHeight;
+			costs = new int[numCells];
+			ancestors = new int[numCells];
+			openList = new OpenList(numCells);
+		}
+		visitedGrid.startSearch();
+		openList.clear();
+	}
+	
+	/**
+	 * Gets the heuristic of a cell: the larger of its Manhattan distance to the goal
+	 * and the landmark (ALT) bound. Neither can overestimate, as the enemy can
+	 * only move up, down, left or right.
+	 * @param cell The cell id.
+	 * @param goalCell The cell id of the goal.
+	 * @return The calculated heuristic as an integer.
+	 */
+	protected int getHeuristic(int cell, int goalCell) {
+		int xDiff = Math.abs((cell % levelWidth) - (goalCell % levelWidth));
+		int yDiff = Math.abs((cell / levelWidth) - (goalCell / levelWidth));
+		int heuristic = xDiff + yDiff;
+		
+		if (landmarks != null) {
+			heuristic = Math.max(heuristic, landmarks.getHeuristic(cell, goalCell));
+		}
+		return heuristic;
+	}
+}
@@ -0,0 +1,154 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Compares the A* (with and without landmarks), Jump Point Search and hierarchical
+ * path finders used by the smart enemy.
+ * Runs the same random searches with each on the shipped levels and on generated
+ * open arenas, then prints the cells (or entrances) expanded and the time taken by each.
+ * The cells Jump Point Search passes over while jumping are counted as expanded too, as
+ * are the cells the hierarchical path finder searches inside the start and goal clusters.
+ * The hierarchical path finder's paths can be slightly longer than the others'.
+ * Run from the project folder, so the level files can be found.
+ * @author William King
+ */
+public class PathfindingBenchmark {
+	/** The number of levels shipped with the game. */
+	private final static int MAX_LEVEL = 5;
+	/** The number of searches run on each level. */
+	private final static int NUM_SEARCHES = 500;
+	/** The number of times all searches are run before timing, so the JIT warms up. */
+	private final static int WARM_UP_ROUNDS = 3;
+	/** The sizes of the generated arenas. */
+	private final static int[] ARENA_SIZES = {64, 128, 256};
+	/** The chance of a cell in a generated arena being a wall. */
+	private final static double ARENA_WALL_CHANCE = 0.02;
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args Not used.
+	 */
+	public static void main(String[] args) {
+		System.out.printf("%-16s %12s %12s %12s %12s %9s %9s %9s %9s%n", "Level", "A* expanded",
+				"ALT expanded", "JPS expanded", "HPA* expanded", "A* ms", "ALT ms", "JPS ms", "HPA* ms");
+		
+		for (int levelNum = 1; levelNum <= MAX_LEVEL; levelNum++) {
+			Level level = FileHandling.getLevel(levelNum);
+			runLevel("Level " + levelNum, level.getLevelElements(), level.getLandmarkTable());
+		}
+		
+		for (int size : ARENA_SIZES) {
+			TileGrid arena = makeArena(size, new Random(size));
+			runLevel("Arena " + size + "x" + size, arena, new LandmarkTable(arena));
+		}
+	}
+	
+	/**
+	 * Runs the same searches with each path finder on a level and prints the results.
+	 * @param name The name of the level shown in the results.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param landmarks The landmark distances of the level.
+	 */
+	private static void runLevel(String name, TileGrid levelElements, LandmarkTable landmarks) {
+		int levelHeight = levelElements.getHeight();
+		int levelWidth = levelElements.getWidth();
+		VisitedGrid visitedGrid = new VisitedGrid(levelWidth * levelHeight);
+		Pathfinder aStar = new Pathfinder(levelWidth, levelHeight, visitedGrid);
+		Pathfinder landmarkAStar = new Pathfinder(levelWidth, levelHeight, visitedGrid);
+		landmarkAStar.setLandmarks(landmarks);
+		Pathfinder jumpPoint = new JumpPointPathfinder(levelWidth, levelHeight, visitedGrid);
+		jumpPoint.setLandmarks(landmarks);
+		SmartEnemy mover = new SmartEnemy();
+		Pathfinder hierarchical = new HierarchicalPathfinder(mover, levelElements, 
+				new ArrayList<Integer>(), visitedGrid);
+		hierarchical.setLandmarks(landmarks);
+		
+		// Pick the start and goal of each search from the clear cells.
+		ArrayList<Integer> clearCells = new ArrayList<Integer>();
+		for (int row = 0; row < levelHeight; row++) {
+			for (int col = 0; col < levelWidth; col++) {
+				if (!mover.isBlocked(levelElements, col, row)) {
+					clearCells.add((row * levelWidth) + col);
+				}
+			}
+		}
+		Random rand = new Random(levelWidth * levelHeight);
+		int[] starts = new int[NUM_SEARCHES];
+		int[] goals = new int[NUM_SEARCHES];
+		for (int i = 0; i < NUM_SEARCHES; i++) {
+			starts[i] = clearCells.get(rand.nextInt(clearCells.size()));
+			goals[i] = clearCells.get(rand.nextInt(clearCells.size()));
+		}
+		
+		for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+			runSearches(aStar, mover, levelElements, starts, goals);
+			runSearches(landmarkAStar, mover, levelElements, starts, goals);
+			runSearches(jumpPoint, mover, levelElements, starts, goals);
+			runSearches(hierarchical, mover, levelElements, starts, goals);
+		}
+		
+		long startTime = System.nanoTime();
+		long aStarExpansions = runSearches(aStar, mover, levelElements, starts, goals);
+		long aStarTime = System.nanoTime() - startTime;
+		
+		startTime = System.nanoTime();
+		long landmarkExpansions = runSearches(landmarkAStar, mover, levelElements, starts, goals);
+		long landmarkTime = System.nanoTime() - startTime;
+		
+		startTime = System.nanoTime();
+		long jumpPointExpansions = runSearches(jumpPoint, mover, levelElements, starts, goals);
+		long jumpPointTime = System.nanoTime() - startTime;
+		
+		startTime = System.nanoTime();
+		long hierarchicalExpansions = runSearches(hierarchical, mover, levelElements, starts, goals);
+		long hierarchicalTime = System.nanoTime() - startTime;
+		
+		System.out.printf("%-16s %12d %12d %12d %12d %9.2f %9.2f %9.2f %9.2f%n", name, 
+				aStarExpansions, landmarkExpansions, jumpPointExpansions, hierarchicalExpansions, 
+				aStarTime / 1e6, landmarkTime / 1e6, jumpPointTime / 1e6, hierarchicalTime / 1e6);
+	}
+	
+	/**
+	 * Runs every search with a path finder.
+	 * @param pathfinder The path finder to be used.
+	 * @param mover The enemy the searches are for.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param starts The start cell of each search.
+	 * @param goals The goal cell of each search.
+	 * @return The total number of cells expanded.
+	 */
+	private static long runSearches(Pathfinder pathfinder, Enemy mover, TileGrid levelElements,
+			int[] starts, int[] goals) {
+		int levelWidth = pathfinder.getLevelWidth();
+		long totalExpansions = 0;
+		for (int i = 0; i < starts.length; i++) {
+			pathfinder.findNextStep(mover, levelElements, starts[i] % levelWidth,
+					starts[i] / levelWidth, goals[i] % levelWidth, goals[i] / levelWidth);
+			totalExpansions = totalExpansions + pathfinder.getExpansions();
+		}
+		return totalExpansions;
+	}
+	
+	/**
+	 * Generates an open arena surrounded by walls, with a few walls scattered inside.
+	 * @param size The height and width of the arena.
+	 * @param rand Used to place the walls.
+	 * @return The grid of level elements for the arena.
+	 */
+	private static TileGrid makeArena(int size, Random rand) {
+		TileGrid levelElements = new TileGrid(size, size);
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				boolean isEdge = row == 0 || col == 0 || row == size - 1 || col == size - 1;
+				if (isEdge || rand.nextDouble() < ARENA_WALL_CHANCE) {
+					levelElements.set(col, row, TileType.WALL);
+				} else {
+					levelElements.set(col, row, TileType.FLOOR);
+				}
+			}
+		}
+		return levelElements;
+	}
+}
@@ -0,0 +1,346 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Checks the searches that are kept between turns (the incremental search and the
+ * distance field) against a fresh breadth first search from the player, as the player
+ * walks around (and sometimes jumps across the level, as if through a portal) and
+ * cells of the level change.
+ * Prints how many steps and distances were checked and how many were wrong, and
+ * exits with an error if any were.
+ * @author William King
+ */
+public class PathfindingCheck {
+	/** Marks a cell that can't reach the player. */
+	private final static int UNREACHABLE = -1;
+	/** The number of cells asked for from the distance field each turn. */
+	private final static int NUM_DISTANCE_QUERIES = 5;
+	/** The number of enemies sharing the incremental search in each random arena. */
+	private final static int NUM_ENEMIES = 3;
+	/** The number of random arenas checked. */
+	private final static int NUM_ARENAS = 200;
+	/** The number of turns played in each arena. */
+	private final static int NUM_TURNS = 200;
+	/** The chance of a cell in a random arena being a wall. */
+	private final static double ARENA_WALL_CHANCE = 0.2;
+	/** The chance each turn of the player jumping to a random cell. */
+	private final static double TELEPORT_CHANCE = 0.05;
+	/** The chance each turn of a random cell being changed (a wall cleared or added). */
+	private final static double CHANGE_CHANCE = 0.1;
+	
+	/** The number of steps and distances checked. */
+	private static int numChecked = 0;
+	
+	/** The number of steps and distances that were wrong. */
+	private static int numWrong = 0;
+	
+	/**
+	 * Runs the checks.
+	 * @param args Not used.
+	 */
+	public static void main(String[] args) {
+		checkCorridorTeleport();
+		checkCorridorQueue();
+		checkOpenArenaWalkAway();
+		
+		Random rand = new Random(0);
+		for (int i = 0; i < NUM_ARENAS; i++) {
+			checkArena(rand);
+		}
+		
+		System.out.printf("%d checked, %d wrong%n", numChecked, numWrong);
+		if (numWrong > 0) {
+			System.exit(-1);
+		}
+	}
+	
+	/**
+	 * Checks an incremental search in a corridor, where the player jumps from
+	 * one end to the other part way through (as if through a portal).
+	 */
+	private static void checkCorridorTeleport() {
+		int levelWidth = 30;
+		TileGrid levelElements = makeArena(levelWidth, 3, 0, new Random(0));
+		SmartEnemy mover = new SmartEnemy();
+		IncrementalPathfinder incremental = new IncrementalPathfinder(levelWidth, 3);
+		ArrayList<Integer> changedCells = new ArrayList<Integer>();
+		
+		int enemyX = 3;
+		int playerX = 10;
+		for (int turn = 0; turn < 20; turn++) {
+			if (turn == 3) {
+				playerX = 25;
+			}
+			int nextCell = incremental.findNextStep(mover, levelElements, changedCells,
+					enemyX, 1, playerX, 1);
+			check("Corridor (turn " + turn + ")", mover, levelElements, enemyX, 1,
+					playerX, 1, nextCell);
+			if (nextCell != Pathfinder.NO_PATH) {
+				enemyX = nextCell % levelWidth;
+			}
+		}
+	}
+	
+	/**
+	 * Checks that an enemy queueing behind another enemy in a corridor waits,
+	 * rather than stepping away from the player.
+	 */
+	private static void checkCorridorQueue() {
+		int levelWidth = 30;
+		TileGrid levelElements = makeArena(levelWidth, 3, 0, new Random(0));
+		levelElements.set(4, 1, TileType.ENEMY);
+		SmartEnemy mover = new SmartEnemy();
+		IncrementalPathfinder incremental = new IncrementalPathfinder(levelWidth, 3);
+		
+		int nextCell = incremental.findNextStep(mover, levelElements, new ArrayList<Integer>(),
+				3, 1, 10, 1);
+		numChecked++;
+		if (nextCell != levelWidth + 3) {
+			numWrong++;
+			System.out.printf("Corridor queue: enemy (3, 1) is behind an enemy, but stepped to %d%n",
+					nextCell);
+		}
+	}
+	
+	/**
+	 * Checks the distance field in an open arena, as the player walks away from
+	 * the cell it started on (asking for that cell's distance every turn).
+	 */
+	private static void checkOpenArenaWalkAway() {
+		int size = 12;
+		TileGrid levelElements = makeArena(size, size, 0, new Random(0));
+		SmartEnemy mover = new SmartEnemy();
+		DistanceField distanceField = new DistanceField(size, size);
+		
+		for (int turn = 0; turn < 8; turn++) {
+			int playerX = 2 + (turn / 2) + (turn % 2);
+			int playerY = 2 + (turn / 2);
+			distanceField.invalidate();
+			checkDistance("Open arena (turn " + turn + ")", distanceField, mover, levelElements,
+					playerX, playerY, 2, 2);
+			checkDistance("Open arena (turn " + turn + ")", distanceField, mover, levelElements,
+					playerX, playerY, size - 2, size - 2);
+		}
+	}
+	
+	/**
+	 * Checks an incremental search (shared by a few enemies) and the distance field in a
+	 * random arena, as the player walks around, jumps across the arena and cells of the
+	 * arena change.
+	 * @param rand Used to make the arena and the moves.
+	 */
+	private static void checkArena(Random rand) {
+		int size = 8 + rand.nextInt(32);
+		TileGrid levelElements = makeArena(size, size, ARENA_WALL_CHANCE, rand);
+		SmartEnemy mover = new SmartEnemy();
+		IncrementalPathfinder incremental = new IncrementalPathfinder(size, size);
+		DistanceField distanceField = new DistanceField(size, size);
+		ArrayList<Integer> changedCells = new ArrayList<Integer>();
+		
+		int[][] enemies = new int[NUM_ENEMIES][];
+		for (int i = 0; i < NUM_ENEMIES; i++) {
+			enemies[i] = getRandomClearCell(levelElements, mover, rand);
+		}
+		int[] player = getRandomClearCell(levelElements, mover, rand);
+		for (int turn = 0; turn < NUM_TURNS; turn++) {
+			// Move the player, or jump it somewhere else.
+			if (rand.nextDouble() < TELEPORT_CHANCE) {
+				player = getRandomClearCell(levelElements, mover, rand);
+			} else {
+				int direction = rand.nextInt(4);
+				int newX = player[0] + Direction.getXChange(direction);
+				int newY = player[1] + Direction.getYChange(direction);
+				if (!mover.isBlocked(levelElements, newX, newY)) {
+					player = new int[] {newX, newY};
+				}
+			}
+			
+			// Change a cell, as when a door is opened (or a wall added, to test the other way).
+			if (rand.nextDouble() < CHANGE_CHANCE) {
+				int x = 1 + rand.nextInt(size - 2);
+				int y = 1 + rand.nextInt(size - 2);
+				boolean isOccupied = x == player[0] && y == player[1];
+				for (int[] enemy : enemies) {
+					isOccupied = isOccupied || (x == enemy[0] && y == enemy[1]);
+				}
+				if (levelElements.get(x, y) == TileType.WALL) {
+					levelElements.set(x, y, TileType.FLOOR);
+					changedCells.add((y * size) + x);
+				} else if (!isOccupied) {
+					levelElements.set(x, y, TileType.WALL);
+					changedCells.add((y * size) + x);
+				}
+			}
+			
+			// Ask for the distance of a few cells, as the smart enemies would.
+			distanceField.invalidate();
+			for (int i = 0; i < NUM_DISTANCE_QUERIES; i++) {
+				int[] cell = getRandomClearCell(levelElements, mover, rand);
+				checkDistance("Arena " + size + "x" + size + " (turn " + turn + ")", distanceField,
+						mover, levelElements, player[0], player[1], cell[0], cell[1]);
+			}
+			
+			for (int i = 0; i < NUM_ENEMIES; i++) {
+				int[] enemy = enemies[i];
+				if (enemy[0] == player[0] && enemy[1] == player[1]) {
+					continue;
+				}
+				int nextCell = incremental.findNextStep(mover, levelElements, changedCells,
+						enemy[0], enemy[1], player[0], player[1]);
+				check("Arena " + size + "x" + size + " (turn " + turn + ", enemy " + i + ")",
+						mover, levelElements, enemy[0], enemy[1], player[0], player[1], nextCell);
+				if (nextCell != Pathfinder.NO_PATH) {
+					enemies[i] = new int[] {nextCell % size, nextCell / size};
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Checks a step against a fresh search: it must be one move closer to the player,
+	 * or NO_PATH if (and only if) the player can't be reached.
+	 * @param name The name of the check, shown if it's wrong.
+	 * @param mover The enemy the step is for.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param enemyX The x-coordinate location of the enemy.
+	 * @param enemyY The y-coordinate location of the enemy.
+	 * @param playerX The x-coordinate location of the player.
+	 * @param playerY The y-coordinate location of the player.
+	 * @param nextCell The cell id of the step being checked.
+	 */
+	private static void check(String name, Enemy mover, TileGrid levelElements,
+			int enemyX, int enemyY, int playerX, int playerY, int nextCell) {
+		int levelWidth = levelElements.getWidth();
+		int[] distances = getDistances(mover, levelElements, playerX, playerY);
+		int enemyDistance = distances[(enemyY * levelWidth) + enemyX];
+		
+		boolean isRight;
+		if (enemyDistance == UNREACHABLE) {
+			isRight = nextCell == Pathfinder.NO_PATH;
+		} else {
+			isRight = nextCell != Pathfinder.NO_PATH && distances[nextCell] == enemyDistance - 1;
+		}
+		
+		numChecked++;
+		if (!isRight) {
+			numWrong++;
+			System.out.printf("%s: enemy (%d, %d) is %d from player (%d, %d), but stepped to %d%n",
+					name, enemyX, enemyY, enemyDistance, playerX, playerY, nextCell);
+		}
+	}
+	
+	/**
+	 * Checks a distance from the distance field (with an unlimited budget) against a fresh search.
+	 * @param name The name of the check, shown if it's wrong.
+	 * @param distanceField The distance field being checked.
+	 * @param mover The enemy asking for the distance.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param playerX The x-coordinate location of the player.
+	 * @param playerY The y-coordinate location of the player.
+	 * @param cellX The x-coordinate of the cell.
+	 * @param cellY The y-coordinate of the cell.
+	 */
+	private static void checkDistance(String name, DistanceField distanceField, Enemy mover,
+			TileGrid levelElements, int playerX, int playerY, int cellX, int cellY) {
+		int[] distances = getDistances(mover, levelElements, playerX, playerY);
+		int expected = distances[(cellY * levelElements.getWidth()) + cellX];
+		int distance = distanceField.getDistance(mover, levelElements, playerX, playerY,
+				cellX, cellY);
+		
+		numChecked++;
+		if (distance != expected) {
+			numWrong++;
+			System.out.printf("%s: cell (%d, %d) is %d from player (%d, %d), but the field gave %d%n",
+					name, cellX, cellY, expected, playerX, playerY, distance);
+		}
+	}
+	
+	/**
+	 * Works out the distance from every cell to the player with a breadth first search.
+	 * Enemies don't block the search, as they move every turn.
+	 * @param mover The enemy the distances are for (decides which cells block it).
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param playerX The x-coordinate location of the player.
+	 * @param playerY The y-coordinate location of the player.
+	 * @return The distance of each cell (accessed by the cell id), or UNREACHABLE.
+	 */
+	private static int[] getDistances(Enemy mover, TileGrid levelElements,
+			int playerX, int playerY) {
+		int levelWidth = levelElements.getWidth();
+		int numCells = levelWidth * levelElements.getHeight();
+		int[] distances = new int[numCells];
+		for (int i = 0; i < numCells; i++) {
+			distances[i] = UNREACHABLE;
+		}
+		
+		int[] queue = new int[numCells];
+		int queueHead = 0;
+		int queueTail = 0;
+		int playerCell = (playerY * levelWidth) + playerX;
+		distances[playerCell] = 0;
+		queue[queueTail] = playerCell;
+		queueTail++;
+		
+		int[] neighbourOffsets = {1, -1, -levelWidth, levelWidth};
+		while (queueHead < queueTail) {
+			int currentCell = queue[queueHead];
+			queueHead++;
+			for (int offset : neighbourOffsets) {
+				int neighbourCell = currentCell + offset;
+				if (distances[neighbourCell] != UNREACHABLE) {
+					continue;
+				}
+				if (mover.isBlocked(levelElements, neighbourCell)
+						&& !levelElements.isSet(OccupancyLayer.ENEMIES, neighbourCell)) {
+					continue;
+				}
+				distances[neighbourCell] = distances[currentCell] + 1;
+				queue[queueTail] = neighbourCell;
+				queueTail++;
+			}
+		}
+		return distances;
+	}
+	
+	/**
+	 * Picks a random cell that doesn't block the enemy.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param mover The enemy (decides which cells block it).
+	 * @param rand Used to pick the cell.
+	 * @return The x and y-coordinates of the cell.
+	 */
+	private static int[] getRandomClearCell(TileGrid levelElements, Enemy mover, Random rand) {
+		while (true) {
+			int x = rand.nextInt(levelElements.getWidth());
+			int y = rand.nextInt(levelElements.getHeight());
+			if (!mover.isBlocked(levelElements, x, y)) {
+				return new int[] {x, y};
+			}
+		}
+	}
+	
+	/**
+	 * Generates an arena surrounded by walls, with walls scattered inside.
+	 * @param width The width of the arena.
+	 * @param height The height of the arena.
+	 * @param wallChance The chance of a cell inside being a wall.
+	 * @param rand Used to place the walls.
+	 * @return The grid of level elements for the arena.
+	 */
+	private static TileGrid makeArena(int width, int height, double wallChance, Random rand) {
+		TileGrid levelElements = new TileGrid(width, height);
+		for (int row = 0; row < height; row++) {
+			for (int col = 0; col < width; col++) {
+				boolean isEdge = row == 0 || col == 0 || row == height - 1 || col == width - 1;
+				if (isEdge || rand.nextDouble() < wallChance) {
+					levelElements.set(col, row, TileType.WALL);
+				} else {
+					levelElements.set(col, row, TileType.FLOOR);
+				}
+			}
+		}
+		return levelElements;
+	}
+}
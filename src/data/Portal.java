@@ -7,6 +7,9 @@ package data;
  * @author William King
  */
 public class Portal {
+	/** The number of directions the player can move into a portal. */
+	private final static int NUM_DIRECTIONS = 4;
+	
 	/** The x-coordinate location of the portal. */
 	private int portalX;
 	
@@ -19,6 +22,13 @@ public class Portal {
 	/** The y-coordinate location of the destination portal. */
 	private int destY;
 	
+	/** The x-coordinate the player leaves the destination portal at, for each direction
+	 * they move into the portal. Accessed by the direction. */
+	private int[] exitXs;
+	
+	/** The y-coordinate the player leaves the destination portal at, for each direction. */
+	private int[] exitYs;
+	
 	/**
 	 * Constructor for the Portal class.
 	 * @param portalX The x-coordinate location of the portal.
@@ -75,67 +85,64 @@ public class Portal {
 	}
 	
 	/**
-	 * Moves the player to the destination portal.
+	 * Works out where the player leaves the destination portal, for each direction they
+	 * can enter the portal in: the cell next to the destination in that direction, or the
+	 * next one clockwise if it's a wall or hazard (which never change). Done once when the
+	 * level is loaded, so teleporting doesn't need to search.
 	 * @param levelElements An array holding all the elements in the level.
-	 * @param player The player to be moved.
-	 * @param direction The direction the player moved towards.
+	 * @return False if the destination is outside the level or walled in (every exit is
+	 * blocked, so the search would go round forever), otherwise true.
 	 */
-	public void movePlayer(String[][] levelElements, Player player, String direction) {
-		// The new co-ordinates for the player to move in.
-		int newX = -1;
-		int newY = -1;
-		
-		// Indexes of the left/right/front/back of the destination portal.
-		int leftX = destX - 1;
-		int leftY = destY;
-		int rightX = destX + 1;
-		int rightY = destY;
-		
-		int frontX = destX;
-		int frontY = destY - 1;
-		int backX = destX;
-		int backY = destY + 1;
-		
-		// Attempt to move the player adjacent to the destination portal's direction.
-		String adjacentObject = "";
-		switch (direction) {
-			case "UP":
-				adjacentObject = levelElements[frontY][frontX];
-				newX = frontX;
-				newY = frontY;
-				// Change direction clockwise (used if the method runs again). 
-				direction = "RIGHT";
-				break;
-			case "DOWN":
-				adjacentObject = levelElements[backY][backX];
-				newX = backX;
-				newY = backY;
-				direction = "LEFT";
-				break;
-			case "LEFT":
-				adjacentObject = levelElements[leftY][leftX];
-				newX = leftX;
-				newY = leftY;
-				direction = "UP";
-				break;
-			case "RIGHT":
-				adjacentObject = levelElements[rightY][rightX];
-				newX = rightX;
-				newY = rightY;
-				direction = "DOWN";
-				break;
+	public boolean compileExits(TileGrid levelElements) {
+		if (!levelElements.isInside(destX, destY)) {
+			return false;
 		}
 		
-		boolean isAdjacentObject = isObject(adjacentObject);
+		exitXs = new int[NUM_DIRECTIONS];
+		exitYs = new int[NUM_DIRECTIONS];
+		for (int direction = 0; direction < NUM_DIRECTIONS; direction++) {
+			// Turn clockwise until there's a way out.
+			int exitDirection = direction;
+			int numTurns = 0;
+			while (isBlocked(levelElements, exitDirection)) {
+				if (numTurns == NUM_DIRECTIONS - 1) {
+					return false;
+				}
+				exitDirection = (exitDirection + 1) % NUM_DIRECTIONS;
+				numTurns++;
+			}
+			exitXs[direction] = destX + Direction.getXChange(exitDirection);
+			exitYs[direction] = destY + Direction.getYChange(exitDirection);
+		}
+		return true;
+	}
+	
+	/**
+	 * Checks if the player can't leave the destination portal in a direction.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param direction The direction from the destination portal.
+	 * @return True if there's a wall or hazard (or the edge of the level) that way, otherwise false.
+	 */
+	private boolean isBlocked(TileGrid levelElements, int direction) {
+		int exitX = destX + Direction.getXChange(direction);
+		int exitY = destY + Direction.getYChange(direction);
+		return !levelElements.isInside(exitX, exitY)
+				|| levelElements.isSet(OccupancyLayer.PORTAL_BLOCKED, exitX, exitY);
+	}
+	
+	/**
+	 * Moves the player to the destination portal, leaving it at the exit worked out for
+	 * the direction they moved in. Must be called after compileExits.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param player The player to be moved.
+	 * @param direction The direction the player moved towards.
+	 */
+	public void movePlayer(TileGrid levelElements, Player player, int direction) {
+		int newX = exitXs[direction];
+		int newY = exitYs[direction];
 		
-		if (isAdjacentObject) {
-			// Run the method again with the changed direction.
-			// Infinite recursion happens IF the destination portal is
-			// surrounded by walls. Or if you typed the portal co-ordinates
-			// wrong in the file...
-			movePlayer(levelElements, player, direction);
 		// If the player lands into an enemy.
-		} else if (adjacentObject.equals("E")) {
+		if (levelElements.isSet(OccupancyLayer.ENEMIES, newX, newY)) {
 			player.setDead(true);
 		// Otherwise, move the player.
 		} else {
@@ -143,25 +150,4 @@ public class Portal {
 			player.setY(newY);
 		}
 	}
-	
-	/**
-	 * Checks if the passed in string is an object or a floor.
-	 * @param object The level object as a string. 
-	 * @return True if its an object, otherwise false (if it's clear).
-	 */
-	private boolean isObject(String object) {
-		switch (object) {
-			case "W":
-			case "H":
-			// case "G":
-			// case "A":
-			// case "I":
-			// case "D":
-			// case "T":
-			// case "E":
-				return true;
-			default:
-				return false;
-		}
-	}
-}
\ No newline at end of file
+}
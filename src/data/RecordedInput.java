@@ -0,0 +1,111 @@
+package data;
+
+/**
+ * An enum holding the inputs of a game that are recorded, so the game can be played
+ * again exactly: the player's moves, the items they equip and the levels they restart.
+ * Each input is stored as its ordinal, taking a single byte.
+ * @author William King
+ */
+public enum RecordedInput {
+	/** Move up a row. */
+	UP(Action.UP, null),
+	
+	/** Move down a row. */
+	DOWN(Action.DOWN, null),
+	
+	/** Move left a column. */
+	LEFT(Action.LEFT, null),
+	
+	/** Move right a column. */
+	RIGHT(Action.RIGHT, null),
+	
+	/** Equip the flippers. */
+	EQUIP_FLIPPERS(null, "Flippers"),
+	
+	/** Equip the fire boots. */
+	EQUIP_FIRE_BOOTS(null, "Fire Boots"),
+	
+	/** Equip the yellow key. */
+	EQUIP_YELLOW_KEY(null, "Yellow Key"),
+	
+	/** Equip the orange key. */
+	EQUIP_ORANGE_KEY(null, "Orange Key"),
+	
+	/** Equip the purple key. */
+	EQUIP_PURPLE_KEY(null, "Purple Key"),
+	
+	/** Restart the level from the pause menu. */
+	RESTART(null, null);
+	
+	/** Every input. Accessed by the input's ordinal. */
+	private final static RecordedInput[] INPUTS = values();
+	
+	/** The move the player makes, or null if the input isn't a move. */
+	private final Action action;
+	
+	/** The name of the item equipped (as held in the inventory), or null if the input isn't an equip. */
+	private final String item;
+	
+	/**
+	 * Constructor for the RecordedInput enum.
+	 * @param action The move the player makes, or null if the input isn't a move.
+	 * @param item The name of the item equipped, or null if the input isn't an equip.
+	 */
+	private RecordedInput(Action action, String item) {
+		this.action = action;
+		this.item = item;
+	}
+	
+	/**
+	 * Gets the move the player makes.
+	 * @return The move, or null if the input isn't a move.
+	 */
+	public Action getAction() {
+		return action;
+	}
+	
+	/**
+	 * Gets the name of the item equipped.
+	 * @return The item's name, or null if the input isn't an equip.
+	 */
+	public String getItem() {
+		return item;
+	}
+	
+	/**
+	 * Gets the input of a move.
+	 * @param action The move the player makes.
+	 * @return The input of the move.
+	 */
+	public static RecordedInput fromAction(Action action) {
+		for (RecordedInput input : INPUTS) {
+			if (input.action == action) {
+				return input;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the input of equipping an item.
+	 * @param item The name of the item (as held in the inventory).
+	 * @return The input of equipping the item, or null if it isn't an item that can be equipped.
+	 */
+	public static RecordedInput fromItem(String item) {
+		for (RecordedInput input : INPUTS) {
+			if (item.equals(input.item)) {
+				return input;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets an input from its ordinal, as stored in a recording.
+	 * @param code The ordinal of the input.
+	 * @return The input.
+	 */
+	public static RecordedInput fromCode(int code) {
+		return INPUTS[code];
+	}
+}
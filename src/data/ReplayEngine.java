@@ -0,0 +1,125 @@
+package data;
+
+/**
+ * Plays a recorded game again through the rules of the game, as fast as possible and
+ * without drawing anything. Goes on to the next level when a level is completed, just
+ * like the game screen. Once every input has been played, the state of the game can be
+ * checked against the state the recording ended in.
+ * Run on its own, it replays a recording file and reports how many turns it plays per second.
+ * @author William King
+ */
+public class ReplayEngine {
+	/** The number of levels in the game i.e. the highest level in the game. */
+	private final static int MAX_LEVEL = 5;
+	/** The number of times the recording is replayed for timing, if not given. */
+	private final static int DEFAULT_NUM_REPLAYS = 100;
+	
+	/** The recorded game being played. */
+	private InputRecording recording;
+	
+	/** Plays the game. */
+	private GameEngine gameEngine;
+	
+	/** The number of turns played (moves made by the player). */
+	private long numTurns;
+	
+	/** True if the last level of the game has been completed. */
+	private boolean isGameComplete;
+	
+	/**
+	 * Constructor for the ReplayEngine class.
+	 * @param recording The recorded game to be played.
+	 */
+	public ReplayEngine(InputRecording recording) {
+		this.recording = recording;
+	}
+	
+	/**
+	 * Plays every input of the recording, from the start of the level it was made on.
+	 * @return The number of turns played.
+	 */
+	public long replay() {
+		int levelNum = recording.getLevelNumber();
+		gameEngine = new GameEngine(FileHandling.getLevel(levelNum), recording.getRandomSeed());
+		numTurns = 0;
+		isGameComplete = false;
+		
+		for (int i = 0; i < recording.getNumInputs() && !isGameComplete; i++) {
+			RecordedInput input = recording.getInput(i);
+			if (input.getAction() != null) {
+				gameEngine.step(input.getAction());
+				numTurns++;
+				// Go on to the next level, as the game screen does.
+				if (gameEngine.isLevelComplete()) {
+					if (levelNum == MAX_LEVEL) {
+						isGameComplete = true;
+					} else {
+						levelNum++;
+						gameEngine.loadLevel(FileHandling.getLevel(levelNum));
+					}
+				}
+			} else if (input.getItem() != null) {
+				gameEngine.getPlayer().addEquipped(input.getItem());
+			} else {
+				gameEngine.restartLevel();
+			}
+		}
+		return numTurns;
+	}
+	
+	/**
+	 * Checks if the replay ended in exactly the same state as the recorded game.
+	 * @return True if the states match, otherwise false.
+	 */
+	public boolean isMatch() {
+		return gameEngine.getStateHash() == recording.getFinalStateHash();
+	}
+	
+	/**
+	 * Gets the game being played.
+	 * @return The game engine, as it is after the replay.
+	 */
+	public GameEngine getGameEngine() {
+		return gameEngine;
+	}
+	
+	/**
+	 * Gets the number of turns played by the last replay.
+	 * @return The number of turns.
+	 */
+	public long getNumTurns() {
+		return numTurns;
+	}
+	
+	/**
+	 * Replays a recording file, checks it ends the same way, and times replaying it.
+	 * @param args The path of the recording file, then (optionally) the number of replays timed.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: ReplayEngine <recording file> [number of replays]");
+			return;
+		}
+		int numReplays = DEFAULT_NUM_REPLAYS;
+		if (args.length > 1) {
+			numReplays = Integer.parseInt(args[1]);
+		}
+		
+		InputRecording recording = FileHandling.readRecording(args[0]);
+		ReplayEngine replayEngine = new ReplayEngine(recording);
+		// The first replay reads the levels in and warms up the JIT.
+		replayEngine.replay();
+		System.out.printf("Level %d, seed %d, %d inputs, %d turns%n", recording.getLevelNumber(),
+				recording.getRandomSeed(), recording.getNumInputs(), replayEngine.getNumTurns());
+		System.out.println("Same result:   " + replayEngine.isMatch());
+		
+		long totalTurns = 0;
+		long startTime = System.nanoTime();
+		for (int i = 0; i < numReplays; i++) {
+			totalTurns = totalTurns + replayEngine.replay();
+		}
+		long replayTime = System.nanoTime() - startTime;
+		System.out.printf("%d replays:    %.2f ms per replay%n", numReplays, replayTime / 1e6 / numReplays);
+		System.out.printf("Throughput:    %.0f turns per second%n", totalTurns / (replayTime / 1e9));
+	}
+}
@@ -0,0 +1,130 @@
+package data;
+
+/**
+ * Limits how much path finding the smart enemies can do in a single turn.
+ * The budget is shared by every smart enemy in the level, so a turn can never
+ * take longer than the budget allows, however many enemies there are.
+ * A search that runs out of budget stops, and the enemy moves as if it were
+ * a dumb enemy instead.
+ * @author William King
+ */
+public class SearchBudget {
+	/** The limit of a budget that never runs out. */
+	public final static long UNLIMITED = -1;
+	/** How many expansions are made between each check of the clock. */
+	private final static int CLOCK_CHECK_INTERVAL = 16;
+	
+	/** What the budget is measured in. */
+	private BudgetUnit unit;
+	
+	/** The most that can be spent in a turn, or UNLIMITED. */
+	private long limit;
+	
+	/** The number of expansions made this turn. */
+	private long expansions;
+	
+	/** The time the current turn started (from System.nanoTime). */
+	private long turnStartTime;
+	
+	/** True once the budget for this turn has run out. */
+	private boolean isExhausted;
+	
+	/**
+	 * Constructor for a budget that never runs out.
+	 */
+	public SearchBudget() {
+		this(BudgetUnit.EXPANSIONS, UNLIMITED);
+	}
+	
+	/**
+	 * Constructor for the SearchBudget class.
+	 * @param unit What the budget is measured in.
+	 * @param limit The most that can be spent in a turn, or UNLIMITED.
+	 */
+	public SearchBudget(BudgetUnit unit, long limit) {
+		this.unit = unit;
+		this.limit = limit;
+		startTurn();
+	}
+	
+	/**
+	 * Gets a string of the budget's details for file saving.
+	 * @return A string of the budget's details.
+	 */
+	public String toStringDetail() {
+		return "BUDGET," + unit + ":" + limit + ",";
+	}
+	
+	/**
+	 * Refills the budget. Called before the enemies move each turn.
+	 */
+	public void startTurn() {
+		expansions = 0;
+		turnStartTime = System.nanoTime();
+		isExhausted = false;
+	}
+	
+	/**
+	 * Spends one expansion of the budget.
+	 * @return True if the expansion can be made, false if the budget has run out.
+	 */
+	public boolean spend() {
+		return spend(1);
+	}
+	
+	/**
+	 * Spends several expansions of the budget at once, e.g. for a block of cells scanned together.
+	 * @param count The number of expansions to be spent.
+	 * @return True if the expansions can be made, false if the budget has run out.
+	 */
+	public boolean spend(int count) {
+		if (limit == UNLIMITED) {
+			return true;
+		}
+		if (isExhausted) {
+			return false;
+		}
+		
+		long oldExpansions = expansions;
+		expansions = expansions + count;
+		if (unit == BudgetUnit.EXPANSIONS) {
+			isExhausted = expansions > limit;
+		// Reading the clock is slow compared to an expansion, so only check it now and then.
+		} else if ((expansions / CLOCK_CHECK_INTERVAL) != (oldExpansions / CLOCK_CHECK_INTERVAL)) {
+			isExhausted = (System.nanoTime() - turnStartTime) > limit;
+		}
+		return !isExhausted;
+	}
+	
+	/**
+	 * Checks if the budget for this turn has run out.
+	 * @return True if the budget has run out, otherwise false.
+	 */
+	public boolean isExhausted() {
+		return isExhausted;
+	}
+	
+	/**
+	 * Checks if the budget never runs out.
+	 * @return True if the budget is unlimited, otherwise false.
+	 */
+	public boolean isUnlimited() {
+		return limit == UNLIMITED;
+	}
+	
+	/**
+	 * Gets what the budget is measured in.
+	 * @return The unit of the budget.
+	 */
+	public BudgetUnit getUnit() {
+		return unit;
+	}
+	
+	/**
+	 * Gets the most that can be spent in a turn.
+	 * @return The limit of the budget, or UNLIMITED.
+	 */
+	public long getLimit() {
+		return limit;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package data;
+
+/**
+ * An enum that holds the different ways a smart enemy can search for the player.
+ * @author William King
+ */
+public enum SearchMode {
+	/** A new A* search for each enemy, every turn. */
+	A_STAR,
+	
+	/** One search from the player per turn, shared by every smart enemy. */
+	DISTANCE_FIELD,
+	
+	/** Each enemy keeps its search between turns and only repairs the changed cells. */
+	INCREMENTAL,
+	
+	/** A new Jump Point Search for each enemy, every turn. Suits large open levels. */
+	JUMP_POINT,
+	
+	/** A search over clusters of the level, built when it's loaded. Suits very large levels. */
+	HIERARCHICAL
+}
\ No newline at end of file
@@ -1,291 +1,159 @@
 package data;
 
-import java.util.ArrayList;
-import java.util.Collections;
-
 /**
- * Models a Smart Targeting enemy in the game. Moves towards the player by 
- * finding the shortest path (and doesn't get stuck). If no path is possible, 
+ * Models a Smart Targeting enemy in the game. Moves towards the player by
+ * finding the shortest path (and doesn't get stuck). If no path is possible,
  * then it will move as if it were a dumb targeting enemy.
+ * Each smart enemy keeps how it searches.
+ * Its location is held by the level's enemy table.
  * @author William King
  */
 public class SmartEnemy extends Enemy {
+	/** How this enemy searches for the player. If null, the level's search mode is used. */
+	private SearchMode searchMode;
 	
 	/**
-	 * Constructor for the Smart Targeting Enemy.
-	 * @param The x-coordinate location of the enemy.
-	 * @param enemyY The y-coordinate location of the enemy.
-	 * @param moveDirection The starting direction the enemy.
+	 * Makes a copy of the enemy with the same search mode.
+	 * @return The copy of the enemy.
 	 */
-	public SmartEnemy(int enemyX, int enemyY, String moveDirection) {
-		super(enemyX, enemyY, moveDirection);
+	protected SmartEnemy copy() {
+		SmartEnemy copy = new SmartEnemy();
+		copy.setSearchMode(searchMode);
+		return copy;
 	}
 	
 	/**
-	 * Determines a smart enemy's move based on its current location and the player's location.
-	 * @param levelElements An array holding all the elements in the level.
+	 * Determines a smart enemy's move using the enemy's search mode (or the level's,
+	 * if the enemy doesn't have one).
+	 * @param level The level the enemy is in.
+	 * @param index The index of the enemy in the level's enemy table.
 	 * @param playerX The x-coordinate location of the player.
 	 * @param playerY The y-coordinate location of the player.
 	 */
-	public void move(String[][] levelElements, int playerX, int playerY) {
-		// Make a (hard) copy of the level elements array.
-		int levelHeight = levelElements.length;
-		int levelWidth = levelElements[0].length; 
-		String[][] lvlElementsCopy = new String[levelHeight][levelWidth];
-		
-		for (int i = 0; i < levelHeight; i++) {
-			for (int j = 0; j < levelWidth; j++) {
-				lvlElementsCopy[i][j] = levelElements[i][j];
-			}
+	public void move(Level level, int index, int playerX, int playerY) {
+		EnemyTable enemies = level.getEnemies();
+		TileGrid levelElements = level.getLevelElements();
+		SearchMode mode = searchMode;
+		if (mode == null) {
+			mode = level.getSearchMode();
 		}
 		
-		// Use an arraylist to find a path (i.e. check if the player is reachable).
-		ArrayList<Node> currentCells = new ArrayList<Node>();
-		ArrayList<Integer> nodeScores = new ArrayList<Integer>();
-		boolean playerReachable = false;
-		Node solutionNode = null; // Holds the last node
-		
-		// Add the enemy position first (as a node).
-		Node startNode = new Node(enemyX, enemyY, 0, null);
-		currentCells.add(startNode);
-		lvlElementsCopy[enemyY][enemyX] = "V"; // Set as visited.
-		
-		// Enter a loop until a decision has been deduced.
-		while (!playerReachable) {
-			// If the player is unreachable.
-			if (currentCells.size() == 0) {
+		int nextCell;
+		switch (mode) {
+			case A_STAR:
+				nextCell = level.getPathfinder().findNextStep(this, levelElements,
+						enemies.getX(index), enemies.getY(index), playerX, playerY);
+				break;
+			case INCREMENTAL:
+				nextCell = findIncrementalStep(level, enemies, index, playerX, playerY);
+				break;
+			case JUMP_POINT:
+				nextCell = level.getJumpPointPathfinder().findNextStep(this, levelElements,
+						enemies.getX(index), enemies.getY(index), playerX, playerY);
+				break;
+			case HIERARCHICAL:
+				// Normally built when the level is loaded.
+				if (level.getHierarchicalPathfinder() == null) {
+					level.buildHierarchicalPathfinder(this);
+				}
+				nextCell = level.getHierarchicalPathfinder().findNextStep(this, levelElements,
+						enemies.getX(index), enemies.getY(index), playerX, playerY);
+				break;
+			default:
+				nextCell = findDistanceFieldStep(levelElements, level.getDistanceField(),
+						enemies.getX(index), enemies.getY(index), playerX, playerY);
 				break;
-			}
-			
-			// Get the scores for each current node.
-			for (Node elem : currentCells) {
-				int heuristicScore = getEuclideanHeuristic(elem, playerX, playerY);
-				nodeScores.add(heuristicScore + elem.getCost());
-			}
-			
-			// Get the current node with the smallest cost.
-			int minIndex = nodeScores.indexOf(Collections.min(nodeScores));
-			Node currentNode = currentCells.remove(minIndex);
-			int nodeX = currentNode.getX();
-			int nodeY = currentNode.getY();
-			
-			// If the top item is the player position.
-			if ((nodeX == playerX) && (nodeY == playerY)) {
-				playerReachable = true;
-				solutionNode = currentNode;
-				continue;
-			} 
-			
-			// Check if there's an object in front, behind or adjacent to the enemy. 
-			int leftX = nodeX - 1;
-			int leftY = nodeY;
-			int rightX = nodeX + 1;
-			int rightY = nodeY;
-			
-			int frontX = nodeX;
-			int frontY = nodeY - 1;
-			int backX = nodeX;
-			int backY = nodeY + 1;
-			
-			String leftObject = lvlElementsCopy[leftY][leftX];
-			String rightObject = lvlElementsCopy[rightY][rightX];
-			String frontObject = lvlElementsCopy[frontY][frontX];
-			String backObject = lvlElementsCopy[backY][backX];
-			
-			boolean isLeftObject = isObject(leftObject);
-			boolean isRightObject = isObject(rightObject);
-			boolean isFrontObject = isObject(frontObject);
-			boolean isBackObject = isObject(backObject);
-			
-			// If the right is clear and not visited.
-			if (!isRightObject) {
-				Node newNode = new Node(rightX, rightY, currentNode.getCost() + 1, currentNode);
-				currentCells.add(newNode);
-				lvlElementsCopy[rightY][rightX] = "V";
-			}
-			// If the left is clear and not visited.
-			if (!isLeftObject) {
-				Node newNode = new Node(leftX, leftY, currentNode.getCost() + 1, currentNode);
-				currentCells.add(newNode);
-				lvlElementsCopy[leftY][leftX] = "V";
-			}
-			// If the front is clear and not visited.
-			if (!isFrontObject) {
-				Node newNode = new Node(frontX, frontY, currentNode.getCost() + 1, currentNode);
-				currentCells.add(newNode);
-				lvlElementsCopy[frontY][frontX] = "V";
-			}
-			// If the back is clear and not visited.
-			if (!isBackObject) {
-				Node newNode = new Node(backX, backY, currentNode.getCost() + 1, currentNode);
-				currentCells.add(newNode);
-				lvlElementsCopy[backY][backX] = "V";
-			}
 		}
 		
+		int oldX = enemies.getX(index);
+		int oldY = enemies.getY(index);
+		int levelWidth = level.getLevelWidth();
 		// Move the smart enemy if the player is reachable.
-		if (playerReachable) {
-			// Hold the path of nodes in an arraylist.
-			ArrayList<Node> solutionPath = new ArrayList<Node>();
-			while (!(solutionNode.getAncestorNode() == null)) {
-				solutionPath.add(solutionNode);
-				solutionNode = solutionNode.getAncestorNode();
-			}
-			// The next move to be made is the last item in the arraylist.
-			Node nextMove = solutionPath.get(solutionPath.size() - 1);
-			levelElements[enemyY][enemyX] = " ";
-			enemyX = nextMove.getX();
-			enemyY = nextMove.getY();
-			levelElements[enemyY][enemyX] = "E";
+		if (nextCell != Pathfinder.NO_PATH) {
+			enemies.setLocation(index, nextCell % levelWidth, nextCell / levelWidth);
 		// Otherwise, move it as if it were a dumb enemy.
 		} else {
-			altMove(levelElements, playerX, playerY);
+			DumbEnemy.move(enemies, index, levelElements, playerX, playerY, enemies);
 		}
+		levelElements.set(oldX, oldY, TileType.FLOOR);
+		levelElements.set(enemies.getX(index), enemies.getY(index), TileType.ENEMY);
 	}
 	
 	/**
-	 * Alternative move for the smart enemy. Functions the same as if it were
-	 * a dumb enemy.
+	 * Finds a smart enemy's next step to the neighbouring cell that's closest to
+	 * the player. Uses the distances shared by all smart enemies this turn.
 	 * @param levelElements An array holding all the elements in the level.
+	 * @param distanceField The distance from each cell to the player.
+	 * @param enemyX The x-coordinate location of the enemy.
+	 * @param enemyY The y-coordinate location of the enemy.
 	 * @param playerX The x-coordinate location of the player.
 	 * @param playerY The y-coordinate location of the player.
+	 * @return The cell id of the next step, the enemy's own cell if every step closer to the
+	 * player is blocked, or NO_PATH if the player can't be reached.
 	 */
-	public void altMove(String[][] levelElements, int playerX, int playerY) {
-		// Calculate difference between the x and y.
-		// Move the smallest one (move left/right if x is smaller etc.).
-		// If it's blocked, move by the other axis.
-		// Otherwise, it doesn't move.
-		
-		int diffX = enemyX - playerX;
-		int diffY = enemyY - playerY;
-		
-		int newX = enemyX;
-		int newY = enemyY;
-		
-		boolean xChanged = false;
-		boolean yChanged = false;
+	private int findDistanceFieldStep(TileGrid levelElements, DistanceField distanceField,
+			int enemyX, int enemyY, int playerX, int playerY) {
+		int enemyDistance = distanceField.getDistance(this, levelElements, playerX, playerY,
+				enemyX, enemyY);
+		if (enemyDistance == DistanceField.UNREACHABLE) {
+			return Pathfinder.NO_PATH;
+		}
 		
-		// Clear the enemy from it's previous position.
-		levelElements[enemyY][enemyX] = " ";
+		// Indexes of the right, left, front and back of the enemy.
+		int[] neighbourXs = {enemyX + 1, enemyX - 1, enemyX, enemyX};
+		int[] neighbourYs = {enemyY, enemyY, enemyY - 1, enemyY + 1};
 		
-		// If an index is the same (as the player), then change the other.
-		// NOTE: If the axis difference is 0, then it doesn't need to be checked (for an object).
-		if (diffY == 0) {
-			if (diffX < 0) {
-				newX++;
-			} else {
-				newX--;
-			}
-		} else if (diffX == 0) {
-			if (diffY < 0) {
-				newY++;
-			} else {
-				newY--;
-			}
-		// Otherwise, change index that's closer to 0 first.
-		} else if ((diffX <= diffY) && !(diffX == 0)) {
-			// If it's negative.
-			if (diffX < 0) {
-				newX++;
-			} else {
-				newX--;
+		// Find the clear neighbour with the lowest distance to the player. If every
+		// neighbour closer to the player is blocked (e.g. by another enemy), wait
+		// for it to clear rather than step further away.
+		int bestCell = (enemyY * levelElements.getWidth()) + enemyX;
+		int bestDistance = enemyDistance;
+		for (int i = 0; i < neighbourXs.length; i++) {
+			int newX = neighbourXs[i];
+			int newY = neighbourYs[i];
+			if (isBlocked(levelElements, newX, newY)) {
+				continue;
 			}
-			// Used to switch to the other move if this one is blocked.
-			xChanged = true;
-		} else if ((diffY <= diffX) && !(diffY == 0)) {
-			if (diffY < 0) {
-				newY++;
-			} else {
-				newY--;
+			int distance = distanceField.getDistance(this, levelElements, playerX, playerY,
+					newX, newY);
+			if (distance != DistanceField.UNREACHABLE && distance < bestDistance) {
+				bestCell = (newY * levelElements.getWidth()) + newX;
+				bestDistance = distance;
 			}
-			yChanged = true;
-		}
-		
-		// Check if an object is blocking the enemy.
-		String object = levelElements[newY][newX];
-		boolean isObject = false;
-		switch (object) {
-			case "W":
-			case "G":
-			case "A":
-			case "I":
-			case "D":
-			case "T":
-			case "P":
-			case "H":
-			case "E":
-				// Check the other axis if the intended one is blocked.
-				if (xChanged) {
-					newX = enemyX;
-					if (diffY < 0) {
-						newY++;
-					} else {
-						newY--;
-					}
-					isObject = true;
-				} else if (yChanged) {
-					newY = enemyY;
-					if (diffX < 0) {
-						newX++;
-					} else {
-						newX--;
-					}
-					isObject = true;
-				} 
-				
-				// If the intended axis is blocked, check the other one.
-				if (isObject) {
-					String newObject = levelElements[newY][newX];
-					switch (newObject) {
-						case "W":
-						case "G":
-						case "A":
-						case "I":
-						case "D":
-						case "T":
-						case "P":
-						case "H":
-						case "E":
-							// The enemy is blocked in both directions if it gets to here.
-							// Add the 'E' back to the enemy's position (doesn't move).
-							levelElements[enemyY][enemyX] = "E";
-							break;
-					// If the other axis is clear.
-					default:
-						enemyX = newX;
-						enemyY = newY;
-						levelElements[enemyY][enemyX] = "E";
-					}
-				// If the intended axis is blocked, but the other axis difference is 0.
-				} else {
-					levelElements[enemyY][enemyX] = "E";
-				}
-				break;
-			// If the intended axis is clear.
-			default:
-				enemyX = newX;
-				enemyY = newY;
-				levelElements[enemyY][enemyX] = "E";
 		}
+		return bestCell;
 	}
 	
 	/**
-	 * Gets the Euclidean distance between the node position and the player's
-	 * position, and uses this as the heuristic.
-	 * @param currentNode The node that the heuristic is calculated for.
+	 * Finds a smart enemy's next step by repairing the level's search from the previous
+	 * move, rather than searching from scratch.
+	 * @param level The level the enemy is in.
+	 * @param enemies The enemies in the level.
+	 * @param index The index of the enemy.
 	 * @param playerX The x-coordinate location of the player.
 	 * @param playerY The y-coordinate location of the player.
-	 * @return The calculated heuristic as an integer.
+	 * @return The cell id of the next step, or NO_PATH if the player can't be reached.
 	 */
-	private int getEuclideanHeuristic(Node currentNode, int playerX, int playerY) {
-		int nodeX = currentNode.getX();
-		int nodeY = currentNode.getY();
-		
-		// Calculate differences, then the Euclidean distance.
-		int xSqrdDiff = (nodeX - playerX) * (nodeX - playerX);
-		int ySqrdDiff = (nodeY - playerY) * (nodeY - playerY);
-		int euclidDist = (int) Math.sqrt(xSqrdDiff + ySqrdDiff);
-		
-		return euclidDist;
+	private int findIncrementalStep(Level level, EnemyTable enemies, int index,
+			int playerX, int playerY) {
+		return level.getIncrementalPathfinder().findNextStep(this, level.getLevelElements(),
+				level.getChangedCells(), enemies.getX(index), enemies.getY(index),
+				playerX, playerY);
+	}
+	
+	/**
+	 * Gets how this enemy searches for the player.
+	 * @return The search mode, or null if the level's search mode is used.
+	 */
+	public SearchMode getSearchMode() {
+		return searchMode;
+	}
+	
+	/**
+	 * Sets how this enemy searches for the player.
+	 * @param searchMode The search mode, or null to use the level's search mode.
+	 */
+	public void setSearchMode(SearchMode searchMode) {
+		this.searchMode = searchMode;
 	}
 }
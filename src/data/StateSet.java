@@ -0,0 +1,186 @@
+package data;
+
+/**
+ * Holds the states reached by the level solver, each packed into a fixed number of longs,
+ * without holding any state twice. The states are kept one after another in a single
+ * array, in the order they were added, along with the state each was reached from.
+ * To find a state quickly, the states are also kept in a hash table (keyed by the state's
+ * Zobrist hash) using open addressing. States with the same hash are compared in full.
+ * @author William King
+ */
+public class StateSet {
+	/** Returned when adding a state that's already held. */
+	public final static int ALREADY_HELD = -1;
+	/** Marks an unused slot in the hash table. */
+	private final static int EMPTY = -1;
+	/** The number of states that can be held to start with. Must be a power of 2. */
+	private final static int INITIAL_CAPACITY = 1024;
+
+	/** The number of longs each state is packed into. */
+	private int stateSize;
+
+	/** The packed states, one after another. */
+	private long[] states;
+
+	/** The hash of each state. */
+	private long[] hashes;
+
+	/** The index of the state each state was reached from (-1 for the first state). */
+	private int[] parents;
+
+	/** The move made to reach each state, as the move's ordinal. */
+	private byte[] actions;
+
+	/** The index of the state held in each slot of the hash table, or EMPTY. */
+	private int[] table;
+
+	/** The number of states held. */
+	private int size;
+
+	/**
+	 * Constructor for the StateSet class.
+	 * @param stateSize The number of longs each state is packed into.
+	 */
+	public StateSet(int stateSize) {
+		this.stateSize = stateSize;
+		states = new long[INITIAL_CAPACITY * stateSize];
+		hashes = new long[INITIAL_CAPACITY];
+		parents = new int[INITIAL_CAPACITY];
+		actions = new byte[INITIAL_CAPACITY];
+		table = new int[INITIAL_CAPACITY * 2];
+		for (int i = 0; i < table.length; i++) {
+			table[i] = EMPTY;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Adds a state, unless the same state is already held.
+	 * @param state An array holding the packed state.
+	 * @param offset Where the state starts in the array.
+	 * @param hash The Zobrist hash of the state.
+	 * @param parent The index of the state it was reached from (-1 for the first state).
+	 * @param action The ordinal of the move made to reach it.
+	 * @return The index of the new state, or ALREADY_HELD.
+	 */
+	public int add(long[] state, int offset, long hash, int parent, int action) {
+		int slot = findSlot(state, offset, hash);
+		if (table[slot] != EMPTY) {
+			return ALREADY_HELD;
+		}
+
+		// Keep the hash table at most half full, so the searches stay short.
+		if (size == hashes.length) {
+			grow();
+			slot = findSlot(state, offset, hash);
+		}
+		System.arraycopy(state, offset, states, size * stateSize, stateSize);
+		hashes[size] = hash;
+		parents[size] = parent;
+		actions[size] = (byte) action;
+		table[slot] = size;
+		size++;
+		return size - 1;
+	}
+
+	/**
+	 * Gets the array holding every packed state. State i starts at i * the state size.
+	 * Only valid until the next state is added.
+	 * @return The packed states.
+	 */
+	public long[] getStates() {
+		return states;
+	}
+
+	/**
+	 * Gets the index of the state a state was reached from.
+	 * @param index The index of the state.
+	 * @return The index of the state before it, or -1 for the first state.
+	 */
+	public int getParent(int index) {
+		return parents[index];
+	}
+
+	/**
+	 * Gets the move made to reach a state.
+	 * @param index The index of the state.
+	 * @return The ordinal of the move.
+	 */
+	public int getAction(int index) {
+		return actions[index];
+	}
+
+	/**
+	 * Gets the number of states held.
+	 * @return The number of states.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the slot in the hash table holding a state, or the empty slot where it would go.
+	 * @param state An array holding the packed state.
+	 * @param offset Where the state starts in the array.
+	 * @param hash The Zobrist hash of the state.
+	 * @return The index of the slot.
+	 */
+	private int findSlot(long[] state, int offset, long hash) {
+		int mask = table.length - 1;
+		int slot = (int) (hash >>> (64 - Integer.numberOfTrailingZeros(table.length)));
+		while (table[slot] != EMPTY && !isSame(table[slot], state, offset, hash)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Checks if a held state is the same as another state.
+	 * @param index The index of the held state.
+	 * @param state An array holding the other packed state.
+	 * @param offset Where the other state starts in the array.
+	 * @param hash The Zobrist hash of the other state.
+	 * @return True if the states are the same, otherwise false.
+	 */
+	private boolean isSame(int index, long[] state, int offset, long hash) {
+		if (hashes[index] != hash) {
+			return false;
+		}
+		int start = index * stateSize;
+		for (int i = 0; i < stateSize; i++) {
+			if (states[start + i] != state[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Doubles the room for states and the size of the hash table.
+	 */
+	private void grow() {
+		int newCapacity = hashes.length * 2;
+		long[] newStates = new long[newCapacity * stateSize];
+		long[] newHashes = new long[newCapacity];
+		int[] newParents = new int[newCapacity];
+		byte[] newActions = new byte[newCapacity];
+		System.arraycopy(states, 0, newStates, 0, size * stateSize);
+		System.arraycopy(hashes, 0, newHashes, 0, size);
+		System.arraycopy(parents, 0, newParents, 0, size);
+		System.arraycopy(actions, 0, newActions, 0, size);
+		states = newStates;
+		hashes = newHashes;
+		parents = newParents;
+		actions = newActions;
+
+		// Put every state back in the larger hash table.
+		table = new int[newCapacity * 2];
+		for (int i = 0; i < table.length; i++) {
+			table[i] = EMPTY;
+		}
+		for (int i = 0; i < size; i++) {
+			int slot = findSlot(states, i * stateSize, hashes[i]);
+			table[slot] = i;
+		}
+	}
+}
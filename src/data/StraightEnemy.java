@@ -1,102 +1,58 @@
 package data;
 
 /**
- * Models a Straight Line Enemy in the game.  Goes in a single direction and 
+ * Moves the Straight Line Enemies in the game. Goes in a single direction and
  * goes the opposite direction when they hit a wall.
  * @author William King
  */
-public class StraightEnemy extends Enemy {
-	
-	/**
-	 * Constructor for the Straight Line Enemy.
-	 * @param The x-coordinate location of the enemy.
-	 * @param enemyY The y-coordinate location of the enemy.
-	 * @param moveDirection The direction that the enemy moves towards.
-	 */
-	public StraightEnemy(int enemyX, int enemyY, String moveDirection) {
-		super(enemyX, enemyY, moveDirection);
-	}
+public class StraightEnemy {
 	
 	/**
 	 * Determines a straight enemy's move based on its current location.
+	 * Only looks at the level, so the moves of many enemies can be worked out at once.
+	 * @param enemies The enemies in the level.
+	 * @param index The index of the enemy to be moved.
 	 * @param levelElements An array holding all the elements in the level.
+	 * @param moves Where the enemy's new location and direction are set (can be the same as enemies).
 	 */
-	public void move(String[][] levelElements) {
-		// Set them as the previous values. Only one needs to change.
-		int newX = enemyX;
-		int newY = enemyY;
-		
-		// Clear the enemy from it's previous position.
-		levelElements[newY][newX] = " ";
-		
-		// Used to check if there's anything behind the enemy.
-		int backX = enemyX;
-		int backY = enemyY;
+	public static void move(EnemyTable enemies, int index, TileGrid levelElements, EnemyTable moves) {
+		int enemyX = enemies.getX(index);
+		int enemyY = enemies.getY(index);
+		int moveDirection = enemies.getDirection(index);
 		
 		// Calculate indexes based on the enemy's direction.
-		switch (moveDirection) {
-			case "UP":
-				newY--;
-				backY++;
-				break;
-			case "DOWN":
-				newY++;
-				backY--;
-				break;
-			case "LEFT":
-				newX--;
-				backX++;
-				break;
-			case "RIGHT":
-				newX++;
-				backX--;
-				break;
-		}
-		
-		// Check if there's an object behind the enemy.
-		String backObject = levelElements[backY][backX];
-		boolean isBackObject = isObject(backObject);
+		int newX = enemyX + Direction.getXChange(moveDirection);
+		int newY = enemyY + Direction.getYChange(moveDirection);
 		
 		// Check if the enemy has hit an object.
-		String object = levelElements[newY][newX];
-		switch (object) {
-			case "W":
-			case "G":
-			case "A":
-			case "I":
-			case "D":
-			case "T":
-			case "P":
-			case "H":
-			case "E":
-				// Enemy doesn't move if it's trapped (objects in between it).
-				if (isBackObject) {
-					levelElements[enemyY][enemyX] = "E";
-				} else {
-					// Change to opposite direction if they hit an object.
-					switch (moveDirection) {
-						case "UP":
-							moveDirection = "DOWN";
-							break;
-						case "DOWN":
-							moveDirection = "UP";
-							break;
-						case "LEFT":
-							moveDirection = "RIGHT";
-							break;
-						case "RIGHT":
-							moveDirection = "LEFT";
-							break;
-					}
-					// Run the method again with the changed direction.
-					move(levelElements);
-				}
-				break;
-			// Move to the new position.
-			default:
-				enemyX = newX;
-				enemyY = newY;
-				levelElements[enemyY][enemyX] = "E";
+		if (isBlocked(levelElements, newX, newY)) {
+			// Used to check if there's anything behind the enemy.
+			int backX = enemyX - Direction.getXChange(moveDirection);
+			int backY = enemyY - Direction.getYChange(moveDirection);
+			
+			// Enemy doesn't move if it's trapped (objects in between it).
+			// Otherwise, change to the opposite direction and move that way.
+			if (isBlocked(levelElements, backX, backY)) {
+				newX = enemyX;
+				newY = enemyY;
+			} else {
+				moveDirection = Direction.getOpposite(moveDirection);
+				newX = backX;
+				newY = backY;
+			}
 		}
+		moves.setLocation(index, newX, newY);
+		moves.setDirection(index, moveDirection);
+	}
+	
+	/**
+	 * Checks if a cell has an object on it that blocks the enemy.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 * @return True if the cell is blocked, otherwise false (if it's clear).
+	 */
+	private static boolean isBlocked(TileGrid levelElements, int x, int y) {
+		return levelElements.isSet(OccupancyLayer.ENEMY_BLOCKED, x, y);
 	}
 }
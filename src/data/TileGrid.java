@@ -0,0 +1,232 @@
+package data;
+
+/**
+ * Holds the tile on every cell of a level. Each tile is stored as a single byte
+ * (the tile type's ordinal), in one flat array accessed by the cell id (y * width + x).
+ * The grid also keeps a bitset of the cells in each occupancy layer, which is
+ * updated whenever a tile is set, so the layers always match the tiles.
+ * Copies share their tiles and layers until one of them is changed.
+ * @author William King
+ */
+public class TileGrid {
+	/** Returned when there are no more cells in a layer. */
+	public final static int NO_CELL = -1;
+	/** Every tile type. Accessed by the tile type's ordinal. */
+	private final static TileType[] TILE_TYPES = TileType.values();
+	/** Every occupancy layer. Accessed by the layer's ordinal. */
+	private final static OccupancyLayer[] LAYERS = OccupancyLayer.values();
+	/** The layers each tile type is in, as bits set by the layer's ordinal.
+	 * Accessed by the tile type's ordinal. */
+	private final static int[] LAYER_MASKS = new int[TILE_TYPES.length];
+	
+	static {
+		for (TileType tileType : TILE_TYPES) {
+			for (OccupancyLayer layer : LAYERS) {
+				if (layer.contains(tileType)) {
+					LAYER_MASKS[tileType.ordinal()] |= 1 << layer.ordinal();
+				}
+			}
+		}
+	}
+	
+	/** The width of the level in cells. */
+	private int width;
+	
+	/** The height of the level in cells. */
+	private int height;
+	
+	/** The tile on each cell, as its tile type's ordinal. Accessed by the cell id. */
+	private byte[] tiles;
+	
+	/** The bitset of each occupancy layer, 64 cells to a word.
+	 * Accessed by the layer's ordinal, then the cell id / 64. */
+	private long[][] layers;
+	
+	/** True if the tiles and layers may be shared with a copy, so must be copied before changing. */
+	private boolean isShared;
+	
+	/**
+	 * Constructor for the TileGrid class. Every cell starts as floor.
+	 * @param width The width of the level in cells.
+	 * @param height The height of the level in cells.
+	 */
+	public TileGrid(int width, int height) {
+		this.width = width;
+		this.height = height;
+		tiles = new byte[width * height];
+		layers = new long[LAYERS.length][((width * height) + 63) / 64];
+	}
+	
+	/**
+	 * Constructor for a copy of a grid, sharing its tiles and layers until one of them is changed.
+	 * @param original The grid being copied.
+	 */
+	private TileGrid(TileGrid original) {
+		width = original.width;
+		height = original.height;
+		tiles = original.tiles;
+		layers = original.layers;
+		isShared = true;
+	}
+	
+	/**
+	 * Makes a copy of the grid. The tiles are only copied once either grid is changed.
+	 * @return A new grid holding the same tiles.
+	 */
+	public TileGrid copy() {
+		isShared = true;
+		return new TileGrid(this);
+	}
+	
+	/**
+	 * Gets the tile on a cell.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 * @return The tile type on the cell.
+	 */
+	public TileType get(int x, int y) {
+		return TILE_TYPES[tiles[(y * width) + x]];
+	}
+	
+	/**
+	 * Gets the tile on a cell.
+	 * @param cell The cell id (y * width + x).
+	 * @return The tile type on the cell.
+	 */
+	public TileType get(int cell) {
+		return TILE_TYPES[tiles[cell]];
+	}
+	
+	/**
+	 * Sets the tile on a cell.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 * @param tileType The tile type to be set.
+	 */
+	public void set(int x, int y, TileType tileType) {
+		set((y * width) + x, tileType);
+	}
+	
+	/**
+	 * Sets the tile on a cell.
+	 * @param cell The cell id (y * width + x).
+	 * @param tileType The tile type to be set.
+	 */
+	public void set(int cell, TileType tileType) {
+		if (isShared) {
+			unshare();
+		}
+		int newTile = tileType.ordinal();
+		// Only flip the bits of the layers that the old or new tile is in (but not both).
+		int changedLayers = LAYER_MASKS[tiles[cell]] ^ LAYER_MASKS[newTile];
+		while (changedLayers != 0) {
+			int layer = Integer.numberOfTrailingZeros(changedLayers);
+			layers[layer][cell >>> 6] ^= 1L << cell;
+			changedLayers &= changedLayers - 1;
+		}
+		tiles[cell] = (byte) newTile;
+	}
+	
+	/**
+	 * Checks if a cell is in an occupancy layer.
+	 * @param layer The occupancy layer.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 * @return True if the cell's tile is in the layer, otherwise false.
+	 */
+	public boolean isSet(OccupancyLayer layer, int x, int y) {
+		return isSet(layer, (y * width) + x);
+	}
+	
+	/**
+	 * Checks if a cell is in an occupancy layer.
+	 * @param layer The occupancy layer.
+	 * @param cell The cell id (y * width + x).
+	 * @return True if the cell's tile is in the layer, otherwise false.
+	 */
+	public boolean isSet(OccupancyLayer layer, int cell) {
+		return (layers[layer.ordinal()][cell >>> 6] & (1L << cell)) != 0;
+	}
+	
+	/**
+	 * Finds the next cell in an occupancy layer, skipping 64 empty cells at a time.
+	 * @param layer The occupancy layer.
+	 * @param fromCell The cell id to start looking from (included).
+	 * @return The cell id of the next cell in the layer, or NO_CELL if there are none left.
+	 */
+	public int nextSetCell(OccupancyLayer layer, int fromCell) {
+		if (fromCell >= tiles.length) {
+			return NO_CELL;
+		}
+		long[] words = layers[layer.ordinal()];
+		int wordIndex = fromCell >>> 6;
+		// Ignore the cells before the one to start from.
+		long word = words[wordIndex] & (-1L << fromCell);
+		while (word == 0) {
+			wordIndex++;
+			if (wordIndex == words.length) {
+				return NO_CELL;
+			}
+			word = words[wordIndex];
+		}
+		return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+	}
+	
+	/**
+	 * Gets 64 cells of an occupancy layer at once, so a row can be scanned a block at a time.
+	 * Cells outside the grid aren't in the layer.
+	 * @param layer The occupancy layer.
+	 * @param fromCell The cell id of the first cell (may be outside the grid).
+	 * @return The cells as bits, where bit i is set if cell fromCell + i is in the layer.
+	 */
+	public long getCells(OccupancyLayer layer, int fromCell) {
+		long[] words = layers[layer.ordinal()];
+		int wordIndex = fromCell >> 6;
+		int bitOffset = fromCell & 63;
+		long lowWord = (wordIndex >= 0 && wordIndex < words.length) ? words[wordIndex] : 0;
+		if (bitOffset == 0) {
+			return lowWord;
+		}
+		long highWord = (wordIndex + 1 >= 0 && wordIndex + 1 < words.length) ? words[wordIndex + 1] : 0;
+		return (lowWord >>> bitOffset) | (highWord << (64 - bitOffset));
+	}
+	
+	/**
+	 * Takes a copy of the tiles and layers, so they can be changed without changing another grid.
+	 */
+	private void unshare() {
+		tiles = tiles.clone();
+		long[][] newLayers = new long[layers.length][];
+		for (int i = 0; i < layers.length; i++) {
+			newLayers[i] = layers[i].clone();
+		}
+		layers = newLayers;
+		isShared = false;
+	}
+	
+	/**
+	 * Checks if a cell is inside the grid.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 * @return True if the cell is inside the grid, otherwise false.
+	 */
+	public boolean isInside(int x, int y) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+	
+	/**
+	 * Gets the width of the grid.
+	 * @return The width in cells.
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Gets the height of the grid.
+	 * @return The height in cells.
+	 */
+	public int getHeight() {
+		return height;
+	}
+}
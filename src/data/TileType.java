@@ -0,0 +1,78 @@
+package data;
+
+/**
+ * An enum that holds the different types of tiles in a level, along with the
+ * letter each one is written as in the level files.
+ * @author William King
+ */
+public enum TileType {
+	/** An empty floor. Anything can move onto it. */
+	FLOOR(' '),
+	
+	/** A wall. Nothing can move onto it. */
+	WALL('W'),
+	
+	/** The goal of the level. */
+	GOAL('G'),
+	
+	/** An apparel that can be picked up by the player. */
+	APPAREL('A'),
+	
+	/** An item that can be picked up by the player. */
+	ITEM('I'),
+	
+	/** A door that can be opened by the player. */
+	DOOR('D'),
+	
+	/** A token that can be picked up by the player. */
+	TOKEN('T'),
+	
+	/** A portal that teleports the player. */
+	PORTAL('P'),
+	
+	/** A hazard that kills the player (unless they're wearing the right apparel). */
+	HAZARD('H'),
+	
+	/** An enemy. */
+	ENEMY('E');
+	
+	/** The tile type of each letter. Accessed by the letter. */
+	private final static TileType[] CODE_TABLE = new TileType[128];
+	
+	static {
+		for (TileType tileType : values()) {
+			CODE_TABLE[tileType.code] = tileType;
+		}
+	}
+	
+	/** The letter the tile is written as in the level files. */
+	private final char code;
+	
+	/**
+	 * Constructor for the TileType enum.
+	 * @param code The letter the tile is written as in the level files.
+	 */
+	private TileType(char code) {
+		this.code = code;
+	}
+	
+	/**
+	 * Gets the letter the tile is written as in the level files.
+	 * @return The tile's letter.
+	 */
+	public char getCode() {
+		return code;
+	}
+	
+	/**
+	 * Gets the tile type written as a letter in the level files.
+	 * @param code The tile's letter.
+	 * @return The tile type, or FLOOR if the letter isn't recognised.
+	 */
+	public static TileType fromCode(char code) {
+		if (code >= CODE_TABLE.length || CODE_TABLE[code] == null) {
+			return FLOOR;
+		}
+		return CODE_TABLE[code];
+	}
+}
@@ -0,0 +1,72 @@
+package data;
+
+/**
+ * Keeps track of which cells have been visited by a search. Each cell holds the
+ * number of the search that last visited it, so starting a new search only needs
+ * the search number to go up, rather than clearing every cell.
+ * @author William King
+ */
+public class VisitedGrid {
+	/** The number of the search that last visited each cell. Accessed by the cell id. 
+	 * Only made when the first search starts. */
+	private int[] stamps;
+	
+	/** The number of cells in the level. */
+	private int numCells;
+	
+	/** The number of the current search. */
+	private int generation;
+	
+	/**
+	 * Constructor for the VisitedGrid class.
+	 * @param numCells The number of cells in the level (height * width).
+	 */
+	public VisitedGrid(int numCells) {
+		this.numCells = numCells;
+		generation = 0;
+	}
+	
+	/**
+	 * Starts a new search, which marks every cell as not visited.
+	 */
+	public void startSearch() {
+		// Levels that are never searched (most of them) don't need the cells.
+		if (stamps == null) {
+			stamps = new int[numCells];
+		}
+		generation++;
+		
+		// Only clear the cells if the search number has run out.
+		if (generation == Integer.MAX_VALUE) {
+			for (int i = 0; i < stamps.length; i++) {
+				stamps[i] = 0;
+			}
+			generation = 1;
+		}
+	}
+	
+	/**
+	 * Checks if a cell has been visited by the current search.
+	 * @param cell The cell id to be checked.
+	 * @return True if it has been visited, otherwise false.
+	 */
+	public boolean isVisited(int cell) {
+		return stamps[cell] == generation;
+	}
+	
+	/**
+	 * Marks a cell as visited by the current search.
+	 * @param cell The cell id to be marked.
+	 */
+	public void markVisited(int cell) {
+		stamps[cell] = generation;
+	}
+	
+	/**
+	 * Gets the number of cells this grid covers.
+	 * @return The number of cells.
+	 */
+	public int getNumCells() {
+		return numCells;
+	}
+}
\ No newline at end of file
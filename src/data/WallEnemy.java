@@ -3,181 +3,112 @@ package data;
 import java.util.Random;
 
 /**
- * Models a wall following enemy. Follows the wall - just like following 
+ * Moves the wall following enemies. Follows the wall - just like following
  * a maze with your hand on the wall at all times.
  * @author William King
  */
-public class WallEnemy extends Enemy {
-	
-	/**
-	 * Constructor for the Wall Following Enemy.
-	 * @param The x-coordinate location of the enemy.
-	 * @param enemyY The y-coordinate location of the enemy.
-	 * @param moveDirection The direction that the enemy moves towards.
-	 */
-	public WallEnemy(int enemyX, int enemyY, String moveDirection) {
-		super(enemyX, enemyY, moveDirection);
-	}
+public class WallEnemy {
+	/** The change in the x-coordinate to the cell on the enemy's left, for each direction.
+	 * The cell on its right is the other way. */
+	private final static int[] LEFT_X_CHANGES = {-1, 0, -1, 0};
+	/** The change in the y-coordinate to the cell on the enemy's left, for each direction. */
+	private final static int[] LEFT_Y_CHANGES = {0, -1, 0, 1};
+	/** The direction taken at a left corner, for each direction. */
+	private final static int[] LEFT_CORNER_TURNS = {Direction.RIGHT, Direction.DOWN,
+			Direction.RIGHT, Direction.UP};
+	/** The direction taken at a right corner, for each direction. */
+	private final static int[] RIGHT_CORNER_TURNS = {Direction.LEFT, Direction.UP,
+			Direction.LEFT, Direction.DOWN};
+	/** The directions a random turn picks from when moving up or down. */
+	private final static int[] SIDEWAYS_TURNS = {Direction.LEFT, Direction.RIGHT};
+	/** The directions a random turn picks from when moving left or right. */
+	private final static int[] UPWARDS_TURNS = {Direction.UP, Direction.DOWN};
 	
 	/**
 	 * Determines a wall enemy's move based on its current location.
+	 * Only looks at the level, so the moves of many enemies can be worked out at once.
+	 * @param enemies The enemies in the level.
+	 * @param index The index of the enemy to be moved.
 	 * @param levelElements An array holding all the elements in the level.
+	 * @param moves Where the enemy's new location, direction and random seed are set
+	 * (can be the same as enemies).
 	 */
-	public void move(String[][] levelElements) {
-		// Set them as the previous values. Only one needs to change.
+	public static void move(EnemyTable enemies, int index, TileGrid levelElements, EnemyTable moves) {
+		int enemyX = enemies.getX(index);
+		int enemyY = enemies.getY(index);
+		int moveDirection = enemies.getDirection(index);
+		long randomSeed = enemies.getRandomSeed(index);
+		
+		// Set them as the previous values. Changed if the enemy moves.
 		int newX = enemyX;
 		int newY = enemyY;
 		
-		// Indexes of the left/right/front/back of the enemy (before moving).
-		// Used to check if there's a wall next to it, in front or behind it.
-		// Set it with the original values.
-		int leftX = enemyX;
-		int leftY = enemyY;
-		int rightX = enemyX;
-		int rightY = enemyY;
-		
-		int frontX = enemyX;
-		int frontY = enemyY;
-		int backX = enemyX;
-		int backY = enemyY;
-		
-		// Clear the enemy from it's previous position.
-		levelElements[enemyY][enemyX] = " ";
-		
-		// Calculate indexes based on the enemy's current position.
-		switch (moveDirection) {
-			case "UP":
-				newY--;
-				leftX--;
-				rightX++;
-				frontY = newY;
-				backY++;
-				break;
-			case "DOWN":
-				newY++;
-				leftX--;
-				rightX++;
-				frontY = newY;
-				backY--;
-				break;
-			case "LEFT":
-				newX--;
-				leftY++;
-				rightY--;
-				frontX = newX;
-				backX++;
-				break;
-			case "RIGHT":
-				newX++;
-				leftY--;
-				rightY++;
-				frontX = newX;
-				backX--;
-				break;
-		}
-		
-		// Check if there's an object in front, behind or adjacent to the enemy. 
-		String leftObject = levelElements[leftY][leftX];
-		String rightObject = levelElements[rightY][rightX];
-		String frontObject = levelElements[frontY][frontX];
-		String backObject = levelElements[backY][backX];
-		
-		boolean isLeftObject = isObject(leftObject);
-		boolean isRightObject = isObject(rightObject);
-		boolean isFrontObject = isObject(frontObject);
-		boolean isBackObject = isObject(backObject);
-		
-		// This set of IF conditions change the enemy's direction depending
-		// how they are blocked. If the enemy isn't blocked, then it will move.
-		// If the enemy is trapped.
-		if (isLeftObject && isRightObject && isFrontObject && isBackObject) {
-			// Add the 'E' back to the enemy's position (doesn't move).
-			levelElements[enemyY][enemyX] = "E";
-		// Change to opposite direction if they hit a dead end.
-		} else if (isLeftObject && isRightObject && isFrontObject) {
-			switch (moveDirection) {
-				case "UP":
-					moveDirection = "DOWN";
-					break;
-				case "DOWN":
-					moveDirection = "UP";
-					break;
-				case "LEFT":
-					moveDirection = "RIGHT";
-					break;
-				case "RIGHT":
-					moveDirection = "LEFT";
-					break;
-			}
-			// Run the method again with the changed direction.
-			move(levelElements);
-		// If they hit a left corner.
-		} else if (isFrontObject && isLeftObject) {
-			switch (moveDirection) {
-			case "UP":
-				moveDirection = "RIGHT";
-				break;
-			case "DOWN":
-				moveDirection = "RIGHT";
-				break;
-			case "LEFT":
-				moveDirection = "UP";
-				break;
-			case "RIGHT":
-				moveDirection = "DOWN";
-				break;
-			}
-			move(levelElements);
-		// If they hit a right corner.
-		} else if (isFrontObject && isRightObject) {
-			switch (moveDirection) {
-				case "UP":
-					moveDirection = "LEFT";
-					break;
-				case "DOWN":
-					moveDirection = "LEFT";
-					break;
-				case "LEFT":
-					moveDirection = "DOWN";
-					break;
-				case "RIGHT":
-					moveDirection = "UP";
-					break;
-			}
-			move(levelElements);
-		// If there's an object in front (and nothing else).
-		} else if (isFrontObject) {
-			// Used to generate a random index to make the enemy turn in
-			// 2 possible directions. This avoids the wall enemy from becoming 
-			// a straight enemy in certain cases.
-			Random rand  = new Random();
-			String[] possibleDirections = {"UP", "DOWN", "LEFT", "RIGHT"};
-			int randomNum;
+		// Turn until the enemy can move (or is found to be trapped).
+		boolean isTurning = true;
+		while (isTurning) {
+			// Indexes of the left/right/front/back of the enemy (before moving).
+			// Used to check if there's a wall next to it, in front or behind it.
+			int frontX = enemyX + Direction.getXChange(moveDirection);
+			int frontY = enemyY + Direction.getYChange(moveDirection);
+			int backX = enemyX - Direction.getXChange(moveDirection);
+			int backY = enemyY - Direction.getYChange(moveDirection);
+			int leftX = enemyX + LEFT_X_CHANGES[moveDirection];
+			int leftY = enemyY + LEFT_Y_CHANGES[moveDirection];
+			int rightX = enemyX - LEFT_X_CHANGES[moveDirection];
+			int rightY = enemyY - LEFT_Y_CHANGES[moveDirection];
+			
+			// Check if there's an object in front, behind or adjacent to the enemy.
+			boolean isLeftObject = isBlocked(levelElements, leftX, leftY);
+			boolean isRightObject = isBlocked(levelElements, rightX, rightY);
+			boolean isFrontObject = isBlocked(levelElements, frontX, frontY);
+			boolean isBackObject = isBlocked(levelElements, backX, backY);
 			
-			switch (moveDirection) {
-				case "UP":
-					randomNum = 2 + rand.nextInt(2); // Move left or right.
-					moveDirection = possibleDirections[randomNum];
-					break;
-				case "DOWN":
-					randomNum = 2 + rand.nextInt(2);
-					moveDirection = possibleDirections[randomNum];
-					break;
-				case "LEFT":
-					randomNum = rand.nextInt(2); // Move up or down.
-					moveDirection = possibleDirections[randomNum];
-					break;
-				case "RIGHT":
-					randomNum = rand.nextInt(2);
-					moveDirection = possibleDirections[randomNum];
-					break;
+			// This set of IF conditions change the enemy's direction depending
+			// how they are blocked. If the enemy isn't blocked, then it will move.
+			// If the enemy is trapped, it doesn't move.
+			if (isLeftObject && isRightObject && isFrontObject && isBackObject) {
+				isTurning = false;
+			// Change to opposite direction if they hit a dead end.
+			} else if (isLeftObject && isRightObject && isFrontObject) {
+				moveDirection = Direction.getOpposite(moveDirection);
+			// If they hit a left corner.
+			} else if (isFrontObject && isLeftObject) {
+				moveDirection = LEFT_CORNER_TURNS[moveDirection];
+			// If they hit a right corner.
+			} else if (isFrontObject && isRightObject) {
+				moveDirection = RIGHT_CORNER_TURNS[moveDirection];
+			// If there's an object in front (and nothing else).
+			} else if (isFrontObject) {
+				// Used to generate a random index to make the enemy turn in
+				// 2 possible directions. This avoids the wall enemy from becoming
+				// a straight enemy in certain cases.
+				Random rand = new Random(randomSeed);
+				if (moveDirection == Direction.UP || moveDirection == Direction.DOWN) {
+					moveDirection = SIDEWAYS_TURNS[rand.nextInt(2)]; // Move left or right.
+				} else {
+					moveDirection = UPWARDS_TURNS[rand.nextInt(2)]; // Move up or down.
+				}
+				randomSeed = rand.nextLong();
+			// If it's a clear path.
+			} else {
+				newX = frontX;
+				newY = frontY;
+				isTurning = false;
 			}
-			move(levelElements);
-		// If it's a clear path.
-		} else {
-			enemyX = newX;
-			enemyY = newY;
-			levelElements[enemyY][enemyX] = "E";
 		}
+		moves.setLocation(index, newX, newY);
+		moves.setDirection(index, moveDirection);
+		moves.setRandomSeed(index, randomSeed);
+	}
+	
+	/**
+	 * Checks if a cell has an object on it that blocks the enemy.
+	 * @param levelElements An array holding all the elements in the level.
+	 * @param x The x-coordinate of the cell.
+	 * @param y The y-coordinate of the cell.
+	 * @return True if the cell is blocked, otherwise false (if it's clear).
+	 */
+	private static boolean isBlocked(TileGrid levelElements, int x, int y) {
+		return levelElements.isSet(OccupancyLayer.ENEMY_BLOCKED, x, y);
 	}
-}
\ No newline at end of file
+}